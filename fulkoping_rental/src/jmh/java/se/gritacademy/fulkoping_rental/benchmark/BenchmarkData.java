@@ -0,0 +1,72 @@
+package se.gritacademy.fulkoping_rental.benchmark;
+
+import se.gritacademy.fulkoping_rental.dto.rental.RentalDTO;
+import se.gritacademy.fulkoping_rental.dto.vehicle.VehicleDTO;
+import se.gritacademy.fulkoping_rental.mapper.RentalMapper;
+import se.gritacademy.fulkoping_rental.mapper.VehicleMapper;
+import se.gritacademy.fulkoping_rental.model.rental.Rental;
+import se.gritacademy.fulkoping_rental.model.user.Admin;
+import se.gritacademy.fulkoping_rental.model.user.Customer;
+import se.gritacademy.fulkoping_rental.model.vehicle.Car;
+import se.gritacademy.fulkoping_rental.model.vehicle.Trailer;
+import se.gritacademy.fulkoping_rental.model.vehicle.Truck;
+import se.gritacademy.fulkoping_rental.model.vehicle.Vehicle;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Deterministic test data shared by the benchmarks.
+ */
+final class BenchmarkData {
+
+    private static final OffsetDateTime START = OffsetDateTime.of(2025, 1, 1, 8, 0, 0, 0, ZoneOffset.UTC);
+
+    private BenchmarkData() {}
+
+    static Customer customer(long id) {
+        Customer customer = new Customer("Anna", "Andersson", "anna" + id + "@example.com", "+46701234567");
+        customer.setId(id);
+        return customer;
+    }
+
+    static Admin admin(long id) {
+        Admin admin = new Admin("Erik", "Eriksson", "erik" + id + "@example.com", "ABCABC1");
+        admin.setId(id);
+        return admin;
+    }
+
+    static Vehicle vehicle(long id) {
+        Vehicle vehicle = switch ((int) (id % 3)) {
+            case 0 -> new Car("ABC" + id, "Volvo", "V70", id % 2 == 0, 5);
+            case 1 -> new Truck("TRK" + id, "Scania", "R500", id % 2 == 0, "C");
+            default -> new Trailer("TRL" + id, "Brenderup", "1205S", id % 2 == 0, 750);
+        };
+        vehicle.setId(id);
+        return vehicle;
+    }
+
+    static Rental rental(long id) {
+        Vehicle vehicle = vehicle(id);
+        // Microsecond precision like timestamps stored by MySQL
+        OffsetDateTime start = START.plusHours(id).plusNanos(id * 123_457_000L % 1_000_000_000L);
+        Rental rental = new Rental(customer(id), vehicle.getId(), vehicle.getRegistrationNumber(),
+                vehicle.getClass().getSimpleName(), start, id % 2 == 0 ? start.plusHours(3) : null);
+        rental.setId(id);
+        return rental;
+    }
+
+    static List<VehicleDTO> vehicleDTOs(int size) {
+        List<VehicleDTO> list = new ArrayList<>(size);
+        for (long i = 1; i <= size; i++) list.add(VehicleMapper.toDTO(vehicle(i)));
+        return list;
+    }
+
+    static List<RentalDTO> rentalDTOs(int size) {
+        List<RentalDTO> list = new ArrayList<>(size);
+        for (long i = 1; i <= size; i++) list.add(RentalMapper.toDTO(rental(i)));
+        return list;
+    }
+}
@@ -0,0 +1,84 @@
+package se.gritacademy.fulkoping_rental.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import se.gritacademy.fulkoping_rental.config.JacksonConfig;
+import se.gritacademy.fulkoping_rental.dto.rental.RentalDTO;
+import se.gritacademy.fulkoping_rental.dto.vehicle.VehicleDTO;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compares the negotiated response formats on list responses: JSON against CBOR and Smile,
+ * each with the ObjectMapper the application uses for it (see JacksonConfig).
+ * Writing is the server's cost, reading the client's; encoded sizes (plain and gzipped) are printed once per trial.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BinaryFormatBenchmark {
+
+    private static final TypeReference<List<RentalDTO>> RENTAL_LIST = new TypeReference<>() {};
+
+    @Param({"100", "10000"})
+    private int size;
+
+    @Param({"json", "cbor", "smile"})
+    private String format;
+
+    private ObjectMapper objectMapper;
+    private List<VehicleDTO> vehicles;
+    private List<RentalDTO> rentals;
+    private byte[] encodedRentals;
+
+    @Setup
+    public void setup() throws IOException {
+        JacksonConfig config = new JacksonConfig();
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json()
+                .modulesToInstall(config.blackbirdModule(), config.offsetDateTimeModule());
+        objectMapper = switch (format) {
+            case "cbor" -> config.cborHttpMessageConverter(builder).getObjectMapper();
+            case "smile" -> config.smileHttpMessageConverter(builder).getObjectMapper();
+            default -> builder.build();
+        };
+        vehicles = BenchmarkData.vehicleDTOs(size);
+        rentals = BenchmarkData.rentalDTOs(size);
+        encodedRentals = objectMapper.writeValueAsBytes(rentals);
+        byte[] encodedVehicles = objectMapper.writeValueAsBytes(vehicles);
+        System.out.printf("%n%s: %d vehicles %d bytes (%d gzipped), %d rentals %d bytes (%d gzipped)%n", format,
+                size, encodedVehicles.length, gzip(encodedVehicles).length,
+                size, encodedRentals.length, gzip(encodedRentals).length);
+    }
+
+    @Benchmark
+    public byte[] writeVehicleList() throws Exception {
+        return objectMapper.writeValueAsBytes(vehicles);
+    }
+
+    @Benchmark
+    public byte[] writeRentalList() throws Exception {
+        return objectMapper.writeValueAsBytes(rentals);
+    }
+
+    @Benchmark
+    public List<RentalDTO> readRentalList() throws Exception {
+        return objectMapper.readValue(encodedRentals, RENTAL_LIST);
+    }
+
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,63 @@
+package se.gritacademy.fulkoping_rental.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.web.server.ResponseStatusException;
+import se.gritacademy.fulkoping_rental.exception.DomainException;
+import se.gritacademy.fulkoping_rental.exception.GlobalExceptionHandler;
+import se.gritacademy.fulkoping_rental.exception.NotFoundException;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of a "Vehicle not found" response from the point the service throws
+ * until GlobalExceptionHandler has built the ProblemDetail,
+ * comparing the previous ResponseStatusException with the stackless NotFoundException.
+ * The exception is thrown below a stack of the given depth, since capturing the stack trace
+ * is proportional to it; a request thread in Tomcat, the security filter chain and
+ * Spring MVC is typically well over 100 frames deep when a service throws.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ErrorPathBenchmark {
+
+    @Param({"10", "150"})
+    private int stackDepth;
+
+    private final GlobalExceptionHandler handler = new GlobalExceptionHandler();
+    private long vehicleId = 1;
+
+    @Benchmark
+    public ProblemDetail responseStatusException() {
+        try {
+            return throwAtDepth(stackDepth, false);
+        } catch (ResponseStatusException ex) {
+            return handler.handleResponseStatusException(ex);
+        }
+    }
+
+    @Benchmark
+    public ProblemDetail domainException() {
+        try {
+            return throwAtDepth(stackDepth, true);
+        } catch (DomainException ex) {
+            return handler.handleDomainException(ex);
+        }
+    }
+
+    private ProblemDetail throwAtDepth(int depth, boolean domain) {
+        if (depth > 0) {
+            return throwAtDepth(depth - 1, domain);
+        }
+        long id = vehicleId++;
+        if (domain) {
+            throw new NotFoundException("Vehicle not found with id " + id);
+        }
+        throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Vehicle not found with id " + id);
+    }
+}
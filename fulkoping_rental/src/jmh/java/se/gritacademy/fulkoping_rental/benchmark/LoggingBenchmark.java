@@ -0,0 +1,109 @@
+package se.gritacademy.fulkoping_rental.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import se.gritacademy.fulkoping_rental.mapper.RentalMapper;
+import se.gritacademy.fulkoping_rental.model.rental.Rental;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of the in-process part of a booking request (mapping and serializing the rental
+ * plus the two INFO lines RentalService logs) with four request threads, under different logging setups:
+ * logging off, the previous synchronous file appender flushed per event, and the asynchronous JSON logger.
+ * Sample mode reports percentiles, which is where log I/O stalls show up.
+ * The virtual thread variants run each booking on a new virtual thread like a request does,
+ * with Log4j2's thread-local message buffers off (the default) and forced on; compare them with -prof gc.
+ * The async ring buffer can fill up under this artificial load; events are then dropped by the Discard policy.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+public class LoggingBenchmark {
+
+    private static final String ASYNC_SELECTOR =
+            "-Dlog4j2.contextSelector=org.apache.logging.log4j.core.async.AsyncLoggerContextSelector";
+    private static final String SYNC_SELECTOR =
+            "-Dlog4j2.contextSelector=org.apache.logging.log4j.core.selector.ClassLoaderContextSelector";
+
+    private static final String THREADLOCALS_ON = "-Dlog4j2.enableThreadlocals=true";
+    private static final String NOT_WEBAPP = "-Dlog4j2.isWebapp=false";
+
+    private static final Logger logger = LoggerFactory.getLogger("se.gritacademy.fulkoping_rental.service.rental.RentalService");
+
+    private ObjectMapper objectMapper;
+    private Rental rental;
+
+    @Setup
+    public void setup() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        rental = BenchmarkData.rental(42);
+        MDC.put("requestId", "3f2a9c01d4e5b6a7");
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = {ASYNC_SELECTOR, "-Dlog4j2.configurationFile=log4j2-benchmark-async.xml",
+            "-Dbenchmark.log.level=OFF"})
+    public byte[] loggingOff() throws Exception {
+        return bookingRequest();
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = {SYNC_SELECTOR, "-Dlog4j2.configurationFile=log4j2-benchmark-sync.xml"})
+    public byte[] syncFileAppender() throws Exception {
+        return bookingRequest();
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = {ASYNC_SELECTOR, "-Dlog4j2.configurationFile=log4j2-benchmark-async.xml"})
+    public byte[] asyncJsonLogger() throws Exception {
+        return bookingRequest();
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = {ASYNC_SELECTOR, "-Dlog4j2.configurationFile=log4j2-benchmark-async.xml"})
+    public byte[] asyncJsonLoggerOnVirtualThreads() throws Exception {
+        return onNewVirtualThread();
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = {ASYNC_SELECTOR, "-Dlog4j2.configurationFile=log4j2-benchmark-async.xml",
+            THREADLOCALS_ON, NOT_WEBAPP})
+    public byte[] asyncJsonLoggerOnVirtualThreadsWithThreadLocals() throws Exception {
+        return onNewVirtualThread();
+    }
+
+    /**
+     * Helper: Runs one booking on a new virtual thread with its own request id, as RequestIdFilter sets it.
+     */
+    private byte[] onNewVirtualThread() throws Exception {
+        byte[][] body = new byte[1][];
+        Thread thread = Thread.ofVirtual().start(() -> {
+            MDC.put("requestId", "3f2a9c01d4e5b6a7");
+            try {
+                body[0] = bookingRequest();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            } finally {
+                MDC.remove("requestId");
+            }
+        });
+        thread.join();
+        return body[0];
+    }
+
+    private byte[] bookingRequest() throws Exception {
+        logger.info("Vehicle {} rental status updated to {}", rental.getVehicleRegistrationNumber(), "rented");
+        byte[] body = objectMapper.writeValueAsBytes(RentalMapper.toDTO(rental));
+        logger.info("Created new rental (id={}) for userId={} and vehicleId={}",
+                rental.getId(), rental.getUser().getId(), rental.getVehicleId());
+        return body;
+    }
+}
@@ -0,0 +1,99 @@
+package se.gritacademy.fulkoping_rental.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import se.gritacademy.fulkoping_rental.dto.rental.RentalDTO;
+import se.gritacademy.fulkoping_rental.dto.user.CreateUserDTO;
+import se.gritacademy.fulkoping_rental.dto.user.UserDTO;
+import se.gritacademy.fulkoping_rental.dto.vehicle.CreateVehicleDTO;
+import se.gritacademy.fulkoping_rental.dto.vehicle.VehicleDTO;
+import se.gritacademy.fulkoping_rental.mapper.RentalMapper;
+import se.gritacademy.fulkoping_rental.mapper.UserMapper;
+import se.gritacademy.fulkoping_rental.mapper.VehicleMapper;
+import se.gritacademy.fulkoping_rental.model.rental.Rental;
+import se.gritacademy.fulkoping_rental.model.user.User;
+import se.gritacademy.fulkoping_rental.model.vehicle.Vehicle;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapperBenchmark {
+
+    private Vehicle car;
+    private Vehicle truck;
+    private Vehicle trailer;
+    private User customer;
+    private User admin;
+    private Rental rental;
+    private CreateVehicleDTO createCar;
+    private CreateUserDTO createCustomer;
+
+    @Setup
+    public void setup() {
+        car = BenchmarkData.vehicle(3);
+        truck = BenchmarkData.vehicle(4);
+        trailer = BenchmarkData.vehicle(5);
+        customer = BenchmarkData.customer(1);
+        admin = BenchmarkData.admin(2);
+        rental = BenchmarkData.rental(6);
+
+        createCar = new CreateVehicleDTO();
+        createCar.setType("Car");
+        createCar.setRegistrationNumber("ABC123");
+        createCar.setBrand("Volvo");
+        createCar.setModel("V70");
+        createCar.setSeatCount(5);
+        createCar.setRented(false);
+
+        createCustomer = new CreateUserDTO();
+        createCustomer.setType("Customer");
+        createCustomer.setFirstName("Anna");
+        createCustomer.setLastName("Andersson");
+        createCustomer.setEmail("anna@example.com");
+        createCustomer.setPhoneNumber("+46701234567");
+    }
+
+    @Benchmark
+    public VehicleDTO vehicleToDtoCar() {
+        return VehicleMapper.toDTO(car);
+    }
+
+    @Benchmark
+    public VehicleDTO vehicleToDtoTruck() {
+        return VehicleMapper.toDTO(truck);
+    }
+
+    @Benchmark
+    public VehicleDTO vehicleToDtoTrailer() {
+        return VehicleMapper.toDTO(trailer);
+    }
+
+    @Benchmark
+    public Vehicle vehicleFromCreateDto() {
+        return VehicleMapper.fromCreateDTO(createCar);
+    }
+
+    @Benchmark
+    public UserDTO userToDtoCustomer() {
+        return UserMapper.toDTO(customer);
+    }
+
+    @Benchmark
+    public UserDTO userToDtoAdmin() {
+        return UserMapper.toDTO(admin);
+    }
+
+    @Benchmark
+    public User userFromCreateDto() {
+        return UserMapper.fromCreateDTO(createCustomer);
+    }
+
+    @Benchmark
+    public RentalDTO rentalToDto() {
+        return RentalMapper.toDTO(rental);
+    }
+}
@@ -0,0 +1,101 @@
+package se.gritacademy.fulkoping_rental.benchmark;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.openjdk.jmh.annotations.*;
+import se.gritacademy.fulkoping_rental.dto.user.UpdateUserDTO;
+import se.gritacademy.fulkoping_rental.model.user.Customer;
+import se.gritacademy.fulkoping_rental.model.user.User;
+import se.gritacademy.fulkoping_rental.service.patch.PatchEngine;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * Compares the precompiled PatchEngine with the previous user PATCH path,
+ * which built a new ValidatorFactory and a temporary UpdateUserDTO per request.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PatchBenchmark {
+
+    private final Map<String, Object> fields = Map.of(
+            "firstName", "Bertil",
+            "email", "bertil@example.com",
+            "phoneNumber", "+46709876543");
+
+    private ValidatorFactory validatorFactory;
+    private PatchEngine patchEngine;
+    private Customer customer;
+
+    @Setup
+    public void setup() {
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        patchEngine = new PatchEngine(validatorFactory.getValidator());
+        customer = BenchmarkData.customer(1);
+    }
+
+    @TearDown
+    public void tearDown() {
+        validatorFactory.close();
+    }
+
+    @Benchmark
+    public boolean patchEngine() {
+        return patchEngine.apply(customer, fields);
+    }
+
+    @Benchmark
+    public User legacyValidatorPerRequest() {
+        LegacyUserPatch.apply(customer, fields);
+        return customer;
+    }
+
+    /**
+     * The user PATCH path as it was before the PatchEngine, kept for comparison.
+     * The factory is closed after each call so the benchmark itself does not leak.
+     */
+    static final class LegacyUserPatch {
+
+        static void apply(User user, Map<String, Object> fields) {
+            try (ValidatorFactory factory = Validation.buildDefaultValidatorFactory()) {
+                Validator validator = factory.getValidator();
+                Set<String> allowedFields = new HashSet<>(List.of("firstName", "lastName", "email"));
+                if (user instanceof Customer) allowedFields.add("phoneNumber");
+                for (String key : fields.keySet()) {
+                    if (!allowedFields.contains(key)) throw new IllegalArgumentException("Field not allowed: " + key);
+                }
+                for (Map.Entry<String, Object> entry : fields.entrySet()) {
+                    if (!(entry.getValue() instanceof String)) throw new IllegalArgumentException(entry.getKey());
+                }
+                UpdateUserDTO dto = new UpdateUserDTO();
+                Map<String, BiConsumer<UpdateUserDTO, String>> setters = Map.of(
+                        "firstName", UpdateUserDTO::setFirstName,
+                        "lastName", UpdateUserDTO::setLastName,
+                        "email", UpdateUserDTO::setEmail,
+                        "phoneNumber", UpdateUserDTO::setPhoneNumber);
+                for (Map.Entry<String, BiConsumer<UpdateUserDTO, String>> entry : setters.entrySet()) {
+                    if (fields.containsKey(entry.getKey())) entry.getValue().accept(dto, (String) fields.get(entry.getKey()));
+                }
+                Set<ConstraintViolation<UpdateUserDTO>> violations = validator.validate(dto);
+                if (!violations.isEmpty()) throw new IllegalArgumentException(violations.toString());
+                if (fields.containsKey("firstName")) user.setFirstName((String) fields.get("firstName"));
+                if (fields.containsKey("lastName")) user.setLastName((String) fields.get("lastName"));
+                if (fields.containsKey("email")) user.setEmail((String) fields.get("email"));
+                if (fields.containsKey("phoneNumber") && user instanceof Customer c) {
+                    c.setPhoneNumber((String) fields.get("phoneNumber"));
+                }
+            }
+        }
+    }
+}
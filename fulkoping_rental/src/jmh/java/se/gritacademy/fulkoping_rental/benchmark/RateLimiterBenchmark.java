@@ -0,0 +1,51 @@
+package se.gritacademy.fulkoping_rental.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import se.gritacademy.fulkoping_rental.security.ApiKeyPrincipal;
+import se.gritacademy.fulkoping_rental.security.ApiKeyRateLimiter;
+import se.gritacademy.fulkoping_rental.security.TokenBucket;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of taking a token under contention.
+ * All threads hitting one bucket is the worst case (one API key used by every request thread).
+ * 50k req/s is 50 ops/ms in total, so the contended scores should stay orders of magnitude above that.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RateLimiterBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class SharedBucket {
+        // High enough that the bucket never runs dry, so every call does the full CAS path
+        final TokenBucket bucket = new TokenBucket(10_000_000, TokenBucket.MAX_CAPACITY);
+    }
+
+    @State(Scope.Benchmark)
+    public static class SharedLimiter {
+        final ApiKeyRateLimiter limiter = new ApiKeyRateLimiter(true, 2, 5_000_000, 5_000_000, 5_000_000, 5_000_000);
+        final ApiKeyPrincipal principal = new ApiKeyPrincipal(1L, "integration", "ADMIN", null, null);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public long singleThread(SharedBucket state) {
+        return state.bucket.tryAcquire();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public long eightThreadsOneBucket(SharedBucket state) {
+        return state.bucket.tryAcquire();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public long eightThreadsLimiterLookup(SharedLimiter state) {
+        return state.limiter.tryAcquire(state.principal, false);
+    }
+}
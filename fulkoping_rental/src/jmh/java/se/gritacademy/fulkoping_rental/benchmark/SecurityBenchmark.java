@@ -0,0 +1,65 @@
+package se.gritacademy.fulkoping_rental.benchmark;
+
+import jakarta.servlet.FilterChain;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import se.gritacademy.fulkoping_rental.repository.apikey.ApiKeyRepository;
+import se.gritacademy.fulkoping_rental.security.ApiKeyAuthFilter;
+import se.gritacademy.fulkoping_rental.security.ApiKeyRateLimiter;
+import se.gritacademy.fulkoping_rental.security.ApiKeyService;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the per-request cost of the API key filter for a valid and an invalid key.
+ * Both keys are answered from memory (configured key and negative cache), so no repository work is measured.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SecurityBenchmark {
+
+    private final FilterChain chain = (request, response) -> {};
+
+    private ApiKeyAuthFilter filter;
+    private MockHttpServletRequest validRequest;
+    private MockHttpServletRequest invalidRequest;
+    private MockHttpServletResponse response;
+
+    @Setup
+    public void setup() throws Exception {
+        ApiKeyRepository repository = Mockito.mock(ApiKeyRepository.class);
+        ApiKeyService apiKeyService = new ApiKeyService(repository, new ApiKeyRateLimiter(false, 2, 1, 1, 1, 1), "user-key", "admin-key", 30, 10_000, 1_000);
+        filter = new ApiKeyAuthFilter(apiKeyService);
+        validRequest = request("admin-key");
+        invalidRequest = request("not-a-key");
+        response = new MockHttpServletResponse();
+        filter.doFilter(invalidRequest, response, chain);
+    }
+
+    @Benchmark
+    public int validKey() throws Exception {
+        filter.doFilter(validRequest, response, chain);
+        SecurityContextHolder.clearContext();
+        return response.getStatus();
+    }
+
+    @Benchmark
+    public int invalidKey() throws Exception {
+        response.reset();
+        filter.doFilter(invalidRequest, response, chain);
+        return response.getStatus();
+    }
+
+    private static MockHttpServletRequest request(String apiKey) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/vehicles");
+        request.addHeader("X-API-KEY", apiKey);
+        return request;
+    }
+}
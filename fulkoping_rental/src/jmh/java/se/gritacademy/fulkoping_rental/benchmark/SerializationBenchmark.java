@@ -0,0 +1,75 @@
+package se.gritacademy.fulkoping_rental.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import se.gritacademy.fulkoping_rental.config.JacksonConfig;
+import se.gritacademy.fulkoping_rental.dto.rental.RentalDTO;
+import se.gritacademy.fulkoping_rental.dto.vehicle.VehicleDTO;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serializes list responses the way the controllers return them.
+ * "default" is an ObjectMapper configured like Spring Boot's default, "fast" adds the modules from JacksonConfig.
+ * The gzip benchmark adds the cost of response compression; the bytes on the wire are printed once per trial.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    private int size;
+
+    @Param({"default", "fast"})
+    private String mapper;
+
+    private ObjectMapper objectMapper;
+    private List<VehicleDTO> vehicles;
+    private List<RentalDTO> rentals;
+
+    @Setup
+    public void setup() throws IOException {
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json();
+        if (mapper.equals("fast")) {
+            JacksonConfig config = new JacksonConfig();
+            builder.modulesToInstall(config.blackbirdModule(), config.offsetDateTimeModule());
+        }
+        objectMapper = builder.build();
+        vehicles = BenchmarkData.vehicleDTOs(size);
+        rentals = BenchmarkData.rentalDTOs(size);
+        byte[] json = objectMapper.writeValueAsBytes(rentals);
+        System.out.printf("%n%d rentals: %d bytes as JSON, %d bytes gzipped%n", size, json.length, gzip(json).length);
+    }
+
+    @Benchmark
+    public byte[] vehicleList() throws Exception {
+        return objectMapper.writeValueAsBytes(vehicles);
+    }
+
+    @Benchmark
+    public byte[] rentalList() throws Exception {
+        return objectMapper.writeValueAsBytes(rentals);
+    }
+
+    @Benchmark
+    public byte[] rentalListGzip() throws Exception {
+        return gzip(objectMapper.writeValueAsBytes(rentals));
+    }
+
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        }
+        return out.toByteArray();
+    }
+}
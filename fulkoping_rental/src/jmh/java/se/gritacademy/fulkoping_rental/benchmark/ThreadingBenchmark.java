@@ -0,0 +1,75 @@
+package se.gritacademy.fulkoping_rental.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Compares platform and virtual threads for a burst of requests that spend most of their time
+ * blocked on I/O, the way request threads block on JDBC.
+ * The platform pool has Tomcat's default of 200 threads; the virtual executor starts one thread per request.
+ * The pinned variant blocks inside a synchronized block, which holds the carrier thread on JDK 21
+ * and shows what pinning in a driver or pool would cost.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ThreadingBenchmark {
+
+    private static final int TOMCAT_MAX_THREADS = 200;
+    private static final long BLOCKING_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+
+    @Param({"platform", "virtual", "virtualPinned"})
+    public String mode;
+
+    @Param({"1000", "5000"})
+    public int concurrentRequests;
+
+    private ExecutorService executor;
+
+    @Setup
+    public void setUp() {
+        executor = mode.equals("platform")
+                ? Executors.newFixedThreadPool(TOMCAT_MAX_THREADS)
+                : Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Submits a burst of blocking requests and waits until all have completed.
+     */
+    @Benchmark
+    public void burst() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(concurrentRequests);
+        boolean pinned = mode.equals("virtualPinned");
+        for (int i = 0; i < concurrentRequests; i++) {
+            executor.execute(() -> {
+                if (pinned) {
+                    blockPinned();
+                } else {
+                    LockSupport.parkNanos(BLOCKING_NANOS);
+                }
+                done.countDown();
+            });
+        }
+        done.await();
+    }
+
+    private void blockPinned() {
+        Object monitor = new Object();
+        synchronized (monitor) {
+            LockSupport.parkNanos(BLOCKING_NANOS);
+        }
+    }
+}
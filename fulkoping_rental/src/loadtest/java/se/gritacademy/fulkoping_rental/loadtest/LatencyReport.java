@@ -0,0 +1,75 @@
+package se.gritacademy.fulkoping_rental.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.PrintStream;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histograms and outcome counters per operation.
+ * Latency is measured from the intended send time of a request, not from when it was actually sent,
+ * so stalls in the application or in the generator show up in the percentiles (coordinated omission correction).
+ */
+class LatencyReport {
+
+    private static final long MAX_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(10);
+
+    private final Map<Operation, Stats> stats = new EnumMap<>(Operation.class);
+    private final Histogram total = new ConcurrentHistogram(MAX_TRACKABLE_MICROS, 3);
+
+    LatencyReport() {
+        for (Operation op : Operation.values()) {
+            stats.put(op, new Stats());
+        }
+    }
+
+    void record(Operation op, long intendedNanos, long completedNanos, Outcome outcome) {
+        long micros = Math.min(Math.max((completedNanos - intendedNanos) / 1000, 1), MAX_TRACKABLE_MICROS);
+        Stats s = stats.get(op);
+        s.histogram.recordValue(micros);
+        total.recordValue(micros);
+        switch (outcome) {
+            case OK -> s.ok.increment();
+            case CONFLICT -> s.conflicts.increment();
+            case ERROR -> s.errors.increment();
+        }
+    }
+
+    void print(PrintStream out, double measuredSeconds) {
+        out.printf("%n%-16s %9s %8s %8s %9s %9s %9s %9s %9s %9s%n",
+                "operation", "count", "conflict", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (Map.Entry<Operation, Stats> entry : stats.entrySet()) {
+            Stats s = entry.getValue();
+            if (s.histogram.getTotalCount() > 0) {
+                printRow(out, entry.getKey().key(), s.histogram, s.conflicts.sum(), s.errors.sum(), measuredSeconds);
+            }
+        }
+        long conflicts = stats.values().stream().mapToLong(s -> s.conflicts.sum()).sum();
+        long errors = stats.values().stream().mapToLong(s -> s.errors.sum()).sum();
+        printRow(out, "TOTAL", total, conflicts, errors, measuredSeconds);
+    }
+
+    private void printRow(PrintStream out, String name, Histogram h, long conflicts, long errors, double seconds) {
+        out.printf("%-16s %9d %8d %8d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                name, h.getTotalCount(), conflicts, errors, h.getTotalCount() / seconds,
+                ms(h.getValueAtPercentile(50)), ms(h.getValueAtPercentile(90)), ms(h.getValueAtPercentile(99)),
+                ms(h.getValueAtPercentile(99.9)), ms(h.getMaxValue()));
+    }
+
+    private static double ms(long micros) {
+        return micros / 1000.0;
+    }
+
+    enum Outcome { OK, CONFLICT, ERROR }
+
+    private static final class Stats {
+        final Histogram histogram = new ConcurrentHistogram(MAX_TRACKABLE_MICROS, 3);
+        final LongAdder ok = new LongAdder();
+        final LongAdder conflicts = new LongAdder();
+        final LongAdder errors = new LongAdder();
+    }
+}
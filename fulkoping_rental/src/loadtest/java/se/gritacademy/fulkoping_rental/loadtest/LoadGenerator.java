@@ -0,0 +1,152 @@
+package se.gritacademy.fulkoping_rental.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-model load generator: requests are scheduled with exponentially distributed
+ * inter-arrival times at the target rate and sent asynchronously, independent of how fast
+ * earlier requests complete. Latency is recorded against the scheduled time.
+ */
+class LoadGenerator {
+
+    private static final String USER_KEY = "user-key";
+    private static final String ADMIN_KEY = "admin-key";
+
+    private final URI baseUri;
+    private final LoadTestConfig config;
+    private final TrafficMix mix;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ConcurrentLinkedQueue<Long> openRentals = new ConcurrentLinkedQueue<>();
+    private final AtomicLong inFlight = new AtomicLong();
+
+    LoadGenerator(URI baseUri, LoadTestConfig config) {
+        this.baseUri = baseUri;
+        this.config = config;
+        this.mix = new TrafficMix(config.mix());
+    }
+
+    /**
+     * Runs the warmup and measurement phases and returns the measurement results.
+     */
+    LatencyReport run() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(config.clientThreads());
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(executor)
+                .build();
+        try {
+            System.out.printf("Warming up for %d s at %d req/s%n", config.warmupSeconds(), config.requestsPerSecond());
+            drive(client, config.warmupSeconds(), new LatencyReport());
+            LatencyReport report = new LatencyReport();
+            System.out.printf("Measuring for %d s at %d req/s%n", config.durationSeconds(), config.requestsPerSecond());
+            drive(client, config.durationSeconds(), report);
+            return report;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Helper: Sends requests for the given number of seconds, then waits for outstanding responses.
+     */
+    private void drive(HttpClient client, int seconds, LatencyReport report) throws InterruptedException {
+        SplittableRandom random = new SplittableRandom(seconds);
+        double meanIntervalNanos = TimeUnit.SECONDS.toNanos(1) / (double) config.requestsPerSecond();
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(seconds);
+        long intended = start;
+        while (true) {
+            intended += (long) (-Math.log(1 - random.nextDouble()) * meanIntervalNanos);
+            if (intended >= end) break;
+            long wait = intended - System.nanoTime();
+            if (wait > 0) LockSupport.parkNanos(wait);
+            send(client, mix.pick(random), random, intended, report);
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+        while (inFlight.get() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private void send(HttpClient client, Operation op, SplittableRandom random, long intended, LatencyReport report) {
+        Operation effective = op;
+        Long rentalToReturn = null;
+        if (op == Operation.RETURN) {
+            rentalToReturn = openRentals.poll();
+            if (rentalToReturn == null) effective = Operation.VEHICLE_BY_ID;
+        }
+        HttpRequest request = buildRequest(effective, random, rentalToReturn);
+        Operation recorded = effective;
+        inFlight.incrementAndGet();
+        client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .whenComplete((response, error) -> {
+                    long completed = System.nanoTime();
+                    report.record(recorded, intended, completed, outcome(recorded, response, error));
+                    inFlight.decrementAndGet();
+                });
+    }
+
+    private LatencyReport.Outcome outcome(Operation op, HttpResponse<String> response, Throwable error) {
+        if (error != null) return LatencyReport.Outcome.ERROR;
+        int status = response.statusCode();
+        if (op == Operation.BOOK && status == 201) {
+            rememberRental(response.body());
+        }
+        if (status >= 200 && status < 300) return LatencyReport.Outcome.OK;
+        if (op == Operation.BOOK && (status == 400 || status == 409)) return LatencyReport.Outcome.CONFLICT;
+        return LatencyReport.Outcome.ERROR;
+    }
+
+    private void rememberRental(String body) {
+        try {
+            openRentals.add(objectMapper.readTree(body).get("id").asLong());
+        } catch (Exception ignored) {
+            // A malformed body is already counted through the status code
+        }
+    }
+
+    private HttpRequest buildRequest(Operation op, SplittableRandom random, Long rentalId) {
+        long vehicleId = 1 + random.nextInt(config.vehicles());
+        long customerId = 1 + random.nextInt(config.customers());
+        return switch (op) {
+            case VEHICLE_BY_ID -> get("/api/vehicles/" + vehicleId, USER_KEY);
+            case VEHICLE_LIST -> get("/api/vehicles", USER_KEY);
+            case CAR_LIST -> get("/api/vehicles/cars", USER_KEY);
+            case RENTAL_BY_ID -> get("/api/rentals/" + (1 + random.nextInt(config.rentals())), ADMIN_KEY);
+            case USER_BY_ID -> get("/api/users/" + customerId, ADMIN_KEY);
+            case USER_HISTORY -> get("/api/rentals/history/users/" + customerId, ADMIN_KEY);
+            case VEHICLE_HISTORY -> get("/api/rentals/history/vehicles/" + vehicleId, ADMIN_KEY);
+            case BOOK -> request("/api/rentals", ADMIN_KEY).header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(
+                            "{\"userId\":" + customerId + ",\"vehicleId\":" + vehicleId + "}"))
+                    .build();
+            case RETURN -> request("/api/rentals/" + rentalId + "/return", ADMIN_KEY)
+                    .method("PATCH", HttpRequest.BodyPublishers.noBody())
+                    .build();
+        };
+    }
+
+    private HttpRequest get(String path, String apiKey) {
+        return request(path, apiKey).GET().build();
+    }
+
+    private HttpRequest.Builder request(String path, String apiKey) {
+        return HttpRequest.newBuilder(baseUri.resolve(path))
+                .timeout(Duration.ofSeconds(30))
+                .header("X-API-KEY", apiKey);
+    }
+}
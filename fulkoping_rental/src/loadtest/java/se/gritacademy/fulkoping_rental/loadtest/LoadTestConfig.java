@@ -0,0 +1,27 @@
+package se.gritacademy.fulkoping_rental.loadtest;
+
+/**
+ * Load test settings, read from system properties (-Dloadtest.*).
+ * The defaults run in a few minutes on a laptop; production-sized runs use e.g.
+ * -Dloadtest.vehicles=100000 -Dloadtest.customers=500000 -Dloadtest.rentals=10000000 with a larger heap.
+ */
+record LoadTestConfig(int vehicles, int customers, int rentals,
+                      int requestsPerSecond, int durationSeconds, int warmupSeconds,
+                      String mix, int clientThreads, boolean virtualThreads) {
+
+    static final String DEFAULT_MIX =
+            "vehicleById=40,vehicleList=1,carList=1,rentalById=15,userById=15,userHistory=10,vehicleHistory=5,book=7,return=6";
+
+    static LoadTestConfig fromSystemProperties() {
+        return new LoadTestConfig(
+                Integer.getInteger("loadtest.vehicles", 10_000),
+                Integer.getInteger("loadtest.customers", 50_000),
+                Integer.getInteger("loadtest.rentals", 1_000_000),
+                Integer.getInteger("loadtest.rate", 500),
+                Integer.getInteger("loadtest.duration", 60),
+                Integer.getInteger("loadtest.warmup", 15),
+                System.getProperty("loadtest.mix", DEFAULT_MIX),
+                Integer.getInteger("loadtest.clientThreads", 16),
+                Boolean.parseBoolean(System.getProperty("loadtest.virtualThreads", "true")));
+    }
+}
@@ -0,0 +1,53 @@
+package se.gritacademy.fulkoping_rental.loadtest;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import se.gritacademy.fulkoping_rental.FulkopingRentalApplication;
+
+import javax.sql.DataSource;
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Starts the application in-process on a random port against an in-memory H2 database in MySQL mode,
+ * seeds it with synthetic data and drives a mixed traffic load against it.
+ * Run with: mvn -Ploadtest -DskipTests verify [-Dloadtest.rate=1000 ...]
+ */
+public final class LoadTestRunner {
+
+    private LoadTestRunner() {}
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.fromSystemProperties();
+        System.out.println("Load test configuration: " + config);
+        try (ConfigurableApplicationContext context = startApplication(config);
+             PinningMonitor pinning = PinningMonitor.start()) {
+            new SyntheticDataGenerator(new JdbcTemplate(context.getBean(DataSource.class)), config).seed();
+            int port = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+            LoadGenerator generator = new LoadGenerator(URI.create("http://localhost:" + port), config);
+            long started = System.nanoTime();
+            LatencyReport report = generator.run();
+            System.out.printf("Finished in %d s%n", TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - started));
+            report.print(System.out, config.durationSeconds());
+            pinning.print(System.out);
+        }
+    }
+
+    private static ConfigurableApplicationContext startApplication(LoadTestConfig config) {
+        // Passed as command line arguments so that they override application.properties
+        return new SpringApplicationBuilder(FulkopingRentalApplication.class).run(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:loadtest;MODE=MySQL;DATABASE_TO_LOWER=TRUE;"
+                        + "NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.datasource.hikari.maximum-pool-size=20",
+                "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "--spring.threads.virtual.enabled=" + config.virtualThreads(),
+                // Both limiters would shed the generated load, and their 429s and 503s count as errors
+                "--app.rate-limit.enabled=false",
+                "--app.concurrency-limit.enabled=false",
+                "--logging.level.se.gritacademy.fulkoping_rental=WARN");
+    }
+}
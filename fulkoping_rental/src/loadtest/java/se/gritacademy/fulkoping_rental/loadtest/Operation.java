@@ -0,0 +1,33 @@
+package se.gritacademy.fulkoping_rental.loadtest;
+
+/**
+ * The request types the load generator can send. Weights come from the mix setting.
+ */
+enum Operation {
+    VEHICLE_BY_ID("vehicleById"),
+    VEHICLE_LIST("vehicleList"),
+    CAR_LIST("carList"),
+    RENTAL_BY_ID("rentalById"),
+    USER_BY_ID("userById"),
+    USER_HISTORY("userHistory"),
+    VEHICLE_HISTORY("vehicleHistory"),
+    BOOK("book"),
+    RETURN("return");
+
+    private final String key;
+
+    Operation(String key) {
+        this.key = key;
+    }
+
+    String key() {
+        return key;
+    }
+
+    static Operation fromKey(String key) {
+        for (Operation op : values()) {
+            if (op.key.equals(key)) return op;
+        }
+        throw new IllegalArgumentException("Unknown operation in mix: " + key);
+    }
+}
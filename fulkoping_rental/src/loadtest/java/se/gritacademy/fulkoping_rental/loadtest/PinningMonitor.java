@@ -0,0 +1,71 @@
+package se.gritacademy.fulkoping_rental.loadtest;
+
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records virtual threads that block while pinned to their carrier thread (jdk.VirtualThreadPinned)
+ * during the load test, grouped by the application or library frames that caused the pinning.
+ */
+final class PinningMonitor implements AutoCloseable {
+
+    private static final Duration THRESHOLD = Duration.ofMillis(1);
+    private static final int FRAMES_PER_SITE = 6;
+
+    private final RecordingStream stream = new RecordingStream();
+    private final Map<String, LongAdder> sites = new ConcurrentHashMap<>();
+
+    private PinningMonitor() {
+        stream.enable("jdk.VirtualThreadPinned").withThreshold(THRESHOLD).withStackTrace();
+        stream.onEvent("jdk.VirtualThreadPinned",
+                event -> sites.computeIfAbsent(site(event.getStackTrace()), key -> new LongAdder()).increment());
+    }
+
+    static PinningMonitor start() {
+        PinningMonitor monitor = new PinningMonitor();
+        monitor.stream.startAsync();
+        return monitor;
+    }
+
+    void print(PrintStream out) {
+        // Flushes events that are still buffered in the recording
+        stream.close();
+        if (sites.isEmpty()) {
+            out.printf("%nNo virtual thread pinning longer than %d ms%n", THRESHOLD.toMillis());
+            return;
+        }
+        out.printf("%nVirtual thread pinning longer than %d ms:%n", THRESHOLD.toMillis());
+        sites.entrySet().stream()
+                .sorted((a, b) -> Long.compare(b.getValue().sum(), a.getValue().sum()))
+                .forEach(entry -> out.printf("%8d x %s%n", entry.getValue().sum(), entry.getKey()));
+    }
+
+    @Override
+    public void close() {
+        stream.close();
+    }
+
+    /**
+     * Helper: Describes the pinning site by its top frames outside the JDK.
+     */
+    private static String site(RecordedStackTrace stackTrace) {
+        if (stackTrace == null) {
+            return "<no stack trace>";
+        }
+        List<String> frames = stackTrace.getFrames().stream()
+                .filter(RecordedFrame::isJavaFrame)
+                .map(frame -> frame.getMethod().getType().getName() + "." + frame.getMethod().getName())
+                .filter(name -> !name.startsWith("java.") && !name.startsWith("jdk.") && !name.startsWith("sun."))
+                .limit(FRAMES_PER_SITE)
+                .toList();
+        return frames.isEmpty() ? "<JDK only>" : String.join(" <- ", frames);
+    }
+}
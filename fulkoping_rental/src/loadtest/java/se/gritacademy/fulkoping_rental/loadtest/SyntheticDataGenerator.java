@@ -0,0 +1,75 @@
+package se.gritacademy.fulkoping_rental.loadtest;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Seeds the embedded database with a synthetic dataset.
+ * Rows are generated inside H2 with INSERT ... SELECT over SYSTEM_RANGE, so millions of rows
+ * are loaded without a JDBC round trip per row. All seeded rentals are finished and all
+ * vehicles are free, so booking traffic starts from a consistent state.
+ */
+class SyntheticDataGenerator {
+
+    private static final String[] BRANDS = {"Volvo", "Saab", "Scania", "Toyota", "Volkswagen", "Ford"};
+
+    private final JdbcTemplate jdbc;
+    private final LoadTestConfig config;
+
+    SyntheticDataGenerator(JdbcTemplate jdbc, LoadTestConfig config) {
+        this.jdbc = jdbc;
+        this.config = config;
+    }
+
+    /**
+     * Inserts vehicles (cars, trucks and trailers in turn), customers with one admin after them,
+     * and finished rentals spread evenly over customers and vehicles.
+     */
+    void seed() {
+        long started = System.currentTimeMillis();
+        seedVehicles(config.vehicles());
+        seedUsers(config.customers());
+        seedRentals(config.rentals(), config.customers(), config.vehicles());
+        restartIdentity("vehicle", config.vehicles() + 1L);
+        restartIdentity("user", config.customers() + 2L);
+        restartIdentity("rental", config.rentals() + 1L);
+        System.out.printf("Seeded %d vehicles, %d customers and %d rentals in %d ms%n",
+                config.vehicles(), config.customers(), config.rentals(), System.currentTimeMillis() - started);
+    }
+
+    private void seedVehicles(int count) {
+        jdbc.update("""
+                insert into vehicle (id, registration_number, brand, model, is_rented)
+                select x, 'REG' || x, casewhen(mod(x, 2) = 0, ?, ?), 'Model ' || mod(x, 20), false
+                from system_range(1, ?) r(x)""", BRANDS[0], BRANDS[3], count);
+        jdbc.update("insert into car (id, seat_count) select x, 2 + mod(x, 7) from system_range(1, ?) r(x) where mod(x, 3) = 0", count);
+        jdbc.update("insert into truck (id, driving_license_level) select x, 'C' from system_range(1, ?) r(x) where mod(x, 3) = 1", count);
+        jdbc.update("insert into trailer (id, max_weight) select x, 100 + mod(x, 650) from system_range(1, ?) r(x) where mod(x, 3) = 2", count);
+    }
+
+    private void seedUsers(int customers) {
+        jdbc.update("""
+                insert into "user" (id, first_name, last_name, email)
+                select x, 'First' || mod(x, 1000), 'Last' || mod(x, 997), 'customer' || x || '@example.com'
+                from system_range(1, ?) r(x)""", customers);
+        jdbc.update("""
+                insert into customer (id, phone_number)
+                select x, '+46' || (700000000 + x) from system_range(1, ?) r(x)""", customers);
+        long adminId = customers + 1L;
+        jdbc.update("insert into \"user\" (id, first_name, last_name, email) values (?, 'Load', 'Admin', 'admin@example.com')", adminId);
+        jdbc.update("insert into admin (id, employee_number) values (?, 'LOADAD1')", adminId);
+    }
+
+    private void seedRentals(int rentals, int customers, int vehicles) {
+        jdbc.update("""
+                insert into rental (id, user_id, vehicle_id, vehicle_registration_number, vehicle_type,
+                                    start_date_time, end_date_time)
+                select x, 1 + mod(x * 7919, ?), 1 + mod(x, ?), 'REG' || (1 + mod(x, ?)),
+                       casewhen(mod(1 + mod(x, ?), 3) = 0, 'Car', casewhen(mod(1 + mod(x, ?), 3) = 1, 'Truck', 'Trailer')),
+                       dateadd('MINUTE', -x - 180, current_timestamp), dateadd('MINUTE', -x, current_timestamp)
+                from system_range(1, ?) r(x)""", customers, vehicles, vehicles, vehicles, vehicles, rentals);
+    }
+
+    private void restartIdentity(String table, long next) {
+        jdbc.execute("alter table \"" + table + "\" alter column id restart with " + next);
+    }
+}
@@ -0,0 +1,236 @@
+package se.gritacademy.fulkoping_rental.cache;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Read side of the cluster-wide cache coherence: polls the entity_change table on the primary
+ * by sequence number and evicts the changed entities from the local caches.
+ * Afterwards the changes are passed on to every EntityChangeListener (like the vehicle availability stream).
+ * <p>
+ * A change becomes visible here at most one poll interval (plus the poll itself) after its commit.
+ * The delay from recording a change to evicting it is recorded as app.cache.coherence.delay
+ * (based on the writing instance's clock, so clock skew between instances is included).
+ * If polling fails for longer than max-staleness-ms, the caches stop serving entries and are cleared
+ * once polling recovers, so no instance serves an entry that is staler than that.
+ * <p>
+ * Sequence numbers are assigned at insert but become visible at commit, so a transaction that commits
+ * after a later one leaves a temporary gap. Gaps are re-read on every poll until they are filled
+ * or older than gap-timeout-ms (rolled back transactions never fill theirs), which must therefore be
+ * longer than the longest write transaction.
+ */
+@Component
+public class CacheCoherencePoller {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheCoherencePoller.class);
+
+    private static final String SELECT_AFTER =
+            "select seq, entity_type, entity_id, change_type, changed_at from entity_change where seq > ? order by seq limit ?";
+    private static final String SELECT_SEQS =
+            "select seq, entity_type, entity_id, change_type, changed_at from entity_change where seq in (%s)";
+    private static final RowMapper<EntityChange> CHANGE_MAPPER = (rs, i) -> new EntityChange(rs.getLong(1),
+            EntityType.valueOf(rs.getString(2)), rs.getLong(3), ChangeType.valueOf(rs.getString(4)), rs.getLong(5));
+    // A cache load that takes longer than this after an eviction may store the evicted value
+    private static final long EVICTION_MEMORY_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    private static final int MAX_GAPS = 1000;
+
+    private final JdbcTemplate primary;
+    private final List<CoherentCache<?>> caches;
+    private final List<EntityChangeListener> listeners;
+    private final int batchSize;
+    private final long maxStalenessMillis;
+    private final long gapTimeoutMillis;
+    private final long retentionMillis;
+    private final Map<EntityType, Counter> changesApplied = new EnumMap<>(EntityType.class);
+    private final Counter gapsFilled;
+    private final Counter gapsExpired;
+    private final Timer delay;
+    private final AtomicLong lastPollAt = new AtomicLong();
+    // seq -> time the gap was first seen; only touched by the polling thread
+    private final TreeMap<Long, Long> gaps = new TreeMap<>();
+    private long lastSeq = -1;
+    private long lastCleanupAt;
+
+    public CacheCoherencePoller(HikariDataSource primaryDataSource,
+                                List<CoherentCache<?>> caches,
+                                List<EntityChangeListener> listeners,
+                                MeterRegistry meterRegistry,
+                                @Value("${app.cache.coherence.batch-size:500}") int batchSize,
+                                @Value("${app.cache.coherence.max-staleness-ms:5000}") long maxStalenessMillis,
+                                @Value("${app.cache.coherence.gap-timeout-ms:30000}") long gapTimeoutMillis,
+                                @Value("${app.cache.coherence.retention-hours:24}") long retentionHours) {
+        this.primary = new JdbcTemplate(primaryDataSource);
+        this.caches = caches;
+        this.listeners = listeners;
+        this.batchSize = batchSize;
+        this.maxStalenessMillis = maxStalenessMillis;
+        this.gapTimeoutMillis = gapTimeoutMillis;
+        this.retentionMillis = TimeUnit.HOURS.toMillis(retentionHours);
+        for (EntityType type : EntityType.values()) {
+            changesApplied.put(type, meterRegistry.counter("app.cache.coherence.changes", "entity", type.name().toLowerCase()));
+        }
+        this.gapsFilled = meterRegistry.counter("app.cache.coherence.gaps", "outcome", "filled");
+        this.gapsExpired = meterRegistry.counter("app.cache.coherence.gaps", "outcome", "expired");
+        this.delay = Timer.builder("app.cache.coherence.delay")
+                .description("Time from recording an entity change to evicting it from the local caches")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        meterRegistry.gauge("app.cache.coherence.poll.age", lastPollAt,
+                at -> at.get() == 0 ? Double.NaN : System.currentTimeMillis() - at.get());
+    }
+
+    /**
+     * Reads all changes after the last seen sequence number (and any open gaps) and evicts them.
+     * The first poll starts one gap timeout back, so that transactions still running at startup
+     * are picked up like any other gap.
+     */
+    @Scheduled(fixedDelayString = "${app.cache.coherence.poll-interval-ms:200}")
+    public synchronized void poll() {
+        boolean first = lastSeq < 0;
+        List<EntityChange> changes = new ArrayList<>();
+        try {
+            if (first) {
+                lastSeq = primary.queryForObject("select coalesce(max(seq), 0) from entity_change where changed_at < ?",
+                        Long.class, System.currentTimeMillis() - gapTimeoutMillis);
+            }
+            pollGaps(changes);
+            pollNewChanges(changes, !first);
+        } catch (DataAccessException e) {
+            logger.warn("Could not poll entity changes: {}", e.getMessage());
+            return;
+        }
+        long now = System.currentTimeMillis();
+        boolean outage = lastPollAt.get() != 0 && now - lastPollAt.get() > maxStalenessMillis;
+        for (CoherentCache<?> cache : caches) {
+            if (outage) cache.clear();
+            cache.forgetEvictionsBefore(now - EVICTION_MEMORY_MILLIS);
+            cache.markValidUntil(now + maxStalenessMillis);
+        }
+        if (outage) {
+            logger.warn("Entity change polling recovered after {} ms, cleared local caches", now - lastPollAt.get());
+        }
+        lastPollAt.set(now);
+        notifyListeners(changes);
+        cleanupIfDue(now);
+    }
+
+    /**
+     * Returns the sequence number up to which every committed change has been read (-1 before the first poll).
+     * Readers of the change log must not go past it, or a change that commits late with a lower
+     * sequence number would be skipped.
+     */
+    public synchronized long getWatermark() {
+        if (lastSeq < 0) return -1;
+        return gaps.isEmpty() ? lastSeq : gaps.firstKey() - 1;
+    }
+
+    /**
+     * Helper: Passes the changes of this poll and the current watermark to every listener.
+     * A failing listener is logged and does not affect the others or the next poll.
+     */
+    private void notifyListeners(List<EntityChange> changes) {
+        long watermark = getWatermark();
+        for (EntityChangeListener listener : listeners) {
+            try {
+                listener.onChanges(changes, watermark);
+            } catch (RuntimeException e) {
+                logger.warn("Entity change listener {} failed: {}", listener.getClass().getSimpleName(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Helper: Reads new changes in batches, opening a gap for every skipped sequence number.
+     * The delay is not recorded while catching up at startup.
+     */
+    private void pollNewChanges(List<EntityChange> changes, boolean recordDelay) {
+        List<EntityChange> batch;
+        do {
+            batch = primary.query(SELECT_AFTER, CHANGE_MAPPER, lastSeq, batchSize);
+            long now = System.currentTimeMillis();
+            for (EntityChange change : batch) {
+                for (long missing = lastSeq + 1; missing < change.seq() && gaps.size() < MAX_GAPS; missing++) {
+                    gaps.put(missing, now);
+                }
+                apply(change, now, recordDelay);
+                changes.add(change);
+                lastSeq = change.seq();
+            }
+        } while (batch.size() == batchSize);
+    }
+
+    /**
+     * Helper: Re-reads the open gaps, applies the ones that were committed meanwhile
+     * and gives up on gaps older than the gap timeout.
+     */
+    private void pollGaps(List<EntityChange> changes) {
+        if (gaps.isEmpty()) return;
+        String placeholders = String.join(",", Collections.nCopies(gaps.size(), "?"));
+        List<EntityChange> filled = primary.query(SELECT_SEQS.formatted(placeholders), CHANGE_MAPPER, gaps.keySet().toArray());
+        long now = System.currentTimeMillis();
+        for (EntityChange change : filled) {
+            apply(change, now, true);
+            changes.add(change);
+            gaps.remove(change.seq());
+            gapsFilled.increment();
+        }
+        for (Iterator<Long> it = gaps.values().iterator(); it.hasNext(); ) {
+            if (now - it.next() > gapTimeoutMillis) {
+                it.remove();
+                gapsExpired.increment();
+            }
+        }
+    }
+
+    /**
+     * Helper: Evicts the changed entity from every cache of its type and records the delay.
+     */
+    private void apply(EntityChange change, long now, boolean recordDelay) {
+        EntityType type = change.entityType();
+        for (CoherentCache<?> cache : caches) {
+            if (cache.getType() == type) cache.evict(change.entityId());
+        }
+        changesApplied.get(type).increment();
+        if (recordDelay) delay.record(Duration.ofMillis(Math.max(0, now - change.changedAt())));
+    }
+
+    /**
+     * Helper: Deletes changes older than the retention, at most once a minute.
+     * The newest change is always kept, so readers can tell how far back the log is complete.
+     * Every instance runs it; the delete is idempotent.
+     */
+    private void cleanupIfDue(long now) {
+        if (now - lastCleanupAt < TimeUnit.MINUTES.toMillis(1)) return;
+        lastCleanupAt = now;
+        try {
+            int deleted = primary.update("delete from entity_change where changed_at < ? and seq < ?",
+                    now - retentionMillis, lastSeq);
+            if (deleted > 0) {
+                logger.info("Deleted {} entity changes older than the retention", deleted);
+            }
+        } catch (DataAccessException e) {
+            logger.warn("Could not delete old entity changes: {}", e.getMessage());
+        }
+    }
+}
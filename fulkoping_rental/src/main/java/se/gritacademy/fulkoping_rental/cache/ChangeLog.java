@@ -0,0 +1,124 @@
+package se.gritacademy.fulkoping_rental.cache;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Write side of the cluster-wide cache coherence: services record every change of a vehicle,
+ * user or rental in the entity_change table, in the same transaction as the change itself,
+ * so a change record exists exactly when the change was committed.
+ * The local caches are evicted right after the commit; other instances evict theirs
+ * when CacheCoherencePoller reads the record.
+ */
+@Component
+public class ChangeLog {
+
+    static final String INSERT_CHANGE =
+            "insert into entity_change (entity_type, entity_id, change_type, changed_at) values (?, ?, ?, ?)";
+    static final String SELECT_CHANGED_IDS =
+            "select distinct entity_id from entity_change where entity_type = ? and seq > ?";
+    static final String SELECT_PAGE =
+            "select seq, entity_id from entity_change where entity_type = ? and seq > ? and seq <= ? order by seq limit ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final List<CoherentCache<?>> caches;
+
+    public ChangeLog(DataSource dataSource, List<CoherentCache<?>> caches) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.caches = caches;
+    }
+
+    /**
+     * Records that an entity was created or updated.
+     */
+    public void recordUpsert(EntityType type, Long id) {
+        record(type, List.of(id), ChangeType.UPSERT);
+    }
+
+    /**
+     * Records that an entity was deleted.
+     */
+    public void recordDelete(EntityType type, Long id) {
+        record(type, List.of(id), ChangeType.DELETE);
+    }
+
+    /**
+     * Records that several entities were deleted, with one batched insert.
+     */
+    public void recordDeletes(EntityType type, Collection<Long> ids) {
+        record(type, ids, ChangeType.DELETE);
+    }
+
+    /**
+     * Returns the ids of the entities of the given type that changed after the given sequence number,
+     * or empty if changes after it may already have been deleted by the retention cleanup
+     * (which always keeps the newest change, so an empty table means nothing was ever recorded).
+     * Reads the primary, outside of any transaction.
+     */
+    public Optional<Set<Long>> changedSince(EntityType type, long seq) {
+        if (!isCompleteSince(seq)) return Optional.empty();
+        return Optional.of(new HashSet<>(jdbcTemplate.queryForList(SELECT_CHANGED_IDS, Long.class, type.name(), seq)));
+    }
+
+    /**
+     * Reads up to limit changes of the given type after since and up to upTo (inclusive).
+     * The page continues at the last change read, or at upTo once everything up to it was read.
+     * Returns empty if changes after since may already have been deleted (see changedSince).
+     */
+    public Optional<ChangePage> readPage(EntityType type, long since, long upTo, int limit) {
+        if (!isCompleteSince(since)) return Optional.empty();
+        Set<Long> ids = new LinkedHashSet<>();
+        long[] last = {since};
+        int[] rows = {0};
+        jdbcTemplate.query(SELECT_PAGE, rs -> {
+            if (rows[0]++ < limit) {
+                last[0] = rs.getLong(1);
+                ids.add(rs.getLong(2));
+            }
+        }, type.name(), since, upTo, limit + 1);
+        boolean hasMore = rows[0] > limit;
+        return Optional.of(new ChangePage(ids, hasMore ? last[0] : Math.max(since, upTo), hasMore));
+    }
+
+    /**
+     * Helper: True if no change after the given sequence number was deleted by the retention cleanup.
+     */
+    private boolean isCompleteSince(long seq) {
+        Long oldest = jdbcTemplate.queryForObject("select min(seq) from entity_change", Long.class);
+        return oldest == null || oldest <= seq + 1;
+    }
+
+    /**
+     * Helper: Inserts the change records on the transaction's connection and evicts the local caches after commit.
+     * Throws IllegalStateException outside a transaction, where the record could be committed without the change.
+     */
+    private void record(EntityType type, Collection<Long> ids, ChangeType changeType) {
+        if (ids.isEmpty()) return;
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Entity changes must be recorded inside the changing transaction");
+        }
+        long now = System.currentTimeMillis();
+        jdbcTemplate.batchUpdate(INSERT_CHANGE, ids.stream()
+                .map(id -> new Object[]{type.name(), id, changeType.name(), now})
+                .toList());
+        List<Long> evicted = List.copyOf(ids);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                for (CoherentCache<?> cache : caches) {
+                    if (cache.getType() == type) evicted.forEach(cache::evict);
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,8 @@
+package se.gritacademy.fulkoping_rental.cache;
+
+import java.util.Set;
+
+/**
+ * Ids of the entities changed within one page of the change log, and the sequence number to continue from.
+ */
+public record ChangePage(Set<Long> changedIds, long next, boolean hasMore) {}
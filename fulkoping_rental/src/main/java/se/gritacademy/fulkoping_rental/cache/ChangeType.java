@@ -0,0 +1,9 @@
+package se.gritacademy.fulkoping_rental.cache;
+
+/**
+ * Kind of change recorded in the entity_change table. Creates and updates are both UPSERT.
+ */
+public enum ChangeType {
+    UPSERT,
+    DELETE
+}
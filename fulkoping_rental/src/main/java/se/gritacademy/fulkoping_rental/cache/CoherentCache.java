@@ -0,0 +1,192 @@
+package se.gritacademy.fulkoping_rental.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Local cache of DTOs by id plus the list of all of them, kept coherent across instances
+ * by evicting entries for every change read from the entity_change table.
+ * <p>
+ * Staleness is bounded: entries are only served while CacheCoherencePoller has completed a poll
+ * within the last max-staleness-ms; otherwise every read goes to the database until polling recovers.
+ * A value loaded before or during an eviction of its id (or within the replica cool-down before it,
+ * when it may have been read from a lagging replica) is served but not stored.
+ * All times are epoch milliseconds.
+ */
+public class CoherentCache<V> {
+
+    private final EntityType type;
+    private final boolean enabled;
+    private final int maxEntries;
+    private final long coolDownMillis;
+    private final Map<Long, V> entries = new ConcurrentHashMap<>();
+    private final Map<Long, Long> evictedAt = new ConcurrentHashMap<>();
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter bypasses;
+    private volatile List<V> all;
+    private volatile long anyEvictedAt;
+    private volatile long clearedAt;
+    private volatile long validUntil;
+
+    public CoherentCache(EntityType type, boolean enabled, int maxEntries, long coolDownMillis, MeterRegistry meterRegistry) {
+        this.type = type;
+        this.enabled = enabled;
+        this.maxEntries = maxEntries;
+        this.coolDownMillis = coolDownMillis;
+        String name = type.name().toLowerCase();
+        this.hits = meterRegistry.counter("app.cache.requests", "cache", name, "result", "hit");
+        this.misses = meterRegistry.counter("app.cache.requests", "cache", name, "result", "miss");
+        this.bypasses = meterRegistry.counter("app.cache.requests", "cache", name, "result", "bypass");
+        meterRegistry.gauge("app.cache.size", Tags.of("cache", name), entries, Map::size);
+    }
+
+    public EntityType getType() {
+        return type;
+    }
+
+    /**
+     * Returns the cached value for the id, or loads and caches it.
+     * Exceptions of the loader (like 404) are passed on and nothing is cached.
+     */
+    public V get(Long id, Supplier<V> loader) {
+        long start = System.currentTimeMillis();
+        if (!isValid(start)) {
+            bypasses.increment();
+            return loader.get();
+        }
+        V cached = entries.get(id);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+        V loaded = loader.get();
+        if (canStoreEntry(id, start)) {
+            if (entries.size() >= maxEntries) {
+                entries.clear();
+            }
+            entries.put(id, loaded);
+            // evict() marks before it removes, so either it removes this value or the check below sees the mark
+            if (!canStoreEntry(id, start)) {
+                entries.remove(id, loaded);
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Returns the cached list of all values, or loads and caches it.
+     * Any eviction of this entity type drops the list.
+     */
+    public List<V> getAll(Supplier<List<V>> loader) {
+        long start = System.currentTimeMillis();
+        if (!isValid(start)) {
+            bypasses.increment();
+            return loader.get();
+        }
+        List<V> cached = all;
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+        List<V> loaded = List.copyOf(loader.get());
+        if (canStoreList(start)) {
+            all = loaded;
+            if (!canStoreList(start)) {
+                all = null;
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Returns the cached value for the id without loading it, for readers that have a cheaper way
+     * to load what they need than the full value.
+     */
+    public Optional<V> peek(Long id) {
+        return count(isValid(System.currentTimeMillis()) ? entries.get(id) : null);
+    }
+
+    /**
+     * Returns the cached list of all values without loading it, like peek.
+     */
+    public Optional<List<V>> peekAll() {
+        return count(isValid(System.currentTimeMillis()) ? all : null);
+    }
+
+    /**
+     * Removes the id and the list of all values.
+     */
+    public void evict(Long id) {
+        long now = System.currentTimeMillis();
+        evictedAt.put(id, now);
+        anyEvictedAt = now;
+        entries.remove(id);
+        all = null;
+    }
+
+    /**
+     * Removes everything, like after a polling outage when changes may have been missed.
+     */
+    public void clear() {
+        long now = System.currentTimeMillis();
+        clearedAt = now;
+        anyEvictedAt = now;
+        entries.clear();
+        all = null;
+    }
+
+    /**
+     * Called after every successful poll: entries may be served until the given time.
+     */
+    void markValidUntil(long until) {
+        validUntil = until;
+    }
+
+    boolean isValid(long now) {
+        return enabled && now <= validUntil;
+    }
+
+    /**
+     * Forgets eviction times that can no longer affect a load started after the given time.
+     */
+    void forgetEvictionsBefore(long loadStartedAfter) {
+        long limit = loadStartedAfter - coolDownMillis;
+        evictedAt.values().removeIf(at -> at < limit);
+    }
+
+    /**
+     * Helper: Counts a peek as hit or miss (a peek never stores, so there is no bypass).
+     */
+    private <T> Optional<T> count(T cached) {
+        (cached != null ? hits : misses).increment();
+        return Optional.ofNullable(cached);
+    }
+
+    /**
+     * Helper: A value loaded at start may be stored if its id was not evicted (and the cache not cleared)
+     * since the replica cool-down before the load started.
+     */
+    private boolean canStoreEntry(Long id, long start) {
+        long safeBefore = start - coolDownMillis;
+        Long idEvictedAt = evictedAt.get(id);
+        return (idEvictedAt == null || idEvictedAt < safeBefore) && clearedAt < safeBefore;
+    }
+
+    /**
+     * Helper: The list of all values may be stored if nothing of this type was evicted
+     * since the replica cool-down before the load started.
+     */
+    private boolean canStoreList(long start) {
+        return anyEvictedAt < start - coolDownMillis;
+    }
+}
@@ -0,0 +1,6 @@
+package se.gritacademy.fulkoping_rental.cache;
+
+/**
+ * One row of the entity_change table. changedAt is the writing instance's clock in epoch milliseconds.
+ */
+public record EntityChange(long seq, EntityType entityType, long entityId, ChangeType changeType, long changedAt) {}
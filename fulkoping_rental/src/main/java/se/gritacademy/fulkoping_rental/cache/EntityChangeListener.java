@@ -0,0 +1,16 @@
+package se.gritacademy.fulkoping_rental.cache;
+
+import java.util.List;
+
+/**
+ * Notified by CacheCoherencePoller after every successful poll, on the polling thread,
+ * with the changes read by that poll (possibly none) after they were evicted from the local caches.
+ */
+public interface EntityChangeListener {
+
+    /**
+     * The watermark is the sequence number up to which every committed change has been delivered;
+     * changes filling a gap may arrive later with a lower sequence number than earlier ones.
+     */
+    void onChanges(List<EntityChange> changes, long watermark);
+}
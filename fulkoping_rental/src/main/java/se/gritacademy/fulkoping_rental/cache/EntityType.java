@@ -0,0 +1,10 @@
+package se.gritacademy.fulkoping_rental.cache;
+
+/**
+ * Entity types recorded in the entity_change table.
+ */
+public enum EntityType {
+    VEHICLE,
+    USER,
+    RENTAL
+}
@@ -0,0 +1,45 @@
+package se.gritacademy.fulkoping_rental.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+@EnableScheduling
+public class AsyncConfig {
+
+    /**
+     * Executor for background user purge jobs.
+     * A single worker processes jobs one at a time so purges never compete with each other
+     * for database connections; a small queue holds jobs waiting to run.
+     * The worker is a virtual thread when virtual threads are enabled, so it does not hold
+     * a platform thread while blocked on JDBC or pacing between chunks.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor purgeExecutor(@Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(10);
+        executor.setThreadNamePrefix("user-purge-");
+        executor.setVirtualThreads(virtualThreads);
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Executor that writes queued events to vehicle availability stream subscribers.
+     * A task only runs while a subscriber has events to send, so idle connections hold no thread;
+     * with virtual threads a slow client only blocks its own (virtual) writer.
+     */
+    @Bean
+    public SimpleAsyncTaskExecutor streamExecutor(@Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("vehicle-stream-");
+        executor.setVirtualThreads(virtualThreads);
+        return executor;
+    }
+}
@@ -0,0 +1,48 @@
+package se.gritacademy.fulkoping_rental.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import se.gritacademy.fulkoping_rental.cache.CoherentCache;
+import se.gritacademy.fulkoping_rental.cache.EntityType;
+import se.gritacademy.fulkoping_rental.datasource.ReplicaRoutingDataSource;
+import se.gritacademy.fulkoping_rental.dto.user.UserDTO;
+import se.gritacademy.fulkoping_rental.dto.vehicle.VehicleDTO;
+
+@Configuration
+public class CacheConfig {
+
+    private final boolean enabled;
+    private final int maxEntries;
+    private final long coolDownMillis;
+
+    /**
+     * With read replicas, a value loaded shortly after an eviction may come from a replica that has not
+     * replicated the change yet, so such values are not stored for up to the replica max lag.
+     */
+    public CacheConfig(ReplicaRoutingDataSource replicaDataSource,
+                       @Value("${app.cache.enabled:true}") boolean enabled,
+                       @Value("${app.cache.max-entries:10000}") int maxEntries,
+                       @Value("${app.datasource.replica.max-lag-ms:2000}") long replicaMaxLagMillis) {
+        this.enabled = enabled;
+        this.maxEntries = maxEntries;
+        this.coolDownMillis = replicaDataSource.hasReplicas() ? replicaMaxLagMillis : 0;
+    }
+
+    /**
+     * Vehicle DTOs by id and the list of all vehicles, evicted by vehicle changes.
+     */
+    @Bean
+    public CoherentCache<VehicleDTO> vehicleCache(MeterRegistry meterRegistry) {
+        return new CoherentCache<>(EntityType.VEHICLE, enabled, maxEntries, coolDownMillis, meterRegistry);
+    }
+
+    /**
+     * User DTOs by id and the list of all users, evicted by user changes.
+     */
+    @Bean
+    public CoherentCache<UserDTO> userCache(MeterRegistry meterRegistry) {
+        return new CoherentCache<>(EntityType.USER, enabled, maxEntries, coolDownMillis, meterRegistry);
+    }
+}
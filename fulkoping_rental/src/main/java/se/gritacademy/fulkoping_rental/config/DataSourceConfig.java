@@ -0,0 +1,80 @@
+package se.gritacademy.fulkoping_rental.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import se.gritacademy.fulkoping_rental.datasource.ReplicaRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+@Configuration
+public class DataSourceConfig {
+
+    /**
+     * Connection pool for the primary database, configured through spring.datasource.*.
+     */
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    /**
+     * Routes read-only work to the replicas listed in app.datasource.replica.urls.
+     * Replicas use the primary's credentials unless their own are configured.
+     * With no replicas configured every read goes to the primary.
+     */
+    @Bean
+    public ReplicaRoutingDataSource replicaDataSource(HikariDataSource primaryDataSource,
+                                                      DataSourceProperties properties,
+                                                      MeterRegistry meterRegistry,
+                                                      @Value("${app.datasource.replica.urls:}") List<String> urls,
+                                                      @Value("${app.datasource.replica.username:}") String username,
+                                                      @Value("${app.datasource.replica.password:}") String password,
+                                                      @Value("${app.datasource.replica.maximum-pool-size:10}") int poolSize,
+                                                      @Value("${app.datasource.replica.max-lag-ms:2000}") long maxLagMillis) {
+        List<ReplicaRoutingDataSource.Replica> replicas = new ArrayList<>();
+        for (String url : urls) {
+            if (url.isBlank()) continue;
+            String name = "replica-" + (replicas.size() + 1);
+            HikariDataSource pool = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .url(url.trim())
+                    .username(username.isEmpty() ? properties.determineUsername() : username)
+                    .password(username.isEmpty() ? properties.determinePassword() : password)
+                    .build();
+            pool.setPoolName(name);
+            pool.setMaximumPoolSize(poolSize);
+            pool.setReadOnly(true);
+            replicas.add(new ReplicaRoutingDataSource.Replica(name, pool));
+        }
+        return new ReplicaRoutingDataSource(primaryDataSource, replicas, maxLagMillis, meterRegistry);
+    }
+
+    /**
+     * The DataSource used by JPA. Connections are only fetched when the first statement runs,
+     * so the transaction's read-only flag is known by then: @Transactional(readOnly = true) work
+     * is served by the replicas and everything else by the primary.
+     * It also avoids taking a connection for transactions that never reach the database.
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, ReplicaRoutingDataSource replicaDataSource) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primaryDataSource);
+        if (replicaDataSource.hasReplicas()) {
+            dataSource.setReadOnlyDataSource(replicaDataSource);
+        }
+        return dataSource;
+    }
+}
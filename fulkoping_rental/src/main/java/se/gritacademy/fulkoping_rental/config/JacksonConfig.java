@@ -0,0 +1,57 @@
+package se.gritacademy.fulkoping_rental.config;
+
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import se.gritacademy.fulkoping_rental.json.CachingOffsetDateTimeSerializer;
+
+import java.time.OffsetDateTime;
+
+@Configuration
+public class JacksonConfig {
+
+    /**
+     * Replaces reflective getter calls and constructor calls in Jackson with generated lambdas.
+     * Picked up by Spring Boot's ObjectMapper like any other Module bean.
+     */
+    @Bean
+    public Module blackbirdModule() {
+        return new BlackbirdModule();
+    }
+
+    /**
+     * Serializes OffsetDateTime with cached date formatting, producing the same text as the default serializer.
+     */
+    @Bean
+    public Module offsetDateTimeModule() {
+        SimpleModule module = new SimpleModule("CachingOffsetDateTime");
+        module.addSerializer(OffsetDateTime.class, new CachingOffsetDateTimeSerializer());
+        return module;
+    }
+
+    /**
+     * Reads and writes CBOR (application/cbor) for clients that ask for it in Accept or send it as Content-Type.
+     * Built from Spring Boot's builder, so it has the same modules and settings as the JSON ObjectMapper;
+     * replaces the default CBOR converter, which would not. JSON stays the default for other clients.
+     */
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    /**
+     * Reads and writes Smile (application/x-jackson-smile) like CBOR above.
+     * Smile refers back to repeated field names, so large lists are smaller than in CBOR.
+     */
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+}
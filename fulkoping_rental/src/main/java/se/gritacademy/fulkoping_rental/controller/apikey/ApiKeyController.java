@@ -0,0 +1,90 @@
+package se.gritacademy.fulkoping_rental.controller.apikey;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import jakarta.validation.Valid;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import se.gritacademy.fulkoping_rental.dto.apikey.ApiKeyDTO;
+import se.gritacademy.fulkoping_rental.dto.apikey.CreateApiKeyDTO;
+import se.gritacademy.fulkoping_rental.mapper.ApiKeyMapper;
+import se.gritacademy.fulkoping_rental.security.ApiKeyService;
+import se.gritacademy.fulkoping_rental.security.ApiKeyService.IssuedApiKey;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/api-keys")
+@SecurityRequirement(name = "AdminKey")
+public class ApiKeyController {
+
+    private final ApiKeyService apiKeyService;
+
+    public ApiKeyController(ApiKeyService apiKeyService) {
+        this.apiKeyService = apiKeyService;
+    }
+
+    /**
+     * (ADMIN) Fetches all stored API keys, maps them to DTOs,
+     * and returns the list. Plain keys are never included.
+     */
+    @Operation(
+            summary = "Get all API keys",
+            description = "Returns all stored API keys without their secret. Requires AdminKey.",
+            tags = {"API keys"}
+    )
+    @GetMapping
+    public List<ApiKeyDTO> getAllKeys() {
+        return apiKeyService.getAllKeys().stream()
+                .map(ApiKeyMapper::toDTO)
+                .toList();
+    }
+
+    /**
+     * (ADMIN) Automatically validates the incoming DTO via @Valid,
+     * creates a new API key, and returns it with the plain key and 201 status.
+     * The plain key is only returned here.
+     */
+    @Operation(
+            summary = "Create API key",
+            description = "Creates a new API key for an integration. The key is only shown once. Requires AdminKey.",
+            tags = {"API keys"}
+    )
+    @PostMapping
+    public ResponseEntity<ApiKeyDTO> createKey(@Valid @RequestBody CreateApiKeyDTO dto) {
+        IssuedApiKey issued = apiKeyService.createKey(
+                dto.getName(), dto.getRole(), dto.getReadLimitPerSecond(), dto.getWriteLimitPerSecond());
+        return ResponseEntity.status(HttpStatus.CREATED).body(ApiKeyMapper.toDTO(issued.apiKey(), issued.plainKey()));
+    }
+
+    /**
+     * (ADMIN) Revokes the API key by ID and issues a replacement with the same name and role,
+     * and returns the new key with the plain key.
+     */
+    @Operation(
+            summary = "Rotate API key",
+            description = "Revokes an API key and issues a new one with the same name and role. Requires AdminKey.",
+            tags = {"API keys"}
+    )
+    @PostMapping("/{id}/rotate")
+    public ResponseEntity<ApiKeyDTO> rotateKey(@PathVariable Long id) {
+        IssuedApiKey issued = apiKeyService.rotateKey(id);
+        return ResponseEntity.status(HttpStatus.CREATED).body(ApiKeyMapper.toDTO(issued.apiKey(), issued.plainKey()));
+    }
+
+    /**
+     * (ADMIN) Revokes the API key by ID,
+     * and returns 204 No Content on success.
+     */
+    @Operation(
+            summary = "Revoke API key",
+            description = "Revokes an API key by its ID. Requires AdminKey.",
+            tags = {"API keys"}
+    )
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> revokeKey(@PathVariable Long id) {
+        apiKeyService.revokeKey(id);
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -1,18 +1,32 @@
 package se.gritacademy.fulkoping_rental.controller.rental;
 
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import jakarta.validation.Valid;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.server.ResponseStatusException;
+import se.gritacademy.fulkoping_rental.dto.batch.BatchDTO;
 import se.gritacademy.fulkoping_rental.dto.rental.CreateRentalDTO;
+import se.gritacademy.fulkoping_rental.dto.rental.DurationStatsRebuildDTO;
 import se.gritacademy.fulkoping_rental.dto.rental.RentalDTO;
+import se.gritacademy.fulkoping_rental.dto.rental.RentalDurationStatsDTO;
+import se.gritacademy.fulkoping_rental.exception.ValidationException;
+import se.gritacademy.fulkoping_rental.mapper.RentalDurationStatsMapper;
 import se.gritacademy.fulkoping_rental.mapper.RentalMapper;
 import se.gritacademy.fulkoping_rental.model.rental.Rental;
+import se.gritacademy.fulkoping_rental.service.batch.BatchLookupService;
+import se.gritacademy.fulkoping_rental.service.batch.BatchResult;
+import se.gritacademy.fulkoping_rental.service.fields.SparseFieldService;
+import se.gritacademy.fulkoping_rental.service.fields.SparseResource;
+import se.gritacademy.fulkoping_rental.service.rental.RentalDurationStats;
 import se.gritacademy.fulkoping_rental.service.rental.RentalService;
 
+import java.time.YearMonth;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -23,39 +37,77 @@ import java.util.stream.Collectors;
 public class RentalController {
 
     private final RentalService rentalService;
+    private final SparseFieldService sparseFieldService;
+    private final BatchLookupService batchLookupService;
+    private final RentalDurationStats rentalDurationStats;
 
-    public RentalController(RentalService rentalService) {
+    public RentalController(RentalService rentalService, SparseFieldService sparseFieldService,
+                            BatchLookupService batchLookupService, RentalDurationStats rentalDurationStats) {
         this.rentalService = rentalService;
+        this.sparseFieldService = sparseFieldService;
+        this.batchLookupService = batchLookupService;
+        this.rentalDurationStats = rentalDurationStats;
     }
 
     /**
      * (ADMIN) Fetches all rentals from the database,
      * maps each rental to a DTO, and returns the list.
+     * With fields, returns only those fields of each rental.
      */
     @Operation(
             summary = "Get all rentals",
-            description = "Fetches all rentals from the database and returns them as DTOs. Requires AdminKey.",
+            description = "Fetches all rentals from the database and returns them as DTOs. Optional 'fields' (e.g. id,vehicleId,endDateTime) limits the response to those fields; the user is only read for user fields. Requires AdminKey.",
+            responses = @ApiResponse(responseCode = "200",
+                    description = "The rentals; with 'fields', each only has the requested fields",
+                    content = @Content(array = @ArraySchema(schema = @Schema(implementation = RentalDTO.class)))),
             tags = {"Rentals"}
     )
     @GetMapping
-    public ResponseEntity<List<RentalDTO>> getAllRentals() {
+    public ResponseEntity<List<?>> getAllRentals(@RequestParam(required = false) String fields) {
+        if (fields != null) return ResponseEntity.ok(sparseFieldService.findAll(SparseResource.RENTAL, fields));
         List<RentalDTO> list = rentalService.getAllRentals().stream()
                 .map(RentalMapper::toDTO)
                 .collect(Collectors.toList());
         return ResponseEntity.ok(list);
     }
 
+    /**
+     * (ADMIN) Fetches the rentals with the given IDs (and their users) in one query,
+     * maps them to DTOs in the requested order, and lists the IDs that do not exist.
+     */
+    @Operation(
+            summary = "Get rentals by IDs",
+            description = "Fetches up to 100 rentals by comma separated IDs (?ids=1,2,3) in one request. "
+                    + "IDs that do not exist are listed in 'missing'. Optional 'fields' limits the items to those fields. "
+                    + "Requires AdminKey.",
+            tags = {"Rentals"}
+    )
+    @GetMapping(params = "ids")
+    public ResponseEntity<BatchDTO<?>> getRentalsByIds(@RequestParam List<Long> ids,
+                                                       @RequestParam(required = false) String fields) {
+        BatchResult<Rental> result = batchLookupService.getRentals(ids);
+        List<RentalDTO> items = result.found().stream().map(RentalMapper::toDTO).toList();
+        if (fields != null) {
+            return ResponseEntity.ok(new BatchDTO<>(sparseFieldService.narrowAll(SparseResource.RENTAL, fields, items), result.missing()));
+        }
+        return ResponseEntity.ok(new BatchDTO<>(items, result.missing()));
+    }
+
     /**
      * (ADMIN) Fetches a specific rental by ID,
      * maps it to a DTO, and returns it.
      */
     @Operation(
             summary = "Get rental by ID",
-            description = "Fetches a rental by its ID and returns it as a DTO. Requires AdminKey.",
+            description = "Fetches a rental by its ID and returns it as a DTO. Optional 'fields' (e.g. id,vehicleId,endDateTime) limits the response to those fields; the user is only read for user fields. Requires AdminKey.",
+            responses = @ApiResponse(responseCode = "200",
+                    description = "The rental; with 'fields', only the requested fields",
+                    content = @Content(schema = @Schema(implementation = RentalDTO.class))),
             tags = {"Rentals"}
     )
     @GetMapping("/{id}")
-    public RentalDTO getRentalById(@PathVariable Long id) {
+    public Object getRentalById(@PathVariable Long id, @RequestParam(required = false) String fields) {
+        if (fields != null) return sparseFieldService.findById(SparseResource.RENTAL, fields, id);
         Rental rental = rentalService.getRental(id);
         return RentalMapper.toDTO(rental);
     }
@@ -66,11 +118,18 @@ public class RentalController {
      */
     @Operation(
             summary = "Get user rental history",
-            description = "Fetches all rentals for a specific user. Requires AdminKey.",
+            description = "Fetches all rentals for a specific user. Optional 'fields' (e.g. id,vehicleId,endDateTime) limits the response to those fields; the user is only read for user fields. Requires AdminKey.",
+            responses = @ApiResponse(responseCode = "200",
+                    description = "The user's rentals; with 'fields', each only has the requested fields",
+                    content = @Content(array = @ArraySchema(schema = @Schema(implementation = RentalDTO.class)))),
             tags = {"Rentals"}
     )
     @GetMapping("/history/users/{userId}")
-    public List<RentalDTO> getUserHistory(@PathVariable Long userId) {
+    public List<?> getUserHistory(@PathVariable Long userId, @RequestParam(required = false) String fields) {
+        if (fields != null) {
+            rentalService.checkUserExists(userId);
+            return sparseFieldService.findWhere(SparseResource.RENTAL, fields, "userId", userId);
+        }
         return rentalService.getHistoryForUser(userId).stream()
                 .map(RentalMapper::toDTO)
                 .collect(Collectors.toList());
@@ -82,16 +141,57 @@ public class RentalController {
      */
     @Operation(
             summary = "Get vehicle rental history",
-            description = "Fetches all rentals for a specific vehicle. Requires AdminKey.",
+            description = "Fetches all rentals for a specific vehicle. Optional 'fields' (e.g. id,vehicleId,endDateTime) limits the response to those fields; the user is only read for user fields. Requires AdminKey.",
+            responses = @ApiResponse(responseCode = "200",
+                    description = "The vehicle's rentals; with 'fields', each only has the requested fields",
+                    content = @Content(array = @ArraySchema(schema = @Schema(implementation = RentalDTO.class)))),
             tags = {"Rentals"}
     )
     @GetMapping("/history/vehicles/{vehicleId}")
-    public List<RentalDTO> getVehicleHistory(@PathVariable Long vehicleId) {
+    public List<?> getVehicleHistory(@PathVariable Long vehicleId, @RequestParam(required = false) String fields) {
+        if (fields != null) {
+            rentalService.checkVehicleExists(vehicleId);
+            return sparseFieldService.findWhere(SparseResource.RENTAL, fields, "vehicleId", vehicleId);
+        }
         return rentalService.getHistoryForVehicle(vehicleId).stream()
                 .map(RentalMapper::toDTO)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * (ADMIN) Returns p50/p90/p99 rental durations per month of return and in total,
+     * for one vehicle type or all, merged from the stored duration sketches without reading any rentals.
+     */
+    @Operation(
+            summary = "Get rental duration percentiles",
+            description = "Median, 90th and 99th percentile of rental durations (seconds) per month the rentals were returned in (UTC), "
+                    + "and in total over the months from and to (like 2026-01, both optional and inclusive). "
+                    + "Optional 'type' (Car, Trailer or Truck) limits it to one vehicle type. "
+                    + "Every percentile is within relativeError (1%) of the exact value. Requires AdminKey.",
+            tags = {"Rentals"}
+    )
+    @GetMapping("/duration-stats")
+    public RentalDurationStatsDTO getDurationStats(@RequestParam(required = false) String type,
+                                                   @RequestParam(required = false) YearMonth from,
+                                                   @RequestParam(required = false) YearMonth to) {
+        return RentalDurationStatsMapper.toDTO(type, rentalDurationStats.getSketchesByMonth(type, from, to));
+    }
+
+    /**
+     * (ADMIN) Recomputes the rental duration sketches from all finished rentals,
+     * and returns how many sketches and rentals were written.
+     */
+    @Operation(
+            summary = "Rebuild rental duration percentiles",
+            description = "Recomputes the rental duration sketches from all finished rentals, for example after rentals were deleted. "
+                    + "Returns registered while it runs wait for it to finish. Requires AdminKey.",
+            tags = {"Rentals"}
+    )
+    @PostMapping("/duration-stats/rebuild")
+    public DurationStatsRebuildDTO rebuildDurationStats() {
+        return RentalDurationStatsMapper.toDTO(rentalDurationStats.rebuild());
+    }
+
     /**
      * (ADMIN) Automatically validates the incoming DTO via @Valid,
      * creates a new rental entity, saves it to the database,
@@ -121,7 +221,7 @@ public class RentalController {
     @PatchMapping("/{id}/return")
     public RentalDTO registerReturn(@PathVariable Long id, @RequestBody(required = false) Map<String, String> body) {
         if (body != null && !body.isEmpty()) {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Body should be empty when returning a rental.");
+            throw new ValidationException("Body should be empty when returning a rental.");
         }
         Rental returned = rentalService.returnRental(id);
         return RentalMapper.toDTO(returned);
@@ -1,18 +1,29 @@
 package se.gritacademy.fulkoping_rental.controller.user;
 
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import jakarta.validation.Valid;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import se.gritacademy.fulkoping_rental.cache.CoherentCache;
+import se.gritacademy.fulkoping_rental.dto.batch.BatchDTO;
+import se.gritacademy.fulkoping_rental.dto.sync.ChangesDTO;
 import se.gritacademy.fulkoping_rental.dto.user.CreateUserDTO;
 import se.gritacademy.fulkoping_rental.dto.user.UserDTO;
-import se.gritacademy.fulkoping_rental.model.user.Customer;
 import se.gritacademy.fulkoping_rental.model.user.User;
+import se.gritacademy.fulkoping_rental.service.batch.BatchLookupService;
+import se.gritacademy.fulkoping_rental.service.batch.BatchResult;
+import se.gritacademy.fulkoping_rental.service.fields.SparseFieldService;
+import se.gritacademy.fulkoping_rental.service.fields.SparseResource;
+import se.gritacademy.fulkoping_rental.service.sync.ChangeSet;
+import se.gritacademy.fulkoping_rental.service.sync.DeltaSyncService;
 import se.gritacademy.fulkoping_rental.service.user.UserService;
 import se.gritacademy.fulkoping_rental.mapper.UserMapper;
-import se.gritacademy.fulkoping_rental.service.user.UserValidator;
 
 import java.util.List;
 import java.util.Map;
@@ -23,26 +34,59 @@ import java.util.Map;
 public class UserController {
 
     private final UserService userService;
+    private final CoherentCache<UserDTO> userCache;
+    private final DeltaSyncService deltaSyncService;
+    private final SparseFieldService sparseFieldService;
+    private final BatchLookupService batchLookupService;
 
-    public UserController(UserService userService) {
+    public UserController(UserService userService, CoherentCache<UserDTO> userCache, DeltaSyncService deltaSyncService,
+                          SparseFieldService sparseFieldService, BatchLookupService batchLookupService) {
         this.userService = userService;
+        this.userCache = userCache;
+        this.deltaSyncService = deltaSyncService;
+        this.sparseFieldService = sparseFieldService;
+        this.batchLookupService = batchLookupService;
     }
 
     /**
      * (ADMIN) Fetches all users from the database,
-     * maps them to DTOs, and returns the list.
+     * maps them to DTOs, and returns the list (served from the local cache until a user changes).
+     * With fields, returns only those fields of each user.
      */
     @Operation(
             summary = "Get all users",
-            description = "Returns a list of all users. Requires AdminKey.",
+            description = "Returns a list of all users. Optional 'fields' (e.g. id,firstName,lastName) limits the response to those fields. Requires AdminKey.",
+            responses = @ApiResponse(responseCode = "200",
+                    description = "The users; with 'fields', each only has the requested fields",
+                    content = @Content(array = @ArraySchema(schema = @Schema(implementation = UserDTO.class)))),
             tags = {"Users"}
     )
     @GetMapping
-    public ResponseEntity<List<UserDTO>> getAllUsers() {
-        List<UserDTO> users = userService.getAllUsers().stream()
-                .map(UserMapper::toDTO)
-                .toList();
-        return ResponseEntity.ok(users);
+    public ResponseEntity<List<?>> getAllUsers(@RequestParam(required = false) String fields) {
+        if (fields != null) return ResponseEntity.ok(sparseFieldService.findAll(SparseResource.USER, fields));
+        return ResponseEntity.ok(allUsers());
+    }
+
+    /**
+     * (ADMIN) Fetches the users with the given IDs in one query,
+     * maps them to DTOs in the requested order, and lists the IDs that do not exist.
+     */
+    @Operation(
+            summary = "Get users by IDs",
+            description = "Fetches up to 100 users by comma separated IDs (?ids=1,2,3) in one request. "
+                    + "IDs that do not exist are listed in 'missing'. Optional 'fields' limits the items to those fields. "
+                    + "Requires AdminKey.",
+            tags = {"Users"}
+    )
+    @GetMapping(params = "ids")
+    public ResponseEntity<BatchDTO<?>> getUsersByIds(@RequestParam List<Long> ids,
+                                                     @RequestParam(required = false) String fields) {
+        BatchResult<User> result = batchLookupService.getUsers(ids);
+        List<UserDTO> items = result.found().stream().map(UserMapper::toDTO).toList();
+        if (fields != null) {
+            return ResponseEntity.ok(new BatchDTO<>(sparseFieldService.narrowAll(SparseResource.USER, fields, items), result.missing()));
+        }
+        return ResponseEntity.ok(new BatchDTO<>(items, result.missing()));
     }
 
     /**
@@ -51,14 +95,17 @@ public class UserController {
      */
     @Operation(
             summary = "Get all customers",
-            description = "Returns all users with customer role. Requires AdminKey.",
+            description = "Returns all users with customer role. Optional 'fields' (e.g. id,firstName,lastName) limits the response to those fields. Requires AdminKey.",
+            responses = @ApiResponse(responseCode = "200",
+                    description = "The customers; with 'fields', each only has the requested fields",
+                    content = @Content(array = @ArraySchema(schema = @Schema(implementation = UserDTO.class)))),
             tags = {"Users"}
     )
     @GetMapping("/customers")
-    public ResponseEntity<List<UserDTO>> getAllCustomers() {
-        List<UserDTO> customers = userService.getAllUsers().stream()
-                .filter(u -> u instanceof Customer)
-                .map(UserMapper::toDTO)
+    public ResponseEntity<List<?>> getAllCustomers(@RequestParam(required = false) String fields) {
+        if (fields != null) return ResponseEntity.ok(sparseFieldService.findAllOfType(SparseResource.USER, fields, "Customer"));
+        List<UserDTO> customers = allUsers().stream()
+                .filter(u -> u.type().equals("Customer"))
                 .toList();
         return ResponseEntity.ok(customers);
     }
@@ -69,31 +116,58 @@ public class UserController {
      */
     @Operation(
             summary = "Get all admins",
-            description = "Returns all users with admin role. Requires AdminKey.",
+            description = "Returns all users with admin role. Optional 'fields' (e.g. id,firstName,lastName) limits the response to those fields. Requires AdminKey.",
+            responses = @ApiResponse(responseCode = "200",
+                    description = "The admins; with 'fields', each only has the requested fields",
+                    content = @Content(array = @ArraySchema(schema = @Schema(implementation = UserDTO.class)))),
             tags = {"Users"}
     )
     @GetMapping("/admins")
-    public ResponseEntity<List<UserDTO>> getAllAdmins() {
-        List<UserDTO> admins = userService.getAllUsers().stream()
-                .filter(u -> u.getClass().getSimpleName().equals("Admin"))
-                .map(UserMapper::toDTO)
+    public ResponseEntity<List<?>> getAllAdmins(@RequestParam(required = false) String fields) {
+        if (fields != null) return ResponseEntity.ok(sparseFieldService.findAllOfType(SparseResource.USER, fields, "Admin"));
+        List<UserDTO> admins = allUsers().stream()
+                .filter(u -> u.type().equals("Admin"))
                 .toList();
         return ResponseEntity.ok(admins);
     }
 
+    /**
+     * (ADMIN) Returns the users created, updated or deleted after the given cursor,
+     * in pages of at most limit changes, with the cursor for the next request.
+     * Without since, returns only the current cursor (fetch it before downloading all users).
+     */
+    @Operation(
+            summary = "Get user changes",
+            description = "Delta sync: current state of users changed after 'since' and ids of deleted users. "
+                    + "Continue with 'next' while 'hasMore' is true. 410 if 'since' is older than the change log retention. "
+                    + "Requires AdminKey.",
+            tags = {"Users"}
+    )
+    @GetMapping("/changes")
+    public ResponseEntity<ChangesDTO<UserDTO>> getUserChanges(@RequestParam(required = false) Long since,
+                                                              @RequestParam(defaultValue = "500") int limit) {
+        ChangeSet<User> changes = deltaSyncService.getUserChanges(since, limit);
+        return ResponseEntity.ok(new ChangesDTO<>(changes.since(), changes.next(), changes.hasMore(),
+                changes.upserts().stream().map(UserMapper::toDTO).toList(), changes.deleted()));
+    }
+
     /**
      * (ADMIN) Fetches a specific user by ID,
-     * maps the user to a DTO, and returns it.
+     * maps the user to a DTO, and returns it (served from the local cache until the user changes).
+     * With fields, returns only those fields.
      */
     @Operation(
             summary = "Get user by ID",
-            description = "Fetches a specific user by ID. Requires AdminKey.",
+            description = "Fetches a specific user by ID. Optional 'fields' (e.g. id,firstName,lastName) limits the response to those fields. Requires AdminKey.",
+            responses = @ApiResponse(responseCode = "200",
+                    description = "The user; with 'fields', only the requested fields",
+                    content = @Content(schema = @Schema(implementation = UserDTO.class))),
             tags = {"Users"}
     )
     @GetMapping("/{id}")
-    public ResponseEntity<UserDTO> getUserById(@PathVariable Long id) {
-        User user = userService.getById(id);
-        return ResponseEntity.ok(UserMapper.toDTO(user));
+    public ResponseEntity<?> getUserById(@PathVariable Long id, @RequestParam(required = false) String fields) {
+        if (fields != null) return ResponseEntity.ok(sparseFieldService.findById(SparseResource.USER, fields, id));
+        return ResponseEntity.ok(userCache.get(id, () -> UserMapper.toDTO(userService.getById(id))));
     }
 
     /**
@@ -115,8 +189,8 @@ public class UserController {
 
     /**
      * (ADMIN) Fetches the user by ID,
-     * validates the provided patch fields,
-     * applies allowed updates, saves the user,
+     * validates and applies the allowed patch fields in one pass,
+     * saves the user only if something changed (only changed columns are updated),
      * and returns the updated user as DTO.
      */
     @Operation(
@@ -126,22 +200,20 @@ public class UserController {
     )
     @PatchMapping("/{id}")
     public ResponseEntity<UserDTO> updateUser(@PathVariable Long id, @RequestBody Map<String, Object> fields) {
-        User user = userService.getById(id);
-        UserValidator validator = new UserValidator();
-        validator.validatePatchFields(user, fields);
-        applyPatchFields(user, fields);
-        User saved = userService.saveUser(user);
-        return ResponseEntity.ok(UserMapper.toDTO(saved));
+        User user = userService.updateUser(id, fields);
+        return ResponseEntity.ok(UserMapper.toDTO(user));
     }
 
     /**
      * (ADMIN) Deletes the user by ID,
      * and returns 204 No Content on success.
-     * Throws 404 Not Found if the user does not exist.
+     * Throws 404 Not Found if the user does not exist, 400 if they have an active rental.
      */
     @Operation(
             summary = "Delete a user",
-            description = "Deletes a user by ID. Requires AdminKey.",
+            description = "Deletes a user and their rentals by the user's ID. They disappear at once; "
+                    + "the rows are removed later by the cleanup, until then the email stays taken. "
+                    + "Rejected while the user has an active rental. Requires AdminKey.",
             tags = {"Users"}
     )
     @DeleteMapping("/{id}")
@@ -152,15 +224,11 @@ public class UserController {
     }
 
     /**
-     * Helper: Applies the allowed PATCH fields (firstName, lastName, email, phoneNumber)
-     * to the given user instance. Only updates fields that are valid for the user type.
+     * Helper: Returns all users as DTOs from the local cache, loading them on a miss.
      */
-    private void applyPatchFields(User user, Map<String, Object> fields) {
-        if (fields.containsKey("firstName")) user.setFirstName((String) fields.get("firstName"));
-        if (fields.containsKey("lastName")) user.setLastName((String) fields.get("lastName"));
-        if (fields.containsKey("email")) user.setEmail((String) fields.get("email"));
-        if (fields.containsKey("phoneNumber") && user instanceof Customer c) {
-            c.setPhoneNumber((String) fields.get("phoneNumber"));
-        }
+    private List<UserDTO> allUsers() {
+        return userCache.getAll(() -> userService.getAllUsers().stream()
+                .map(UserMapper::toDTO)
+                .toList());
     }
 }
\ No newline at end of file
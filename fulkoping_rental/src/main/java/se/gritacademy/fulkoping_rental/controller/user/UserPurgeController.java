@@ -0,0 +1,57 @@
+package se.gritacademy.fulkoping_rental.controller.user;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import se.gritacademy.fulkoping_rental.dto.user.CreatePurgeJobDTO;
+import se.gritacademy.fulkoping_rental.dto.user.PurgeJobDTO;
+import se.gritacademy.fulkoping_rental.mapper.PurgeJobMapper;
+import se.gritacademy.fulkoping_rental.service.user.PurgeJob;
+import se.gritacademy.fulkoping_rental.service.user.UserPurgeService;
+
+import java.net.URI;
+
+@RestController
+@RequestMapping("/api/users/purge-jobs")
+@SecurityRequirement(name = "AdminKey")
+public class UserPurgeController {
+
+    private final UserPurgeService userPurgeService;
+
+    public UserPurgeController(UserPurgeService userPurgeService) {
+        this.userPurgeService = userPurgeService;
+    }
+
+    /**
+     * (ADMIN) Submits a bulk purge job for a list of user IDs or for all customers
+     * dormant since the given time, and returns 202 Accepted with the job status.
+     * The users are deleted in the background in bounded chunks.
+     */
+    @Operation(
+            summary = "Submit user purge job",
+            description = "Deletes the given users, or all customers dormant since the given time, in the background. Requires AdminKey.",
+            tags = {"Users"}
+    )
+    @PostMapping
+    public ResponseEntity<PurgeJobDTO> submitPurgeJob(@RequestBody CreatePurgeJobDTO dto) {
+        PurgeJob job = userPurgeService.submit(dto);
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/users/purge-jobs/" + job.getId()))
+                .body(PurgeJobMapper.toDTO(job));
+    }
+
+    /**
+     * (ADMIN) Fetches the progress of a purge job by ID,
+     * including the IDs that could not be deleted and why.
+     */
+    @Operation(
+            summary = "Get user purge job",
+            description = "Returns the progress and failures of a purge job. Requires AdminKey.",
+            tags = {"Users"}
+    )
+    @GetMapping("/{id}")
+    public PurgeJobDTO getPurgeJob(@PathVariable Long id) {
+        return PurgeJobMapper.toDTO(userPurgeService.getJob(id));
+    }
+}
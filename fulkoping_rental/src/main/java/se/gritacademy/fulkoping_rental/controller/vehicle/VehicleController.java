@@ -1,50 +1,111 @@
 package se.gritacademy.fulkoping_rental.controller.vehicle;
 
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import jakarta.validation.Valid;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import se.gritacademy.fulkoping_rental.cache.CoherentCache;
+import se.gritacademy.fulkoping_rental.dto.batch.BatchDTO;
+import se.gritacademy.fulkoping_rental.dto.sync.ChangesDTO;
 import se.gritacademy.fulkoping_rental.dto.vehicle.CreateVehicleDTO;
+import se.gritacademy.fulkoping_rental.dto.vehicle.FleetSummaryDTO;
+import se.gritacademy.fulkoping_rental.dto.vehicle.FleetTypeStatusDTO;
 import se.gritacademy.fulkoping_rental.dto.vehicle.VehicleDTO;
-import se.gritacademy.fulkoping_rental.model.vehicle.Car;
-import se.gritacademy.fulkoping_rental.model.vehicle.Trailer;
-import se.gritacademy.fulkoping_rental.model.vehicle.Truck;
 import se.gritacademy.fulkoping_rental.model.vehicle.Vehicle;
+import se.gritacademy.fulkoping_rental.service.batch.BatchLookupService;
+import se.gritacademy.fulkoping_rental.service.batch.BatchResult;
+import se.gritacademy.fulkoping_rental.service.fields.SparseFieldService;
+import se.gritacademy.fulkoping_rental.service.fields.SparseResource;
+import se.gritacademy.fulkoping_rental.service.sync.ChangeSet;
+import se.gritacademy.fulkoping_rental.service.sync.DeltaSyncService;
+import se.gritacademy.fulkoping_rental.service.vehicle.FleetStatusCounters;
+import se.gritacademy.fulkoping_rental.service.vehicle.VehicleAvailabilityStream;
 import se.gritacademy.fulkoping_rental.service.vehicle.VehicleService;
 import se.gritacademy.fulkoping_rental.mapper.VehicleMapper;
+import se.gritacademy.fulkoping_rental.service.patch.PatchEngine;
 
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 @RestController
 @RequestMapping("/api/vehicles")
 public class VehicleController {
 
     private final VehicleService vehicleService;
+    private final PatchEngine patchEngine;
+    private final CoherentCache<VehicleDTO> vehicleCache;
+    private final VehicleAvailabilityStream availabilityStream;
+    private final DeltaSyncService deltaSyncService;
+    private final SparseFieldService sparseFieldService;
+    private final BatchLookupService batchLookupService;
+    private final FleetStatusCounters fleetStatus;
 
-    public VehicleController(VehicleService vehicleService) {
+    public VehicleController(VehicleService vehicleService, PatchEngine patchEngine, CoherentCache<VehicleDTO> vehicleCache,
+                             VehicleAvailabilityStream availabilityStream, DeltaSyncService deltaSyncService,
+                             SparseFieldService sparseFieldService, BatchLookupService batchLookupService,
+                             FleetStatusCounters fleetStatus) {
         this.vehicleService = vehicleService;
+        this.patchEngine = patchEngine;
+        this.vehicleCache = vehicleCache;
+        this.availabilityStream = availabilityStream;
+        this.deltaSyncService = deltaSyncService;
+        this.sparseFieldService = sparseFieldService;
+        this.batchLookupService = batchLookupService;
+        this.fleetStatus = fleetStatus;
     }
 
     /**
      * (USER/ADMIN) Fetches all vehicles, maps them to DTOs,
-     * and returns the list.
+     * and returns the list (served from the local cache until a vehicle changes).
+     * With fields, returns only those fields of each vehicle.
      */
     @Operation(
             summary = "Get all vehicles",
-            description = "Fetches all vehicles and returns them as DTOs. Requires UserKey.",
+            description = "Fetches all vehicles and returns them as DTOs. Optional 'fields' (e.g. id,registrationNumber,rented) limits the response to those fields. Requires UserKey.",
+            responses = @ApiResponse(responseCode = "200",
+                    description = "The vehicles; with 'fields', each only has the requested fields",
+                    content = @Content(array = @ArraySchema(schema = @Schema(implementation = VehicleDTO.class)))),
             tags = {"Vehicles"},
             security = @SecurityRequirement(name = "UserKey")
     )
     @GetMapping
-    public List<VehicleDTO> getAllVehicles() {
-        return vehicleService.getAllVehicles().stream()
-                .map(VehicleMapper::toDTO)
-                .toList();
+    public List<?> getAllVehicles(@RequestParam(required = false) String fields) {
+        if (fields != null) return sparseFieldService.findAll(SparseResource.VEHICLE, fields);
+        return allVehicles();
+    }
+
+    /**
+     * (USER/ADMIN) Fetches the vehicles with the given IDs in one query,
+     * maps them to DTOs in the requested order, and lists the IDs that do not exist.
+     */
+    @Operation(
+            summary = "Get vehicles by IDs",
+            description = "Fetches up to 100 vehicles by comma separated IDs (?ids=1,2,3) in one request. "
+                    + "IDs that do not exist are listed in 'missing'. Optional 'fields' limits the items to those fields. "
+                    + "Requires UserKey.",
+            tags = {"Vehicles"},
+            security = @SecurityRequirement(name = "UserKey")
+    )
+    @GetMapping(params = "ids")
+    public BatchDTO<?> getVehiclesByIds(@RequestParam List<Long> ids, @RequestParam(required = false) String fields) {
+        BatchResult<Vehicle> result = batchLookupService.getVehicles(ids);
+        List<VehicleDTO> items = result.found().stream().map(VehicleMapper::toDTO).toList();
+        if (fields != null) {
+            return new BatchDTO<>(sparseFieldService.narrowAll(SparseResource.VEHICLE, fields, items), result.missing());
+        }
+        return new BatchDTO<>(items, result.missing());
     }
 
     /**
@@ -53,15 +114,18 @@ public class VehicleController {
      */
     @Operation(
             summary = "Get all cars",
-            description = "Fetches all vehicles of type Car. Requires UserKey.",
+            description = "Fetches all vehicles of type Car. Optional 'fields' (e.g. id,registrationNumber,rented) limits the response to those fields. Requires UserKey.",
+            responses = @ApiResponse(responseCode = "200",
+                    description = "The cars; with 'fields', each only has the requested fields",
+                    content = @Content(array = @ArraySchema(schema = @Schema(implementation = VehicleDTO.class)))),
             tags = {"Vehicles"},
             security = @SecurityRequirement(name = "UserKey")
     )
     @GetMapping("/cars")
-    public List<VehicleDTO> getAllCars() {
-        return vehicleService.getAllVehicles().stream()
-                .filter(v -> v instanceof Car)
-                .map(VehicleMapper::toDTO)
+    public List<?> getAllCars(@RequestParam(required = false) String fields) {
+        if (fields != null) return sparseFieldService.findAllOfType(SparseResource.VEHICLE, fields, "Car");
+        return allVehicles().stream()
+                .filter(v -> v.type().equals("Car"))
                 .toList();
     }
 
@@ -71,15 +135,18 @@ public class VehicleController {
      */
     @Operation(
             summary = "Get all trailers",
-            description = "Fetches all vehicles of type Trailer. Requires UserKey.",
+            description = "Fetches all vehicles of type Trailer. Optional 'fields' (e.g. id,registrationNumber,rented) limits the response to those fields. Requires UserKey.",
+            responses = @ApiResponse(responseCode = "200",
+                    description = "The trailers; with 'fields', each only has the requested fields",
+                    content = @Content(array = @ArraySchema(schema = @Schema(implementation = VehicleDTO.class)))),
             tags = {"Vehicles"},
             security = @SecurityRequirement(name = "UserKey")
     )
     @GetMapping("/trailers")
-    public List<VehicleDTO> getAllTrailers() {
-        return vehicleService.getAllVehicles().stream()
-                .filter(v -> v instanceof Trailer)
-                .map(VehicleMapper::toDTO)
+    public List<?> getAllTrailers(@RequestParam(required = false) String fields) {
+        if (fields != null) return sparseFieldService.findAllOfType(SparseResource.VEHICLE, fields, "Trailer");
+        return allVehicles().stream()
+                .filter(v -> v.type().equals("Trailer"))
                 .toList();
     }
 
@@ -89,32 +156,107 @@ public class VehicleController {
      */
     @Operation(
             summary = "Get all trucks",
-            description = "Fetches all vehicles of type Truck. Requires UserKey.",
+            description = "Fetches all vehicles of type Truck. Optional 'fields' (e.g. id,registrationNumber,rented) limits the response to those fields. Requires UserKey.",
+            responses = @ApiResponse(responseCode = "200",
+                    description = "The trucks; with 'fields', each only has the requested fields",
+                    content = @Content(array = @ArraySchema(schema = @Schema(implementation = VehicleDTO.class)))),
             tags = {"Vehicles"},
             security = @SecurityRequirement(name = "UserKey")
     )
     @GetMapping("/trucks")
-    public List<VehicleDTO> getAllTrucks() {
-        return vehicleService.getAllVehicles().stream()
-                .filter(v -> v instanceof Truck)
-                .map(VehicleMapper::toDTO)
+    public List<?> getAllTrucks(@RequestParam(required = false) String fields) {
+        if (fields != null) return sparseFieldService.findAllOfType(SparseResource.VEHICLE, fields, "Truck");
+        return allVehicles().stream()
+                .filter(v -> v.type().equals("Truck"))
                 .toList();
     }
 
     /**
      * (USER/ADMIN) Fetches a specific vehicle by ID,
-     * maps it to DTO, and returns it.
+     * maps it to DTO, and returns it (served from the local cache until the vehicle changes).
+     * With fields, returns only those fields.
      */
     @Operation(
             summary = "Get vehicle by ID",
-            description = "Fetches a specific vehicle by its ID. Requires UserKey.",
+            description = "Fetches a specific vehicle by its ID. Optional 'fields' (e.g. id,registrationNumber,rented) limits the response to those fields. Requires UserKey.",
+            responses = @ApiResponse(responseCode = "200",
+                    description = "The vehicle; with 'fields', only the requested fields",
+                    content = @Content(schema = @Schema(implementation = VehicleDTO.class))),
             tags = {"Vehicles"},
             security = @SecurityRequirement(name = "UserKey")
     )
     @GetMapping("/{id}")
-    public VehicleDTO getVehicleById(@PathVariable Long id) {
-        Vehicle vehicle = vehicleService.getVehicleById(id);
-        return VehicleMapper.toDTO(vehicle);
+    public Object getVehicleById(@PathVariable Long id, @RequestParam(required = false) String fields) {
+        if (fields != null) return sparseFieldService.findById(SparseResource.VEHICLE, fields, id);
+        return vehicleCache.get(id, () -> VehicleMapper.toDTO(vehicleService.getVehicleById(id)));
+    }
+
+    /**
+     * (USER/ADMIN) Returns the number of rented and available vehicles per type,
+     * read from in-memory counters without querying the database.
+     */
+    @Operation(
+            summary = "Get fleet status",
+            description = "Number of rented and available vehicles per type and in total. "
+                    + "Served from counters that are kept up to date on every change and regularly checked against the database. "
+                    + "Requires UserKey.",
+            tags = {"Vehicles"},
+            security = @SecurityRequirement(name = "UserKey")
+    )
+    @GetMapping("/fleet-status")
+    public FleetSummaryDTO getFleetStatus() {
+        Map<String, FleetTypeStatusDTO> types = new LinkedHashMap<>();
+        long rented = 0;
+        long available = 0;
+        for (Map.Entry<String, long[]> entry : fleetStatus.getCounts().entrySet()) {
+            long[] counts = entry.getValue();
+            types.put(entry.getKey(), new FleetTypeStatusDTO(counts[1], counts[0]));
+            available += counts[0];
+            rented += counts[1];
+        }
+        long reconciledAt = fleetStatus.getReconciledAt();
+        return new FleetSummaryDTO(types, rented, available,
+                reconciledAt == 0 ? null : OffsetDateTime.ofInstant(Instant.ofEpochMilli(reconciledAt), ZoneOffset.UTC));
+    }
+
+    /**
+     * (USER/ADMIN) Returns the vehicles created, updated or deleted after the given cursor,
+     * in pages of at most limit changes, with the cursor for the next request.
+     * Without since, returns only the current cursor (fetch it before downloading all vehicles).
+     */
+    @Operation(
+            summary = "Get vehicle changes",
+            description = "Delta sync: current state of vehicles changed after 'since' and ids of deleted vehicles. "
+                    + "Continue with 'next' while 'hasMore' is true. 410 if 'since' is older than the change log retention. "
+                    + "Requires UserKey.",
+            tags = {"Vehicles"},
+            security = @SecurityRequirement(name = "UserKey")
+    )
+    @GetMapping("/changes")
+    public ChangesDTO<VehicleDTO> getVehicleChanges(@RequestParam(required = false) Long since,
+                                                    @RequestParam(defaultValue = "500") int limit) {
+        ChangeSet<Vehicle> changes = deltaSyncService.getVehicleChanges(since, limit);
+        return new ChangesDTO<>(changes.since(), changes.next(), changes.hasMore(),
+                changes.upserts().stream().map(VehicleMapper::toDTO).toList(), changes.deleted());
+    }
+
+    /**
+     * (USER/ADMIN) Opens a Server-Sent Events stream of vehicle availability changes,
+     * optionally only for one vehicle type.
+     * Reconnecting clients send Last-Event-ID and get the current state of every vehicle changed since.
+     */
+    @Operation(
+            summary = "Stream vehicle availability",
+            description = "Server-Sent Events with the current state of every vehicle that is booked, returned, "
+                    + "marked as rented/available, created or deleted. Optional type filter (Car, Trailer, Truck). "
+                    + "Send Last-Event-ID to replay changes missed while disconnected. Requires UserKey.",
+            tags = {"Vehicles"},
+            security = @SecurityRequirement(name = "UserKey")
+    )
+    @GetMapping(path = "/availability/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamAvailability(@RequestParam(required = false) String type,
+                                         @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        return availabilityStream.subscribe(type, lastEventId);
     }
 
     /**
@@ -150,8 +292,7 @@ public class VehicleController {
     @PatchMapping("/{id}/rent")
     public VehicleDTO updateRentStatus(@PathVariable Long id, @RequestBody Map<String, Object> fields) {
         Vehicle vehicle = vehicleService.getVehicleById(id);
-        validateAllowedFields(fields);
-        boolean rented = extractRented(fields);
+        boolean rented = (Boolean) patchEngine.validate(vehicle, fields).get("rented");
         Vehicle updatedVehicle = vehicleService.updateRentStatus(id, rented);
         return VehicleMapper.toDTO(updatedVehicle);
     }
@@ -159,11 +300,13 @@ public class VehicleController {
     /**
      * (ADMIN) Deletes the vehicle by ID,
      * and returns 204 No Content on success.
-     * Throws 404 Not Found if the vehicle does not exist.
+     * Throws 404 Not Found if the vehicle does not exist, 400 if it has an active rental.
      */
     @Operation(
             summary = "Delete vehicle",
-            description = "Deletes a vehicle by its ID. Requires AdminKey.",
+            description = "Deletes a vehicle and its rentals by the vehicle's ID. They disappear at once; "
+                    + "the rows are removed later by the cleanup, until then the registration number stays taken. "
+                    + "Rejected while the vehicle is rented. Requires AdminKey.",
             tags = {"Vehicles"},
             security = @SecurityRequirement(name = "AdminKey")
     )
@@ -175,26 +318,11 @@ public class VehicleController {
     }
 
     /**
-     * Helper: Validates that the PATCH request body only contains allowed fields (rented).
-     * Throws 400 if any other fields are present.
+     * Helper: Returns all vehicles as DTOs from the local cache, loading them on a miss.
      */
-    private void validateAllowedFields(Map<String, Object> fields) {
-        Set<String> allowedFields = Set.of("rented");
-        for (String key : fields.keySet()) {
-            if (!allowedFields.contains(key)) {
-                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Field not allowed: " + key);
-            }
-        }
-    }
-
-    /**
-     * Helper: Validates that the 'rented' field is present and is a boolean.
-     * Throws 400 if 'rented' is missing or not a boolean
-     */
-    private boolean extractRented(Map<String, Object> fields) {
-        if (!fields.containsKey("rented") || !(fields.get("rented") instanceof Boolean)) {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "'rented' field is required and must be boolean");
-        }
-        return (Boolean) fields.get("rented");
+    private List<VehicleDTO> allVehicles() {
+        return vehicleCache.getAll(() -> vehicleService.getAllVehicles().stream()
+                .map(VehicleMapper::toDTO)
+                .toList());
     }
 }
\ No newline at end of file
@@ -0,0 +1,92 @@
+package se.gritacademy.fulkoping_rental.datasource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Measures replica lag with a heartbeat row: the current time is written to the primary,
+ * and the lag of each replica is the difference to the value it has replicated so far, less one check interval:
+ * a replica that is only missing the heartbeat written just before the check is not behind by a whole interval.
+ * A replica that has the latest heartbeat has no lag.
+ * This works with any replication setup and does not depend on the replicas' clocks.
+ */
+@Component
+public class ReplicaLagMonitor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+    static final String SELECT_BEAT = "select beat_at from replica_heartbeat where id = 1";
+
+    private final ReplicaRoutingDataSource routingDataSource;
+    private final JdbcTemplate primary;
+    private final long checkIntervalMillis;
+
+    public ReplicaLagMonitor(ReplicaRoutingDataSource routingDataSource,
+                             @Value("${app.datasource.replica.check-interval-ms:1000}") long checkIntervalMillis) {
+        this.routingDataSource = routingDataSource;
+        this.primary = new JdbcTemplate(routingDataSource.getPrimary());
+        this.checkIntervalMillis = checkIntervalMillis;
+    }
+
+    /**
+     * Writes a new heartbeat to the primary and updates the lag of every replica.
+     * Does nothing when no replicas are configured.
+     */
+    @Scheduled(fixedDelayString = "${app.datasource.replica.check-interval-ms:1000}")
+    public void checkReplicas() {
+        if (!routingDataSource.hasReplicas()) return;
+        long now;
+        try {
+            now = writeHeartbeat(System.currentTimeMillis());
+        } catch (DataAccessException e) {
+            logger.warn("Could not write replica heartbeat to primary: {}", e.getMessage());
+            return;
+        }
+        for (ReplicaRoutingDataSource.Replica replica : routingDataSource.getReplicas()) {
+            checkReplica(replica, now);
+        }
+    }
+
+    /**
+     * Helper: Reads the replicated heartbeat from one replica and records its lag.
+     * A replica that cannot be queried or has no heartbeat yet is marked as down.
+     */
+    private void checkReplica(ReplicaRoutingDataSource.Replica replica, long now) {
+        try {
+            List<Long> beats = new JdbcTemplate(replica.getDataSource()).queryForList(SELECT_BEAT, Long.class);
+            if (beats.isEmpty()) {
+                replica.markDown();
+                return;
+            }
+            boolean wasUsable = replica.getLagMillis() >= 0;
+            long beat = beats.get(0);
+            replica.updateLag(beat >= now ? 0 : System.currentTimeMillis() - beat - checkIntervalMillis);
+            if (!wasUsable) {
+                logger.info("Replica {} is reachable, lag {} ms", replica.getName(), replica.getLagMillis());
+            }
+        } catch (DataAccessException e) {
+            if (replica.getLagMillis() >= 0) {
+                logger.warn("Replica {} is unreachable: {}", replica.getName(), e.getMessage());
+            }
+            replica.markDown();
+        }
+    }
+
+    /**
+     * Helper: Stores the heartbeat on the primary, creating the row on first use.
+     * The table is created by the V3 migration.
+     */
+    private long writeHeartbeat(long now) {
+        if (primary.update("update replica_heartbeat set beat_at = ? where id = 1", now) == 0) {
+            primary.update("insert into replica_heartbeat (id, beat_at) values (1, ?)", now);
+        }
+        return now;
+    }
+}
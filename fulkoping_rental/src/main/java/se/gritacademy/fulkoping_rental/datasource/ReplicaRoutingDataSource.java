@@ -0,0 +1,144 @@
+package se.gritacademy.fulkoping_rental.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * DataSource for read-only work. Hands out connections from the replica pools in round-robin order,
+ * skipping replicas that are unreachable or lag behind the primary by more than the allowed maximum.
+ * Falls back to the primary when no replica is usable.
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final long maxLagMillis;
+    private final AtomicInteger next = new AtomicInteger();
+    private final Counter replicaReads;
+    private final Counter primaryFallbacks;
+
+    public ReplicaRoutingDataSource(DataSource primary, List<Replica> replicas, long maxLagMillis, MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        this.maxLagMillis = maxLagMillis;
+        this.replicaReads = meterRegistry.counter("app.datasource.reads", "target", "replica");
+        this.primaryFallbacks = meterRegistry.counter("app.datasource.reads", "target", "primary_fallback");
+        for (Replica replica : this.replicas) {
+            Gauge.builder("app.datasource.replica.lag", replica, Replica::getLagMillis)
+                    .tag("replica", replica.getName())
+                    .baseUnit("milliseconds")
+                    .register(meterRegistry);
+        }
+    }
+
+    public boolean hasReplicas() {
+        return !replicas.isEmpty();
+    }
+
+    List<Replica> getReplicas() {
+        return replicas;
+    }
+
+    DataSource getPrimary() {
+        return primary;
+    }
+
+    /**
+     * Returns a connection from the next usable replica, or from the primary if none is usable.
+     * A replica that fails to hand out a connection is marked unusable until the next lag check.
+     */
+    @Override
+    public Connection getConnection() throws SQLException {
+        int size = replicas.size();
+        int start = size > 0 ? Math.floorMod(next.getAndIncrement(), size) : 0;
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (!replica.isUsable(maxLagMillis)) continue;
+            try {
+                Connection connection = replica.getDataSource().getConnection();
+                replicaReads.increment();
+                return connection;
+            } catch (SQLException e) {
+                logger.warn("Replica {} unavailable, marking it as down: {}", replica.getName(), e.getMessage());
+                replica.markDown();
+            }
+        }
+        primaryFallbacks.increment();
+        return primary.getConnection();
+    }
+
+    /**
+     * Not supported: the replica pools (like the primary's Hikari pool) only hand out connections
+     * with their configured credentials.
+     */
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Replica connections use the configured credentials");
+    }
+
+    @Override
+    public void close() {
+        for (Replica replica : replicas) {
+            if (replica.getDataSource() instanceof HikariDataSource hikari) {
+                hikari.close();
+            }
+        }
+    }
+
+    /**
+     * One replica pool and its last measured lag.
+     * The lag is unknown (and the replica unusable) until the first successful lag check.
+     */
+    public static class Replica {
+
+        private static final long UNKNOWN = -1;
+
+        private final String name;
+        private final DataSource dataSource;
+        private volatile long lagMillis = UNKNOWN;
+
+        public Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public DataSource getDataSource() {
+            return dataSource;
+        }
+
+        public long getLagMillis() {
+            return lagMillis;
+        }
+
+        void updateLag(long lagMillis) {
+            this.lagMillis = Math.max(0, lagMillis);
+        }
+
+        void markDown() {
+            this.lagMillis = UNKNOWN;
+        }
+
+        boolean isUsable(long maxLagMillis) {
+            long lag = lagMillis;
+            return lag != UNKNOWN && lag <= maxLagMillis;
+        }
+    }
+}
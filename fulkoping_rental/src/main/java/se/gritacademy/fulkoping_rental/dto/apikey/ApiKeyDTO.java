@@ -0,0 +1,94 @@
+package se.gritacademy.fulkoping_rental.dto.apikey;
+
+import java.time.OffsetDateTime;
+
+public class ApiKeyDTO {
+    private Long id;
+    private String name;
+    private String role;
+    private OffsetDateTime createdAt;
+    private OffsetDateTime revokedAt;
+    private Integer readLimitPerSecond;
+    private Integer writeLimitPerSecond;
+    // Only set when the key is created or rotated
+    private String key;
+
+    public ApiKeyDTO() {}
+
+    public ApiKeyDTO(Long id, String name, String role, OffsetDateTime createdAt,
+                     OffsetDateTime revokedAt, Integer readLimitPerSecond, Integer writeLimitPerSecond,
+                     String key) {
+        this.id = id;
+        this.name = name;
+        this.role = role;
+        this.createdAt = createdAt;
+        this.revokedAt = revokedAt;
+        this.readLimitPerSecond = readLimitPerSecond;
+        this.writeLimitPerSecond = writeLimitPerSecond;
+        this.key = key;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    public void setRole(String role) {
+        this.role = role;
+    }
+
+    public OffsetDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(OffsetDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public OffsetDateTime getRevokedAt() {
+        return revokedAt;
+    }
+
+    public void setRevokedAt(OffsetDateTime revokedAt) {
+        this.revokedAt = revokedAt;
+    }
+
+    public Integer getReadLimitPerSecond() {
+        return readLimitPerSecond;
+    }
+
+    public void setReadLimitPerSecond(Integer readLimitPerSecond) {
+        this.readLimitPerSecond = readLimitPerSecond;
+    }
+
+    public Integer getWriteLimitPerSecond() {
+        return writeLimitPerSecond;
+    }
+
+    public void setWriteLimitPerSecond(Integer writeLimitPerSecond) {
+        this.writeLimitPerSecond = writeLimitPerSecond;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public void setKey(String key) {
+        this.key = key;
+    }
+}
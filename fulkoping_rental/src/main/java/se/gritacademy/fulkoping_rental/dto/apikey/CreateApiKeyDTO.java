@@ -0,0 +1,61 @@
+package se.gritacademy.fulkoping_rental.dto.apikey;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+
+public class CreateApiKeyDTO {
+
+    @NotBlank(message = "Name must not be blank")
+    @Size(max = 100, message = "Name cannot be longer than 100 characters")
+    private String name;
+
+    @NotBlank(message = "Role must be specified")
+    @Pattern(regexp = "ADMIN|USER", message = "Role must be ADMIN or USER")
+    private String role;
+
+    // Optional, role defaults apply when not set
+    @Min(value = 1, message = "Read limit must be at least 1 request per second")
+    @Max(value = 5000, message = "Read limit cannot exceed 5000 requests per second")
+    private Integer readLimitPerSecond;
+
+    @Min(value = 1, message = "Write limit must be at least 1 request per second")
+    @Max(value = 5000, message = "Write limit cannot exceed 5000 requests per second")
+    private Integer writeLimitPerSecond;
+
+    public CreateApiKeyDTO() {}
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    public void setRole(String role) {
+        this.role = role;
+    }
+
+    public Integer getReadLimitPerSecond() {
+        return readLimitPerSecond;
+    }
+
+    public void setReadLimitPerSecond(Integer readLimitPerSecond) {
+        this.readLimitPerSecond = readLimitPerSecond;
+    }
+
+    public Integer getWriteLimitPerSecond() {
+        return writeLimitPerSecond;
+    }
+
+    public void setWriteLimitPerSecond(Integer writeLimitPerSecond) {
+        this.writeLimitPerSecond = writeLimitPerSecond;
+    }
+}
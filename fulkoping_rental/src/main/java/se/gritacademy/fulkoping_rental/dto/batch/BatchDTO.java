@@ -0,0 +1,9 @@
+package se.gritacademy.fulkoping_rental.dto.batch;
+
+import java.util.List;
+
+public record BatchDTO<T>(
+        // In the order of the requested ids
+        List<T> items,
+        List<Long> missing
+) {}
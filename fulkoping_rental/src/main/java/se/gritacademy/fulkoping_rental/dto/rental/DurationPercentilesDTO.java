@@ -0,0 +1,11 @@
+package se.gritacademy.fulkoping_rental.dto.rental;
+
+public record DurationPercentilesDTO(
+        // Month of the returns (like 2026-10), null for the total over all requested months
+        String month,
+        long rentals,
+        // Rental durations in seconds, null without rentals
+        Long p50Seconds,
+        Long p90Seconds,
+        Long p99Seconds
+) {}
@@ -0,0 +1,8 @@
+package se.gritacademy.fulkoping_rental.dto.rental;
+
+public record DurationStatsRebuildDTO(
+        // Sketches written, one per vehicle type and month
+        int sketches,
+        long rentals,
+        long durationMillis
+) {}
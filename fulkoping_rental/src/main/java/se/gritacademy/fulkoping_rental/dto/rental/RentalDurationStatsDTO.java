@@ -0,0 +1,13 @@
+package se.gritacademy.fulkoping_rental.dto.rental;
+
+import java.util.List;
+
+public record RentalDurationStatsDTO(
+        // null for all vehicle types
+        String vehicleType,
+        // Every percentile is within this fraction of the exact one (0.01 = 1%)
+        double relativeError,
+        DurationPercentilesDTO total,
+        // Months with returns, oldest first
+        List<DurationPercentilesDTO> months
+) {}
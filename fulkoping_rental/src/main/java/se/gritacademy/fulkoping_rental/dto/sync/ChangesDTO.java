@@ -0,0 +1,12 @@
+package se.gritacademy.fulkoping_rental.dto.sync;
+
+import java.util.List;
+
+public record ChangesDTO<T>(
+        long since,
+        // Pass as since for the next request
+        long next,
+        boolean hasMore,
+        List<T> upserts,
+        List<Long> deleted
+) {}
@@ -0,0 +1,31 @@
+package se.gritacademy.fulkoping_rental.dto.user;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+public class CreatePurgeJobDTO {
+
+    // Either a list of user ids...
+    private List<Long> userIds;
+
+    // ...or a dormancy criterion, not both
+    private OffsetDateTime dormantSince;
+
+    public CreatePurgeJobDTO() {}
+
+    public List<Long> getUserIds() {
+        return userIds;
+    }
+
+    public void setUserIds(List<Long> userIds) {
+        this.userIds = userIds;
+    }
+
+    public OffsetDateTime getDormantSince() {
+        return dormantSince;
+    }
+
+    public void setDormantSince(OffsetDateTime dormantSince) {
+        this.dormantSince = dormantSince;
+    }
+}
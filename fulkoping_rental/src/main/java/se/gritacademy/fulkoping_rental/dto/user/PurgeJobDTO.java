@@ -0,0 +1,93 @@
+package se.gritacademy.fulkoping_rental.dto.user;
+
+import java.time.OffsetDateTime;
+import java.util.Map;
+
+public class PurgeJobDTO {
+    private Long id;
+    private String status;
+    private int total;
+    private int processed;
+    private int deleted;
+    private Map<Long, String> failures;
+    private OffsetDateTime submittedAt;
+    private OffsetDateTime finishedAt;
+
+    public PurgeJobDTO() {}
+
+    public PurgeJobDTO(Long id, String status, int total, int processed, int deleted,
+                       Map<Long, String> failures, OffsetDateTime submittedAt, OffsetDateTime finishedAt) {
+        this.id = id;
+        this.status = status;
+        this.total = total;
+        this.processed = processed;
+        this.deleted = deleted;
+        this.failures = failures;
+        this.submittedAt = submittedAt;
+        this.finishedAt = finishedAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public void setTotal(int total) {
+        this.total = total;
+    }
+
+    public int getProcessed() {
+        return processed;
+    }
+
+    public void setProcessed(int processed) {
+        this.processed = processed;
+    }
+
+    public int getDeleted() {
+        return deleted;
+    }
+
+    public void setDeleted(int deleted) {
+        this.deleted = deleted;
+    }
+
+    public Map<Long, String> getFailures() {
+        return failures;
+    }
+
+    public void setFailures(Map<Long, String> failures) {
+        this.failures = failures;
+    }
+
+    public OffsetDateTime getSubmittedAt() {
+        return submittedAt;
+    }
+
+    public void setSubmittedAt(OffsetDateTime submittedAt) {
+        this.submittedAt = submittedAt;
+    }
+
+    public OffsetDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(OffsetDateTime finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+}
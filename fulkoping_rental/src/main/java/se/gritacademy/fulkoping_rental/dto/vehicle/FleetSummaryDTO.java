@@ -0,0 +1,13 @@
+package se.gritacademy.fulkoping_rental.dto.vehicle;
+
+import java.time.OffsetDateTime;
+import java.util.Map;
+
+public record FleetSummaryDTO(
+        // Per vehicle type (Car, Trailer, Truck)
+        Map<String, FleetTypeStatusDTO> types,
+        long rented,
+        long available,
+        // Last time the counters were checked against the database, null before the first check
+        OffsetDateTime reconciledAt
+) {}
@@ -0,0 +1,6 @@
+package se.gritacademy.fulkoping_rental.dto.vehicle;
+
+public record FleetTypeStatusDTO(
+        long rented,
+        long available
+) {}
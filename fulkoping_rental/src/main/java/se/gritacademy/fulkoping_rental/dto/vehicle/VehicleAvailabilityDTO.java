@@ -0,0 +1,10 @@
+package se.gritacademy.fulkoping_rental.dto.vehicle;
+
+public record VehicleAvailabilityDTO(
+        Long vehicleId,
+        // Null for removed vehicles
+        String type,
+        String registrationNumber,
+        boolean rented,
+        boolean removed
+) {}
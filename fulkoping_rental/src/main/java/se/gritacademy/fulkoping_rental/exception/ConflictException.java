@@ -0,0 +1,20 @@
+package se.gritacademy.fulkoping_rental.exception;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Thrown when the request conflicts with the current state of an entity. Sent as 409 Conflict.
+ */
+public class ConflictException extends DomainException {
+
+    private static final ProblemTemplate TEMPLATE = ProblemTemplate.of(HttpStatus.CONFLICT);
+
+    public ConflictException(String message) {
+        super(message);
+    }
+
+    @Override
+    public ProblemTemplate getTemplate() {
+        return TEMPLATE;
+    }
+}
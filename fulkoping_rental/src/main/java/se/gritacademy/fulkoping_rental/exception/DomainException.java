@@ -0,0 +1,19 @@
+package se.gritacademy.fulkoping_rental.exception;
+
+/**
+ * Base class for expected error outcomes (missing entities, business rule conflicts, invalid input).
+ * These are part of normal traffic, so no stack trace is captured and suppression is disabled,
+ * which makes throwing one about as cheap as allocating it.
+ * Mapped to a ProblemDetail by GlobalExceptionHandler using the subclass's cached template.
+ */
+public abstract class DomainException extends RuntimeException {
+
+    protected DomainException(String message) {
+        super(message, null, false, false);
+    }
+
+    /**
+     * Returns the shared template (status and title) used for the error response.
+     */
+    public abstract ProblemTemplate getTemplate();
+}
@@ -0,0 +1,19 @@
+package se.gritacademy.fulkoping_rental.exception;
+
+/**
+ * Thrown when a value for a unique field (like email or registration number) is already taken.
+ * Sent as 409 Conflict with the field name in the response.
+ */
+public class DuplicateValueException extends ConflictException {
+
+    private final String field;
+
+    public DuplicateValueException(String field) {
+        super(field + " already exists");
+        this.field = field;
+    }
+
+    public String getField() {
+        return field;
+    }
+}
@@ -4,13 +4,16 @@ import com.fasterxml.jackson.databind.exc.InvalidFormatException;
 import com.fasterxml.jackson.databind.exc.MismatchedInputException;
 import jakarta.validation.ConstraintViolationException;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ProblemDetail;
 import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 import org.springframework.web.server.ResponseStatusException;
+import se.gritacademy.fulkoping_rental.service.unique.UniqueField;
 
 import java.util.Map;
 
@@ -49,6 +52,24 @@ public class GlobalExceptionHandler {
         return pd;
     }
 
+    /**
+     * Domain exceptions (expected not found, conflict and validation outcomes thrown by services)
+     */
+    @ExceptionHandler(DomainException.class)
+    public ProblemDetail handleDomainException(DomainException ex) {
+        return ex.getTemplate().toProblemDetail(ex.getMessage());
+    }
+
+    /**
+     * Duplicate values for unique fields, with the field name as a property
+     */
+    @ExceptionHandler(DuplicateValueException.class)
+    public ProblemDetail handleDuplicateValueException(DuplicateValueException ex) {
+        ProblemDetail pd = ex.getTemplate().toProblemDetail(ex.getMessage());
+        pd.setProperty("field", ex.getField());
+        return pd;
+    }
+
     /**
      * ResponseStatusException (manual throws)
      */
@@ -79,21 +100,35 @@ public class GlobalExceptionHandler {
     }
 
     /**
-     * Unique constraint violations (duplicate email, registrationNumber, employeeNumber)
+     * Path variables and query parameters of the wrong type (like ?ids=1,a)
+     */
+    @ExceptionHandler(MethodArgumentTypeMismatchException.class)
+    public ProblemDetail handleTypeMismatch(MethodArgumentTypeMismatchException ex) {
+        return createProblemDetail(HttpStatus.BAD_REQUEST, "Bad Request",
+                String.format("Invalid value '%s' for parameter '%s'", ex.getValue(), ex.getName()));
+    }
+
+    /**
+     * Unique constraint violations that got past the unique value filter (like concurrent saves of the same value).
+     * Reported like DuplicateValueException when the violated constraint belongs to a known unique field.
      */
     @ExceptionHandler(DataIntegrityViolationException.class)
     public ProblemDetail handleDataIntegrityViolation(DataIntegrityViolationException ex) {
-        ProblemDetail pd = createProblemDetail(HttpStatus.CONFLICT, "Conflict", "Database constraint violated");
-        String message = ex.getMostSpecificCause().getMessage();
-        if (message != null && message.contains("Duplicate entry")) {
-            String field = "Field";
-            if (message.contains("UKob8kqyqqgmefl0aco34akdtpe")) field = "email";
-            else if (message.contains("admin.UKnqu8w0fjd1yujs0klm1vboyt4")) field = "employeeNumber";
-            else if (message.contains("vehicle.UK6fo0502tpr111m29vqj0bhpa4")) field = "registrationNumber";
-
-            pd = createProblemDetail(HttpStatus.CONFLICT, "Conflict", field + " already exists");
+        if (ex.getCause() instanceof org.hibernate.exception.ConstraintViolationException cve) {
+            var field = UniqueField.fromConstraintName(cve.getConstraintName());
+            if (field.isPresent()) {
+                return handleDuplicateValueException(new DuplicateValueException(field.get().getFieldName()));
+            }
         }
-        return pd;
+        return createProblemDetail(HttpStatus.CONFLICT, "Conflict", "Database constraint violated");
+    }
+
+    /**
+     * Optimistic locking failures and deadlocks from methods that are not retried (see @RetryOnConflict)
+     */
+    @ExceptionHandler(ConcurrencyFailureException.class)
+    public ProblemDetail handleConcurrencyFailure(ConcurrencyFailureException ex) {
+        return createProblemDetail(HttpStatus.CONFLICT, "Conflict", "The resource was modified concurrently, please try again");
     }
 
     /**
@@ -0,0 +1,21 @@
+package se.gritacademy.fulkoping_rental.exception;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Thrown when requested data no longer exists and cannot be reconstructed, like changes
+ * older than the change log retention. Sent as 410 Gone.
+ */
+public class GoneException extends DomainException {
+
+    private static final ProblemTemplate TEMPLATE = ProblemTemplate.of(HttpStatus.GONE);
+
+    public GoneException(String message) {
+        super(message);
+    }
+
+    @Override
+    public ProblemTemplate getTemplate() {
+        return TEMPLATE;
+    }
+}
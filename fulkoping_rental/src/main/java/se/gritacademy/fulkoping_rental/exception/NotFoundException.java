@@ -0,0 +1,20 @@
+package se.gritacademy.fulkoping_rental.exception;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Thrown when the requested entity does not exist. Sent as 404 Not Found.
+ */
+public class NotFoundException extends DomainException {
+
+    private static final ProblemTemplate TEMPLATE = ProblemTemplate.of(HttpStatus.NOT_FOUND);
+
+    public NotFoundException(String message) {
+        super(message);
+    }
+
+    @Override
+    public ProblemTemplate getTemplate() {
+        return TEMPLATE;
+    }
+}
@@ -0,0 +1,42 @@
+package se.gritacademy.fulkoping_rental.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+
+public final class ProblemTemplate {
+
+    private final int status;
+    private final String title;
+
+    private ProblemTemplate(HttpStatus status) {
+        this.status = status.value();
+        this.title = status.getReasonPhrase();
+    }
+
+    /**
+     * Creates the template for a status, titled with its reason phrase like the other error responses.
+     * Templates are immutable and meant to be created once per exception type.
+     */
+    public static ProblemTemplate of(HttpStatus status) {
+        return new ProblemTemplate(status);
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    /**
+     * Creates a new ProblemDetail from the template with the given detail message.
+     * A new instance is needed per response since Spring fills in the request path as 'instance'.
+     */
+    public ProblemDetail toProblemDetail(String detail) {
+        ProblemDetail pd = ProblemDetail.forStatus(status);
+        pd.setTitle(title);
+        pd.setDetail(detail);
+        return pd;
+    }
+}
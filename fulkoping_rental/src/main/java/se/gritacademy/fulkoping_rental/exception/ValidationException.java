@@ -0,0 +1,20 @@
+package se.gritacademy.fulkoping_rental.exception;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Thrown when the request is invalid or not allowed. Sent as 400 Bad Request.
+ */
+public class ValidationException extends DomainException {
+
+    private static final ProblemTemplate TEMPLATE = ProblemTemplate.of(HttpStatus.BAD_REQUEST);
+
+    public ValidationException(String message) {
+        super(message);
+    }
+
+    @Override
+    public ProblemTemplate getTemplate() {
+        return TEMPLATE;
+    }
+}
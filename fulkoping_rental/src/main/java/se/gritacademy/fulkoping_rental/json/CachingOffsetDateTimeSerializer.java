@@ -0,0 +1,110 @@
+package se.gritacademy.fulkoping_rental.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.fasterxml.jackson.datatype.jsr310.ser.OffsetDateTimeSerializer;
+
+import java.io.IOException;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Writes OffsetDateTime values in exactly the format of Jackson's default ISO_OFFSET_DATE_TIME output,
+ * without going through DateTimeFormatter. The "yyyy-MM-ddT" part is cached per local date,
+ * since rentals in one response mostly share a handful of dates; the time and offset are appended directly.
+ * Falls back to the default serializer when dates are written as timestamps.
+ */
+public class CachingOffsetDateTimeSerializer extends StdSerializer<OffsetDateTime> {
+
+    private static final int CACHE_SIZE = 1024;
+
+    // Direct-mapped cache; entries are immutable, so racing writers only cost a recomputation
+    private final DatePrefix[] prefixes = new DatePrefix[CACHE_SIZE];
+
+    public CachingOffsetDateTimeSerializer() {
+        super(OffsetDateTime.class);
+    }
+
+    @Override
+    public void serialize(OffsetDateTime value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        if (provider.isEnabled(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)) {
+            OffsetDateTimeSerializer.INSTANCE.serialize(value, gen, provider);
+            return;
+        }
+        gen.writeString(format(value));
+    }
+
+    /**
+     * Formats the value like DateTimeFormatter.ISO_OFFSET_DATE_TIME:
+     * seconds are always written, the fraction without trailing zeros, and a zero offset as "Z".
+     */
+    public String format(OffsetDateTime value) {
+        int year = value.getYear();
+        if (year < 0 || year > 9999) {
+            return DateTimeFormatter.ISO_OFFSET_DATE_TIME.format(value);
+        }
+        StringBuilder sb = new StringBuilder(35);
+        sb.append(prefix(value));
+        appendTwoDigits(sb, value.getHour());
+        sb.append(':');
+        appendTwoDigits(sb, value.getMinute());
+        sb.append(':');
+        appendTwoDigits(sb, value.getSecond());
+        appendFraction(sb, value.getNano());
+        ZoneOffset offset = value.getOffset();
+        sb.append(offset.getId());
+        return sb.toString();
+    }
+
+    /**
+     * Helper: Returns the cached "yyyy-MM-ddT" text for the value's date, computing it on a miss.
+     */
+    private String prefix(OffsetDateTime value) {
+        long epochDay = value.toLocalDate().toEpochDay();
+        int index = (int) (epochDay & (CACHE_SIZE - 1));
+        DatePrefix cached = prefixes[index];
+        if (cached != null && cached.epochDay() == epochDay) {
+            return cached.text();
+        }
+        StringBuilder sb = new StringBuilder(11);
+        int year = value.getYear();
+        if (year < 1000) {
+            sb.append(year < 10 ? "000" : year < 100 ? "00" : "0");
+        }
+        sb.append(year).append('-');
+        appendTwoDigits(sb, value.getMonthValue());
+        sb.append('-');
+        appendTwoDigits(sb, value.getDayOfMonth());
+        sb.append('T');
+        DatePrefix prefix = new DatePrefix(epochDay, sb.toString());
+        prefixes[index] = prefix;
+        return prefix.text();
+    }
+
+    private static void appendTwoDigits(StringBuilder sb, int value) {
+        sb.append((char) ('0' + value / 10)).append((char) ('0' + value % 10));
+    }
+
+    /**
+     * Helper: Appends ".nnn" with trailing zeros removed, or nothing for a whole second.
+     */
+    private static void appendFraction(StringBuilder sb, int nano) {
+        if (nano == 0) return;
+        int digits = 9;
+        while (nano % 10 == 0) {
+            nano /= 10;
+            digits--;
+        }
+        sb.append('.');
+        String text = Integer.toString(nano);
+        for (int i = text.length(); i < digits; i++) {
+            sb.append('0');
+        }
+        sb.append(text);
+    }
+
+    private record DatePrefix(long epochDay, String text) {}
+}
@@ -0,0 +1,24 @@
+package se.gritacademy.fulkoping_rental.mapper;
+
+import se.gritacademy.fulkoping_rental.dto.apikey.ApiKeyDTO;
+import se.gritacademy.fulkoping_rental.model.apikey.ApiKey;
+
+public class ApiKeyMapper {
+
+    public static ApiKeyDTO toDTO(ApiKey apiKey) {
+        return toDTO(apiKey, null);
+    }
+
+    public static ApiKeyDTO toDTO(ApiKey apiKey, String plainKey) {
+        return new ApiKeyDTO(
+                apiKey.getId(),
+                apiKey.getName(),
+                apiKey.getRole(),
+                apiKey.getCreatedAt(),
+                apiKey.getRevokedAt(),
+                apiKey.getReadLimitPerSecond(),
+                apiKey.getWriteLimitPerSecond(),
+                plainKey
+        );
+    }
+}
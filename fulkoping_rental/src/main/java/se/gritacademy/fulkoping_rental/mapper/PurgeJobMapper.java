@@ -0,0 +1,24 @@
+package se.gritacademy.fulkoping_rental.mapper;
+
+import se.gritacademy.fulkoping_rental.dto.user.PurgeJobDTO;
+import se.gritacademy.fulkoping_rental.service.user.PurgeJob;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+public class PurgeJobMapper {
+
+    public static PurgeJobDTO toDTO(PurgeJob job) {
+        Map<Long, String> failures = new TreeMap<>(job.getFailures());
+        return new PurgeJobDTO(
+                job.getId(),
+                job.getStatus().name(),
+                job.getTotal(),
+                job.getProcessed(),
+                job.getDeleted(),
+                failures,
+                job.getSubmittedAt(),
+                job.getFinishedAt()
+        );
+    }
+}
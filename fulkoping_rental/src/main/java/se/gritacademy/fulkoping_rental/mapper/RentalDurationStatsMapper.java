@@ -0,0 +1,40 @@
+package se.gritacademy.fulkoping_rental.mapper;
+
+import se.gritacademy.fulkoping_rental.dto.rental.DurationPercentilesDTO;
+import se.gritacademy.fulkoping_rental.dto.rental.DurationStatsRebuildDTO;
+import se.gritacademy.fulkoping_rental.dto.rental.RentalDurationStatsDTO;
+import se.gritacademy.fulkoping_rental.service.rental.DurationSketch;
+import se.gritacademy.fulkoping_rental.service.rental.DurationStatsRebuild;
+
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+
+public class RentalDurationStatsMapper {
+
+    public static RentalDurationStatsDTO toDTO(String vehicleType, Map<YearMonth, DurationSketch> sketchesByMonth) {
+        DurationSketch total = new DurationSketch();
+        sketchesByMonth.values().forEach(total::merge);
+        List<DurationPercentilesDTO> months = sketchesByMonth.entrySet().stream()
+                .map(e -> toDTO(e.getKey().toString(), e.getValue()))
+                .toList();
+        return new RentalDurationStatsDTO(vehicleType, DurationSketch.RELATIVE_ERROR, toDTO(null, total), months);
+    }
+
+    public static DurationStatsRebuildDTO toDTO(DurationStatsRebuild rebuild) {
+        return new DurationStatsRebuildDTO(rebuild.sketches(), rebuild.rentals(), rebuild.durationMillis());
+    }
+
+    private static DurationPercentilesDTO toDTO(String month, DurationSketch sketch) {
+        if (sketch.getCount() == 0) {
+            return new DurationPercentilesDTO(month, 0, null, null, null);
+        }
+        return new DurationPercentilesDTO(
+                month,
+                sketch.getCount(),
+                Math.round(sketch.quantile(0.5)),
+                Math.round(sketch.quantile(0.9)),
+                Math.round(sketch.quantile(0.99))
+        );
+    }
+}
@@ -5,16 +5,16 @@ import se.gritacademy.fulkoping_rental.model.rental.Rental;
 
 public class RentalMapper {
     public static RentalDTO toDTO(Rental r) {
-        RentalDTO dto = new RentalDTO();
-        dto.setId(r.getId());
-        dto.setUserId(r.getUser().getId());
-        dto.setUserFirstName(r.getUser().getFirstName());
-        dto.setUserLastName(r.getUser().getLastName());
-        dto.setVehicleId(r.getVehicleId());
-        dto.setVehicleRegistrationNumber(r.getVehicleRegistrationNumber());
-        dto.setVehicleType(r.getVehicleType());
-        dto.setStartDateTime(r.getStartDateTime());
-        dto.setEndDateTime(r.getEndDateTime());
-        return dto;
+        return new RentalDTO(
+                r.getId(),
+                r.getUser().getId(),
+                r.getUser().getFirstName(),
+                r.getUser().getLastName(),
+                r.getVehicleId(),
+                r.getVehicleRegistrationNumber(),
+                r.getVehicleType(),
+                r.getStartDateTime(),
+                r.getEndDateTime()
+        );
     }
-}
\ No newline at end of file
+}
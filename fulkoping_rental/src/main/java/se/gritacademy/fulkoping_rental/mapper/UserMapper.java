@@ -1,9 +1,8 @@
 package se.gritacademy.fulkoping_rental.mapper;
 
-import org.springframework.http.HttpStatus;
-import org.springframework.web.server.ResponseStatusException;
 import se.gritacademy.fulkoping_rental.dto.user.CreateUserDTO;
 import se.gritacademy.fulkoping_rental.dto.user.UserDTO;
+import se.gritacademy.fulkoping_rental.exception.ValidationException;
 import se.gritacademy.fulkoping_rental.model.user.Admin;
 import se.gritacademy.fulkoping_rental.model.user.Customer;
 import se.gritacademy.fulkoping_rental.model.user.User;
@@ -32,7 +31,7 @@ public class UserMapper {
                     null
             );
         } else {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown user type");
+            throw new ValidationException("Unknown user type");
         }
     }
 
@@ -40,7 +39,7 @@ public class UserMapper {
         return switch (dto.getType().toLowerCase()) {
             case "admin" -> new Admin(dto.getFirstName(), dto.getLastName(), dto.getEmail(), dto.getEmployeeNumber());
             case "customer" -> new Customer(dto.getFirstName(), dto.getLastName(), dto.getEmail(), dto.getPhoneNumber());
-            default -> throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown type: " + dto.getType());
+            default -> throw new ValidationException("Unknown type: " + dto.getType());
         };
     }
 }
\ No newline at end of file
@@ -1,9 +1,8 @@
 package se.gritacademy.fulkoping_rental.mapper;
 
-import org.springframework.http.HttpStatus;
-import org.springframework.web.server.ResponseStatusException;
 import se.gritacademy.fulkoping_rental.dto.vehicle.CreateVehicleDTO;
 import se.gritacademy.fulkoping_rental.dto.vehicle.VehicleDTO;
+import se.gritacademy.fulkoping_rental.exception.ValidationException;
 import se.gritacademy.fulkoping_rental.model.vehicle.*;
 
 public class VehicleMapper {
@@ -46,7 +45,7 @@ public class VehicleMapper {
                     truck.getDrivingLicenseLevel()
             );
         } else {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown vehicle type");
+            throw new ValidationException("Unknown vehicle type");
         }
     }
 
@@ -55,7 +54,7 @@ public class VehicleMapper {
             case "car" -> new Car(dto.getRegistrationNumber(), dto.getBrand(), dto.getModel(), dto.isRented(), dto.getSeatCount());
             case "trailer" -> new Trailer(dto.getRegistrationNumber(), dto.getBrand(), dto.getModel(), dto.isRented(), dto.getMaxWeight());
             case "truck" -> new Truck(dto.getRegistrationNumber(), dto.getBrand(), dto.getModel(), dto.isRented(), dto.getDrivingLicenseLevel());
-            default -> throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown type: " + dto.getType());
+            default -> throw new ValidationException("Unknown type: " + dto.getType());
         };
     }
 }
\ No newline at end of file
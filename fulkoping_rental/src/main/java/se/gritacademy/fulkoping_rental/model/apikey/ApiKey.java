@@ -0,0 +1,114 @@
+package se.gritacademy.fulkoping_rental.model.apikey;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+
+import java.time.OffsetDateTime;
+
+@Entity
+@Table(name = "api_key")
+public class ApiKey {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @NotBlank(message = "Name must not be blank")
+    private String name;
+
+    // SHA-256 of the key, hex encoded. The plain key is never stored.
+    @NotBlank
+    @Column(unique = true, length = 64)
+    private String keyHash;
+
+    @NotBlank
+    private String role;
+
+    @NotNull
+    private OffsetDateTime createdAt;
+
+    private OffsetDateTime revokedAt;
+
+    // Optional per-key rate limits, role defaults apply when null
+    private Integer readLimitPerSecond;
+
+    private Integer writeLimitPerSecond;
+
+    public ApiKey() {}
+
+    public ApiKey(String name, String keyHash, String role, OffsetDateTime createdAt) {
+        this.name = name;
+        this.keyHash = keyHash;
+        this.role = role;
+        this.createdAt = createdAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getKeyHash() {
+        return keyHash;
+    }
+
+    public void setKeyHash(String keyHash) {
+        this.keyHash = keyHash;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    public void setRole(String role) {
+        this.role = role;
+    }
+
+    public OffsetDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(OffsetDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public OffsetDateTime getRevokedAt() {
+        return revokedAt;
+    }
+
+    public void setRevokedAt(OffsetDateTime revokedAt) {
+        this.revokedAt = revokedAt;
+    }
+
+    public boolean isRevoked() {
+        return revokedAt != null;
+    }
+
+    public Integer getReadLimitPerSecond() {
+        return readLimitPerSecond;
+    }
+
+    public void setReadLimitPerSecond(Integer readLimitPerSecond) {
+        this.readLimitPerSecond = readLimitPerSecond;
+    }
+
+    public Integer getWriteLimitPerSecond() {
+        return writeLimitPerSecond;
+    }
+
+    public void setWriteLimitPerSecond(Integer writeLimitPerSecond) {
+        this.writeLimitPerSecond = writeLimitPerSecond;
+    }
+}
@@ -2,11 +2,14 @@ package se.gritacademy.fulkoping_rental.model.rental;
 
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
+import org.hibernate.annotations.SQLRestriction;
 import se.gritacademy.fulkoping_rental.model.user.User;
 
 import java.time.OffsetDateTime;
 
 @Entity
+// Soft deleted rentals (deleted_at set) are hidden from every query until SoftDeleteCleanup removes them
+@SQLRestriction("deleted_at is null")
 @Table(name = "rental")
 public class Rental {
 
@@ -31,6 +34,9 @@ public class Rental {
 
     private OffsetDateTime endDateTime;
 
+    @Version
+    private long version;
+
     public Rental() {}
 
     public Rental(User user, Long vehicleId, String vehicleRegistrationNumber, String vehicleType, OffsetDateTime startDateTime, OffsetDateTime endDateTime) {
@@ -97,4 +103,8 @@ public class Rental {
     public void setEndDateTime(OffsetDateTime endDateTime) {
         this.endDateTime = endDateTime;
     }
+
+    public long getVersion() {
+        return version;
+    }
 }
\ No newline at end of file
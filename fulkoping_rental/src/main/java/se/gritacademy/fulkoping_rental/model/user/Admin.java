@@ -1,16 +1,17 @@
 package se.gritacademy.fulkoping_rental.model.user;
 
-import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 import jakarta.validation.constraints.NotBlank;
+import org.hibernate.annotations.DynamicUpdate;
 
 @Entity
-@Table(name = "admin")
+@DynamicUpdate
+@Table(name = "admin", uniqueConstraints = @UniqueConstraint(name = "uk_admin_employee_number", columnNames = "employee_number"))
 public class Admin extends User {
 
     @NotBlank(message = "Employee number must not be blank")
-    @Column(unique = true)
     private String employeeNumber;
 
     public Admin() {}
@@ -2,9 +2,14 @@ package se.gritacademy.fulkoping_rental.model.user;
 
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.SQLRestriction;
 
 @Entity
-@Table(name = "user")
+@DynamicUpdate
+// Soft deleted users (deleted_at set) are hidden from every query until SoftDeleteCleanup removes them
+@SQLRestriction("deleted_at is null")
+@Table(name = "user", uniqueConstraints = @UniqueConstraint(name = "uk_user_email", columnNames = "email"))
 @Inheritance(strategy = InheritanceType.JOINED)
 public abstract class User {
 
@@ -22,7 +27,6 @@ public abstract class User {
 
     @NotBlank(message = "Email must not be blank")
     @Email(message = "Email must be valid")
-    @Column(unique = true)
     private String email;
 
     public User() {}
@@ -3,8 +3,10 @@ package se.gritacademy.fulkoping_rental.model.vehicle;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Table;
 import jakarta.validation.constraints.NotBlank;
+import org.hibernate.annotations.DynamicUpdate;
 
 @Entity
+@DynamicUpdate
 @Table(name = "truck")
 public class Truck extends Vehicle {
 
@@ -2,9 +2,14 @@ package se.gritacademy.fulkoping_rental.model.vehicle;
 
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.SQLRestriction;
 
 @Entity
-@Table(name = "vehicle")
+@DynamicUpdate
+// Soft deleted vehicles (deleted_at set) are hidden from every query until SoftDeleteCleanup removes them
+@SQLRestriction("deleted_at is null")
+@Table(name = "vehicle", uniqueConstraints = @UniqueConstraint(name = "uk_vehicle_registration_number", columnNames = "registration_number"))
 @Inheritance(strategy = InheritanceType.JOINED)
 public abstract class Vehicle {
 
@@ -13,7 +18,6 @@ public abstract class Vehicle {
     private Long id;
 
     @NotBlank(message = "Registration number must not be blank")
-    @Column(unique = true)
     private String registrationNumber;
 
     @NotBlank(message = "Brand must not be blank")
@@ -24,6 +28,9 @@ public abstract class Vehicle {
 
     private boolean isRented = false;
 
+    @Version
+    private long version;
+
     public Vehicle(String registrationNumber, String brand, String model, boolean isRented) {
         this.registrationNumber = registrationNumber;
         this.brand = brand;
@@ -72,4 +79,8 @@ public abstract class Vehicle {
     public void setRented(boolean rented) {
         isRented = rented;
     }
+
+    public long getVersion() {
+        return version;
+    }
 }
\ No newline at end of file
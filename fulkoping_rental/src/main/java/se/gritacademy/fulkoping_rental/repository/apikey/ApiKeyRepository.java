@@ -0,0 +1,10 @@
+package se.gritacademy.fulkoping_rental.repository.apikey;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import se.gritacademy.fulkoping_rental.model.apikey.ApiKey;
+
+import java.util.Optional;
+
+public interface ApiKeyRepository extends JpaRepository<ApiKey, Long> {
+    Optional<ApiKey> findByKeyHash(String keyHash);
+}
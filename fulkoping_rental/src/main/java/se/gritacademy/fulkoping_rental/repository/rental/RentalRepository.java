@@ -1,13 +1,50 @@
 package se.gritacademy.fulkoping_rental.repository.rental;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import se.gritacademy.fulkoping_rental.model.rental.Rental;
 
+import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface RentalRepository extends JpaRepository<Rental, Long> {
+    // Lookups that end up in RentalDTOs fetch the user in the same query
+    @EntityGraph(attributePaths = "user")
+    Optional<Rental> findById(Long id);
+
+    @EntityGraph(attributePaths = "user")
+    List<Rental> findAll();
+
+    @EntityGraph(attributePaths = "user")
+    List<Rental> findAllById(Iterable<Long> ids);
+
+    @EntityGraph(attributePaths = "user")
     List<Rental> findByUserId(Long userId);
+
+    @EntityGraph(attributePaths = "user")
     List<Rental> findByVehicleId(Long vehicleId);
-    List<Rental> findByUserIdAndEndDateTimeIsNotNull(Long userId);
-    List<Rental> findByVehicleIdAndEndDateTimeIsNotNull(Long vehicleId);
-}
\ No newline at end of file
+
+    boolean existsByUserIdAndEndDateTimeIsNull(Long userId);
+    boolean existsByVehicleIdAndEndDateTimeIsNull(Long vehicleId);
+
+    @Query("select distinct r.user.id from Rental r where r.user.id in :userIds and r.endDateTime is null")
+    List<Long> findUserIdsWithActiveRental(@Param("userIds") Collection<Long> userIds);
+
+    // Tombstones all rentals of a vehicle or user with one statement; SoftDeleteCleanup removes them later
+    @Modifying
+    @Query(value = "update rental set deleted_at = :now where vehicle_id = :vehicleId and deleted_at is null", nativeQuery = true)
+    int softDeleteByVehicleId(@Param("vehicleId") Long vehicleId, @Param("now") OffsetDateTime now);
+
+    @Modifying
+    @Query(value = "update rental set deleted_at = :now where user_id = :userId and deleted_at is null", nativeQuery = true)
+    int softDeleteByUserId(@Param("userId") Long userId, @Param("now") OffsetDateTime now);
+
+    @Modifying
+    @Query(value = "update rental set deleted_at = :now where user_id in (:userIds) and deleted_at is null", nativeQuery = true)
+    int softDeleteByUserIds(@Param("userIds") Collection<Long> userIds, @Param("now") OffsetDateTime now);
+}
@@ -1,6 +1,64 @@
 package se.gritacademy.fulkoping_rental.repository.user;
 
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import se.gritacademy.fulkoping_rental.model.user.User;
 
-public interface UserRepository extends JpaRepository<User, Long> {}
\ No newline at end of file
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface UserRepository extends JpaRepository<User, Long> {
+
+    @Query("""
+            select c.id from Customer c
+            where exists (select r.id from Rental r where r.user = c)
+              and not exists (select r.id from Rental r where r.user = c
+                              and (r.endDateTime is null or r.startDateTime >= :since))
+            order by c.id""")
+    List<Long> findDormantCustomerIds(@Param("since") OffsetDateTime since);
+
+    // Native, so soft deleted users are counted too: their email stays taken until SoftDeleteCleanup removes them
+    @Query(value = """
+            select count(*) from user
+            where email = :email and (:excludeId is null or id <> :excludeId)""", nativeQuery = true)
+    long countOtherWithEmailIncludingDeleted(@Param("email") String email, @Param("excludeId") Long excludeId);
+
+    @Query(value = """
+            select count(*) from admin
+            where employee_number = :employeeNumber and (:excludeId is null or id <> :excludeId)""", nativeQuery = true)
+    long countOtherAdminsWithEmployeeNumberIncludingDeleted(@Param("employeeNumber") String employeeNumber,
+                                                            @Param("excludeId") Long excludeId);
+
+    // Reads the user with a shared lock, so a concurrent soft delete either waits for the caller's transaction
+    // or has committed and the user is not found
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    @Query("select u from User u where u.id = :id")
+    Optional<User> findByIdForShare(@Param("id") Long id);
+
+    // Tombstones the user unless they have an active rental, checked in the same statement.
+    // Returns the number of rows updated.
+    @Modifying
+    @Query(value = """
+            update user set deleted_at = :now
+            where id = :id and deleted_at is null
+              and not exists (select 1 from rental r
+                              where r.user_id = :id and r.end_date_time is null and r.deleted_at is null)""",
+            nativeQuery = true)
+    int softDeleteUnlessRenting(@Param("id") Long id, @Param("now") OffsetDateTime now);
+
+    // Reads the users with an exclusive lock, so no rental can be booked for them until the caller commits
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select u from User u where u.id in :ids")
+    List<User> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
+
+    // Tombstones the given users; callers have locked them and checked for active rentals first
+    @Modifying
+    @Query(value = "update user set deleted_at = :now where id in (:ids) and deleted_at is null", nativeQuery = true)
+    int softDeleteAllById(@Param("ids") Collection<Long> ids, @Param("now") OffsetDateTime now);
+}
@@ -1,7 +1,33 @@
 package se.gritacademy.fulkoping_rental.repository.vehicle;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import se.gritacademy.fulkoping_rental.model.vehicle.Vehicle;
 
+import java.time.OffsetDateTime;
 
-public interface VehicleRepository extends JpaRepository<Vehicle, Long> {}
+
+public interface VehicleRepository extends JpaRepository<Vehicle, Long> {
+
+    // Native, so soft deleted vehicles are counted too: their registration number stays taken until
+    // SoftDeleteCleanup removes them
+    @Query(value = """
+            select count(*) from vehicle
+            where registration_number = :registrationNumber and (:excludeId is null or id <> :excludeId)""",
+            nativeQuery = true)
+    long countOtherWithRegistrationNumberIncludingDeleted(@Param("registrationNumber") String registrationNumber,
+                                                          @Param("excludeId") Long excludeId);
+
+    // Tombstones the vehicle unless it has an active rental, checked in the same statement so a concurrent
+    // booking either commits first (no row updated) or fails on the version. Returns the number of rows updated.
+    @Modifying
+    @Query(value = """
+            update vehicle set deleted_at = :now, version = version + 1
+            where id = :id and deleted_at is null
+              and not exists (select 1 from rental r
+                              where r.vehicle_id = :id and r.end_date_time is null and r.deleted_at is null)""",
+            nativeQuery = true)
+    int softDeleteUnlessRented(@Param("id") Long id, @Param("now") OffsetDateTime now);
+}
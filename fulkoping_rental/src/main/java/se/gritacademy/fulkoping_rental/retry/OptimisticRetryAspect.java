@@ -0,0 +1,75 @@
+package se.gritacademy.fulkoping_rental.retry;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import se.gritacademy.fulkoping_rental.exception.ConflictException;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Implements @RetryOnConflict. Ordered just before the transaction interceptor (which has the lowest precedence),
+ * so each attempt runs (and commits or rolls back) in its own transaction.
+ */
+@Aspect
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 1)
+public class OptimisticRetryAspect {
+
+    private static final Logger logger = LoggerFactory.getLogger(OptimisticRetryAspect.class);
+
+    private final int maxAttempts;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+    private final Counter retried;
+    private final Counter exhausted;
+
+    public OptimisticRetryAspect(MeterRegistry meterRegistry,
+                                 @Value("${app.optimistic-retry.max-attempts:4}") int maxAttempts,
+                                 @Value("${app.optimistic-retry.initial-backoff-ms:5}") long initialBackoffMillis,
+                                 @Value("${app.optimistic-retry.max-backoff-ms:100}") long maxBackoffMillis) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.initialBackoffMillis = Math.max(1, initialBackoffMillis);
+        this.maxBackoffMillis = Math.max(this.initialBackoffMillis, maxBackoffMillis);
+        this.retried = meterRegistry.counter("app.optimistic.conflicts", "outcome", "retried");
+        this.exhausted = meterRegistry.counter("app.optimistic.conflicts", "outcome", "exhausted");
+    }
+
+    /**
+     * Runs the method and retries it on optimistic locking failures (and on deadlocks, which concurrent
+     * status changes can also run into), waiting a random time
+     * between half and all of an exponentially growing backoff so that competing requests spread out.
+     * Throws 409 when all attempts failed.
+     */
+    @Around("@annotation(retryOnConflict)")
+    public Object retry(ProceedingJoinPoint joinPoint, RetryOnConflict retryOnConflict) throws Throwable {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return joinPoint.proceed();
+        }
+        long backoff = initialBackoffMillis;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return joinPoint.proceed();
+            } catch (ConcurrencyFailureException e) {
+                if (attempt >= maxAttempts) {
+                    exhausted.increment();
+                    logger.warn("{} still conflicting after {} attempts", joinPoint.getSignature().toShortString(), attempt);
+                    throw new ConflictException(retryOnConflict.message());
+                }
+                retried.increment();
+                Thread.sleep(ThreadLocalRandom.current().nextLong(backoff / 2, backoff + 1));
+                backoff = Math.min(backoff * 2, maxBackoffMillis);
+            }
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package se.gritacademy.fulkoping_rental.retry;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Retries a @Transactional service method in a new transaction when it fails because
+ * an entity it changed was updated concurrently (optimistic locking, see @Version on Vehicle and Rental)
+ * or it lost a deadlock against another transaction.
+ * Every attempt re-reads the entities, so business rules are checked against the latest state.
+ * If the conflict is still there after the last attempt, 409 is sent with the given message.
+ * Has no effect when called inside an existing transaction; the outermost annotated method retries instead.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RetryOnConflict {
+
+    String message() default "The resource was modified concurrently, please try again";
+}
@@ -0,0 +1,85 @@
+package se.gritacademy.fulkoping_rental.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Component
+public class AdaptiveConcurrencyLimiter {
+
+    private final boolean enabled;
+    private final int retryAfterSeconds;
+    private final GradientLimit readLimit;
+    private final GradientLimit writeLimit;
+    private final Counter readRejected;
+    private final Counter writeRejected;
+
+    public AdaptiveConcurrencyLimiter(MeterRegistry meterRegistry,
+                                      @Value("${app.concurrency-limit.enabled:true}") boolean enabled,
+                                      @Value("${app.concurrency-limit.retry-after-seconds:1}") int retryAfterSeconds,
+                                      @Value("${app.concurrency-limit.tolerance:2.0}") double tolerance,
+                                      @Value("${app.concurrency-limit.smoothing:0.2}") double smoothing,
+                                      @Value("${app.concurrency-limit.read.initial-limit:20}") int readInitial,
+                                      @Value("${app.concurrency-limit.read.min-limit:4}") int readMin,
+                                      @Value("${app.concurrency-limit.read.max-limit:200}") int readMax,
+                                      @Value("${app.concurrency-limit.write.initial-limit:10}") int writeInitial,
+                                      @Value("${app.concurrency-limit.write.min-limit:2}") int writeMin,
+                                      @Value("${app.concurrency-limit.write.max-limit:100}") int writeMax) {
+        this.enabled = enabled;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.readLimit = new GradientLimit(readInitial, readMin, readMax, tolerance, smoothing);
+        this.writeLimit = new GradientLimit(writeInitial, writeMin, writeMax, tolerance, smoothing);
+        this.readRejected = registerMeters(meterRegistry, "read", readLimit);
+        this.writeRejected = registerMeters(meterRegistry, "write", writeLimit);
+    }
+
+    /**
+     * Starts a read or write request if its limit allows.
+     * Returns 0 if the request must be rejected, otherwise the value to pass to release.
+     * Always allows the request (returning -1) when the limiter is disabled.
+     */
+    public int tryAcquire(boolean write) {
+        if (!enabled) return -1;
+        int inFlight = limit(write).tryAcquire();
+        if (inFlight == 0) {
+            (write ? writeRejected : readRejected).increment();
+        }
+        return inFlight;
+    }
+
+    /**
+     * Ends a request allowed by tryAcquire. The latency of completed requests adapts the limit;
+     * requests that were not completed (like an SSE stream handed over to async processing) only free their slot.
+     */
+    public void release(boolean write, int inFlightAtStart, long rttNanos, boolean completed, boolean failed) {
+        if (inFlightAtStart < 0) return;
+        if (completed) {
+            limit(write).release(inFlightAtStart, rttNanos, failed);
+        } else {
+            limit(write).release();
+        }
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    private GradientLimit limit(boolean write) {
+        return write ? writeLimit : readLimit;
+    }
+
+    /**
+     * Helper: Registers the current limit and in-flight gauges of one kind of request and returns its rejection counter.
+     */
+    private static Counter registerMeters(MeterRegistry meterRegistry, String kind, GradientLimit limit) {
+        Gauge.builder("app.concurrency-limit.limit", limit, GradientLimit::getLimit)
+                .tag("kind", kind)
+                .register(meterRegistry);
+        Gauge.builder("app.concurrency-limit.in-flight", limit, GradientLimit::getInFlight)
+                .tag("kind", kind)
+                .register(meterRegistry);
+        return meterRegistry.counter("app.concurrency-limit.rejected", "kind", kind);
+    }
+}
@@ -4,13 +4,11 @@ import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.util.List;
 
 public class ApiKeyAuthFilter extends OncePerRequestFilter {
 
@@ -22,7 +20,7 @@ public class ApiKeyAuthFilter extends OncePerRequestFilter {
 
     /**
      * Intercepts each HTTP request to check for a valid API key,
-     * validates the key, sets the authentication context,
+     * resolves the key to its cached Authentication, sets the authentication context,
      * and continues the filter chain.
      * Skips API key check for Swagger UI and OpenAPI docs.
      * Sends 401 if key is missing or invalid.
@@ -41,14 +39,12 @@ public class ApiKeyAuthFilter extends OncePerRequestFilter {
             sendError(response, HttpServletResponse.SC_UNAUTHORIZED, "Missing API key");
             return;
         }
-        String role;
-        try {
-            role = validateApiKey(apiKey);
-        } catch (Exception e) {
+        Authentication authentication = apiKeyService.authenticate(apiKey);
+        if (authentication == null) {
             sendError(response, HttpServletResponse.SC_UNAUTHORIZED, "Invalid API key");
             return;
         }
-        setAuthentication(apiKey, role);
+        SecurityContextHolder.getContext().setAuthentication(authentication);
         filterChain.doFilter(request, response);
     }
 
@@ -69,28 +65,6 @@ public class ApiKeyAuthFilter extends OncePerRequestFilter {
         return (apiKey != null && !apiKey.isEmpty()) ? apiKey : null;
     }
 
-    /**
-     * Validates the API key and returns the corresponding role.
-     * Throws exception if the key is invalid.
-     */
-    private String validateApiKey(String apiKey) {
-        String role = apiKeyService.getRoleFromApiKey(apiKey);
-        if (role == null) {
-            throw new RuntimeException("Invalid API key");
-        }
-        return role;
-    }
-
-    /**
-     * Sets the authentication object in the SecurityContext.
-     */
-    private void setAuthentication(String apiKey, String role) {
-        var auth = new UsernamePasswordAuthenticationToken(
-                apiKey, null, List.of(new SimpleGrantedAuthority("ROLE_" + role))
-        );
-        SecurityContextHolder.getContext().setAuthentication(auth);
-    }
-
     /**
      * Sends an error response with the given status and message.
      */
@@ -0,0 +1,18 @@
+package se.gritacademy.fulkoping_rental.security;
+
+import org.springframework.security.core.AuthenticatedPrincipal;
+
+/**
+ * Principal for an authenticated API key.
+ * The id is null for keys configured in application.properties.
+ * Rate limits are null when the role defaults apply.
+ */
+public record ApiKeyPrincipal(Long id, String name, String role,
+                              Integer readLimitPerSecond, Integer writeLimitPerSecond)
+        implements AuthenticatedPrincipal {
+
+    @Override
+    public String getName() {
+        return name;
+    }
+}
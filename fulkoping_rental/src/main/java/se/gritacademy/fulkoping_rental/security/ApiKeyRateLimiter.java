@@ -0,0 +1,68 @@
+package se.gritacademy.fulkoping_rental.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Component
+public class ApiKeyRateLimiter {
+
+    private final boolean enabled;
+    private final int burstSeconds;
+    private final Map<String, int[]> roleLimits;
+    private final Map<ApiKeyPrincipal, Buckets> buckets = new ConcurrentHashMap<>();
+
+    public ApiKeyRateLimiter(@Value("${app.rate-limit.enabled:true}") boolean enabled,
+                             @Value("${app.rate-limit.burst-seconds:2}") int burstSeconds,
+                             @Value("${app.rate-limit.admin.read-per-second:200}") int adminRead,
+                             @Value("${app.rate-limit.admin.write-per-second:50}") int adminWrite,
+                             @Value("${app.rate-limit.user.read-per-second:100}") int userRead,
+                             @Value("${app.rate-limit.user.write-per-second:10}") int userWrite) {
+        this.enabled = enabled;
+        this.burstSeconds = burstSeconds;
+        this.roleLimits = Map.of(
+                "ADMIN", new int[]{adminRead, adminWrite},
+                "USER", new int[]{userRead, userWrite});
+    }
+
+    /**
+     * Takes one token from the key's read or write bucket.
+     * Returns 0 if the request may proceed, otherwise the number of milliseconds until it may be retried.
+     */
+    public long tryAcquire(ApiKeyPrincipal principal, boolean write) {
+        if (!enabled) return 0;
+        Buckets keyBuckets = buckets.get(principal);
+        if (keyBuckets == null) {
+            keyBuckets = buckets.computeIfAbsent(principal, this::createBuckets);
+        }
+        return (write ? keyBuckets.write() : keyBuckets.read()).tryAcquire();
+    }
+
+    /**
+     * Drops the buckets of a stored key, called once its revocation has committed
+     * so revoked and rotated keys do not keep their buckets forever.
+     */
+    public void evict(Long keyId) {
+        buckets.keySet().removeIf(principal -> keyId.equals(principal.id()));
+    }
+
+    /**
+     * Helper: Creates the buckets for a key, using the key's own limits where set
+     * and the role defaults otherwise. Each bucket holds burst-seconds worth of tokens.
+     */
+    private Buckets createBuckets(ApiKeyPrincipal principal) {
+        int[] defaults = roleLimits.getOrDefault(principal.role(), new int[]{1, 1});
+        int read = principal.readLimitPerSecond() != null ? principal.readLimitPerSecond() : defaults[0];
+        int write = principal.writeLimitPerSecond() != null ? principal.writeLimitPerSecond() : defaults[1];
+        return new Buckets(newBucket(read), newBucket(write));
+    }
+
+    private TokenBucket newBucket(int ratePerSecond) {
+        int capacity = (int) Math.min((long) ratePerSecond * burstSeconds, TokenBucket.MAX_CAPACITY);
+        return new TokenBucket(ratePerSecond, Math.max(capacity, 1));
+    }
+
+    private record Buckets(TokenBucket read, TokenBucket write) {}
+}
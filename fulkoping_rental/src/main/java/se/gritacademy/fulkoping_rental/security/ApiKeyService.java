@@ -1,25 +1,246 @@
 package se.gritacademy.fulkoping_rental.security;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import se.gritacademy.fulkoping_rental.exception.NotFoundException;
+import se.gritacademy.fulkoping_rental.model.apikey.ApiKey;
+import se.gritacademy.fulkoping_rental.repository.apikey.ApiKeyRepository;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.OffsetDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class ApiKeyService {
 
-    @Value("${app.api-key.user}")
-    private String userKey;
+    private static final Logger logger = LoggerFactory.getLogger(ApiKeyService.class);
+    private static final String KEY_PREFIX = "fk_";
+    // Cloned per hash: a ThreadLocal cache would be rebuilt for every request on virtual threads
+    private static final MessageDigest SHA_256 = newDigest();
+
+    private final ApiKeyRepository apiKeyRepository;
+    private final ApiKeyRateLimiter rateLimiter;
+    private final Map<String, Authentication> configuredKeys;
+    // Valid keys only, so its size is bounded by the stored keys and unknown keys cannot push them out
+    private final Map<String, CachedAuthentication> cache = new ConcurrentHashMap<>();
+    // Unknown and revoked keys, least recently used evicted first
+    private final Map<String, Long> negativeCache;
+    private final long cacheTtlNanos;
+    private final int cacheMaxSize;
+    private final SecureRandom random = new SecureRandom();
 
-    @Value("${app.api-key.admin}")
-    private String adminKey;
+    public ApiKeyService(ApiKeyRepository apiKeyRepository,
+                         ApiKeyRateLimiter rateLimiter,
+                         @Value("${app.api-key.user}") String userKey,
+                         @Value("${app.api-key.admin}") String adminKey,
+                         @Value("${app.api-key.cache-ttl-seconds:30}") long cacheTtlSeconds,
+                         @Value("${app.api-key.cache-max-size:10000}") int cacheMaxSize,
+                         @Value("${app.api-key.negative-cache-max-size:1000}") int negativeCacheMaxSize) {
+        this.apiKeyRepository = apiKeyRepository;
+        this.rateLimiter = rateLimiter;
+        this.configuredKeys = Map.of(
+                hash(adminKey), buildAuthentication(new ApiKeyPrincipal(null, "config-admin", "ADMIN", null, null)),
+                hash(userKey), buildAuthentication(new ApiKeyPrincipal(null, "config-user", "USER", null, null)));
+        this.cacheTtlNanos = TimeUnit.SECONDS.toNanos(cacheTtlSeconds);
+        this.cacheMaxSize = cacheMaxSize;
+        this.negativeCache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                return size() > negativeCacheMaxSize;
+            }
+        };
+    }
 
     /**
-     * Returns the role associated with the given API key.
-     * Returns null if the key is invalid or missing.
+     * Returns the prebuilt Authentication for the given API key, or null if the key is invalid, revoked or missing.
+     * The key is hashed once and looked up in the configured keys and the verification caches;
+     * the database is only queried on a cache miss. Valid keys and invalid keys are cached separately,
+     * so a flood of random keys only evicts other invalid keys. Cached results expire after
+     * the configured TTL, which bounds how long a revocation on another node takes to propagate.
      */
-    public String getRoleFromApiKey(String apiKey) {
+    public Authentication authenticate(String apiKey) {
         if (apiKey == null) return null;
-        if (apiKey.equals(adminKey)) return "ADMIN";
-        else if (apiKey.equals(userKey)) return "USER";
-        return null;
+        String keyHash = hash(apiKey);
+        Authentication configured = configuredKeys.get(keyHash);
+        if (configured != null) return configured;
+        long now = System.nanoTime();
+        CachedAuthentication cached = cache.get(keyHash);
+        if (cached != null && now - cached.expiresAt() < 0) {
+            return cached.authentication();
+        }
+        if (isCachedAsInvalid(keyHash, now)) {
+            return null;
+        }
+        Authentication authentication = loadAuthentication(keyHash);
+        if (authentication == null) {
+            // A key revoked on another instance also gives up its rate limit buckets here
+            if (cached != null && cached.authentication().getPrincipal() instanceof ApiKeyPrincipal principal
+                    && principal.id() != null) {
+                rateLimiter.evict(principal.id());
+            }
+            cache.remove(keyHash);
+            synchronized (negativeCache) {
+                negativeCache.put(keyHash, now + cacheTtlNanos);
+            }
+        } else {
+            if (cache.size() >= cacheMaxSize) {
+                cache.values().removeIf(entry -> now - entry.expiresAt() >= 0);
+            }
+            if (cache.size() < cacheMaxSize) {
+                cache.put(keyHash, new CachedAuthentication(authentication, now + cacheTtlNanos));
+            }
+        }
+        return authentication;
+    }
+
+    /**
+     * Returns all stored API keys, including revoked ones.
+     */
+    public List<ApiKey> getAllKeys() {
+        return apiKeyRepository.findAll();
     }
-}
\ No newline at end of file
+
+    /**
+     * Creates a new API key for an integration and stores only its hash.
+     * Rate limits are optional; the role defaults apply when they are null.
+     * The plain key is returned once and cannot be recovered later.
+     */
+    @Transactional
+    public IssuedApiKey createKey(String name, String role, Integer readLimitPerSecond, Integer writeLimitPerSecond) {
+        String plainKey = generateKey();
+        ApiKey apiKey = new ApiKey(name, hash(plainKey), role, OffsetDateTime.now());
+        apiKey.setReadLimitPerSecond(readLimitPerSecond);
+        apiKey.setWriteLimitPerSecond(writeLimitPerSecond);
+        ApiKey saved = apiKeyRepository.save(apiKey);
+        logger.info("Created API key (id={}) for {} with role {}", saved.getId(), name, role);
+        return new IssuedApiKey(saved, plainKey);
+    }
+
+    /**
+     * Revokes the key and evicts it from the local cache and the rate limiter once the revocation has committed,
+     * so a concurrent authentication cannot cache the key again from the not yet revoked row.
+     * Other instances stop accepting it once their cache entry expires.
+     */
+    @Transactional
+    public ApiKey revokeKey(Long id) {
+        ApiKey apiKey = getKey(id);
+        if (!apiKey.isRevoked()) {
+            apiKey.setRevokedAt(OffsetDateTime.now());
+            apiKeyRepository.save(apiKey);
+            logger.info("Revoked API key (id={}) for {}", id, apiKey.getName());
+        }
+        String keyHash = apiKey.getKeyHash();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                cache.remove(keyHash);
+                rateLimiter.evict(id);
+            }
+        });
+        return apiKey;
+    }
+
+    /**
+     * Revokes the key and issues a new one with the same name, role and rate limits.
+     */
+    @Transactional
+    public IssuedApiKey rotateKey(Long id) {
+        ApiKey old = revokeKey(id);
+        return createKey(old.getName(), old.getRole(), old.getReadLimitPerSecond(), old.getWriteLimitPerSecond());
+    }
+
+    /**
+     * Fetches a stored API key or throws 404 if not found.
+     */
+    public ApiKey getKey(Long id) {
+        return apiKeyRepository.findById(id)
+                .orElseThrow(() -> new NotFoundException("API key not found with id " + id));
+    }
+
+    /**
+     * Helper: Returns true if the key was found invalid within the TTL.
+     */
+    private boolean isCachedAsInvalid(String keyHash, long now) {
+        synchronized (negativeCache) {
+            Long expiresAt = negativeCache.get(keyHash);
+            if (expiresAt == null) return false;
+            if (now - expiresAt < 0) return true;
+            negativeCache.remove(keyHash);
+            return false;
+        }
+    }
+
+    /**
+     * Helper: Loads the key by hash and builds the Authentication for a valid, non-revoked key.
+     */
+    private Authentication loadAuthentication(String keyHash) {
+        return apiKeyRepository.findByKeyHash(keyHash)
+                .filter(k -> !k.isRevoked())
+                .map(k -> buildAuthentication(new ApiKeyPrincipal(
+                        k.getId(), k.getName(), k.getRole(), k.getReadLimitPerSecond(), k.getWriteLimitPerSecond())))
+                .orElse(null);
+    }
+
+    /**
+     * Helper: Builds an authenticated token for the given principal with its role as authority.
+     */
+    private static Authentication buildAuthentication(ApiKeyPrincipal principal) {
+        return UsernamePasswordAuthenticationToken.authenticated(
+                principal, null, List.of(new SimpleGrantedAuthority("ROLE_" + principal.role())));
+    }
+
+    /**
+     * Helper: Generates a random 256-bit key.
+     */
+    private String generateKey() {
+        byte[] bytes = new byte[32];
+        random.nextBytes(bytes);
+        return KEY_PREFIX + Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    /**
+     * Helper: Returns the hex encoded SHA-256 of the key.
+     * A fast hash is sufficient since generated keys carry 256 bits of entropy.
+     */
+    static String hash(String apiKey) {
+        MessageDigest digest = cloneDigest();
+        return HexFormat.of().formatHex(digest.digest(apiKey.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static MessageDigest cloneDigest() {
+        try {
+            return (MessageDigest) SHA_256.clone();
+        } catch (CloneNotSupportedException e) {
+            return newDigest();
+        }
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    public record IssuedApiKey(ApiKey apiKey, String plainKey) {}
+
+    private record CachedAuthentication(Authentication authentication, long expiresAt) {}
+}
@@ -0,0 +1,57 @@
+package se.gritacademy.fulkoping_rental.security;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private final AdaptiveConcurrencyLimiter limiter;
+
+    public ConcurrencyLimitFilter(AdaptiveConcurrencyLimiter limiter) {
+        this.limiter = limiter;
+    }
+
+    /**
+     * Runs right after RateLimitFilter and lets an /api request through only while fewer than the current
+     * read or write limit are in flight. Sends 503 with Retry-After (in seconds) otherwise,
+     * so excess load is shed at once instead of queueing for database connections.
+     * The latency of each request (and whether it failed with a server error) adapts the limit.
+     */
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain)
+            throws ServletException, IOException {
+        boolean write = RateLimitFilter.isWrite(request);
+        int inFlight = limiter.tryAcquire(write);
+        if (inFlight == 0) {
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(limiter.getRetryAfterSeconds()));
+            response.getWriter().write("Server is overloaded, please retry");
+            return;
+        }
+        long started = System.nanoTime();
+        boolean failed = true;
+        try {
+            filterChain.doFilter(request, response);
+            failed = response.getStatus() >= 500;
+        } finally {
+            limiter.release(write, inFlight, System.nanoTime() - started, !request.isAsyncStarted(), failed);
+        }
+    }
+
+    /**
+     * Only API requests are limited, so Actuator and Swagger stay reachable under load.
+     */
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/api/");
+    }
+}
@@ -0,0 +1,111 @@
+package se.gritacademy.fulkoping_rental.security;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class GradientLimit {
+
+    // The no-load latency is the lowest latency of the current and the previous window of this many requests,
+    // so it follows lasting changes (like slower queries after the data grew) within two windows
+    private static final int RTT_WINDOW = 500;
+    // Multiplier applied to the limit when a request fails with a server error
+    private static final double BACKOFF = 0.9;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double smoothing;
+
+    // Written only while holding the lock of this limit, read without it by tryAcquire and the gauges
+    private volatile double limit;
+    private long windowMinRttNanos = Long.MAX_VALUE;
+    private long previousMinRttNanos = Long.MAX_VALUE;
+    private int windowSamples;
+
+    /**
+     * Creates a limit that starts at initialLimit and adapts between minLimit and maxLimit.
+     * Latency up to tolerance times the no-load latency is not taken as queueing,
+     * and each sample moves the limit by smoothing (0-1) of the way towards its new estimate.
+     */
+    public GradientLimit(int initialLimit, int minLimit, int maxLimit, double tolerance, double smoothing) {
+        if (minLimit < 1 || minLimit > maxLimit || initialLimit < minLimit || initialLimit > maxLimit
+                || tolerance < 1 || smoothing <= 0 || smoothing > 1) {
+            throw new IllegalArgumentException("Invalid gradient limit: initial=" + initialLimit + ", min=" + minLimit
+                    + ", max=" + maxLimit + ", tolerance=" + tolerance + ", smoothing=" + smoothing);
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.smoothing = smoothing;
+        this.limit = initialLimit;
+    }
+
+    /**
+     * Starts a request if fewer than the current limit are in flight.
+     * Returns 0 if the limit is reached, otherwise the number of requests in flight including this one,
+     * which must be passed to release.
+     */
+    public int tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) return 0;
+            if (inFlight.compareAndSet(current, current + 1)) return current + 1;
+        }
+    }
+
+    /**
+     * Ends a request started by tryAcquire and adapts the limit to its latency.
+     * A failed request (like one that timed out waiting for a database connection) backs the limit off instead.
+     */
+    public void release(int inFlightAtStart, long rttNanos, boolean failed) {
+        inFlight.decrementAndGet();
+        update(inFlightAtStart, Math.max(rttNanos, 1), failed);
+    }
+
+    /**
+     * Ends a request started by tryAcquire without adapting the limit,
+     * for requests whose latency says nothing about the load (like a stream that stays open).
+     */
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * Helper: Gradient step. The limit is scaled by the ratio of the no-load latency (times the tolerance)
+     * to this request's latency, capped to 0.5-1, so it shrinks as soon as requests start queueing,
+     * and then grows by its square root to keep probing for more capacity. It only grows while at least
+     * half of it was in use, so a quiet period does not inflate it. It only shrinks for requests that started
+     * with more than minLimit in flight: the minimum is meant to stay below the database pool size, so fewer
+     * requests never queue, and a slow one among them is just a slower endpoint (like a database read next to
+     * cache hits, which set the no-load latency), not a sign of overload.
+     */
+    private synchronized void update(int inFlightAtStart, long rttNanos, boolean failed) {
+        windowMinRttNanos = Math.min(windowMinRttNanos, rttNanos);
+        if (++windowSamples >= RTT_WINDOW) {
+            previousMinRttNanos = windowMinRttNanos;
+            windowMinRttNanos = Long.MAX_VALUE;
+            windowSamples = 0;
+        }
+        long noLoadRttNanos = Math.min(windowMinRttNanos, previousMinRttNanos);
+
+        double current = limit;
+        double next;
+        if (failed) {
+            next = current * BACKOFF;
+        } else {
+            double gradient = Math.max(0.5, Math.min(1.0, tolerance * noLoadRttNanos / rttNanos));
+            double estimate = current * gradient + Math.sqrt(current);
+            next = current * (1 - smoothing) + estimate * smoothing;
+            if (next > current ? inFlightAtStart < current / 2 : inFlightAtStart <= minLimit) return;
+        }
+        limit = Math.max(minLimit, Math.min(maxLimit, next));
+    }
+}
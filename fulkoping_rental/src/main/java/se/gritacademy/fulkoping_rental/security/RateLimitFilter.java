@@ -0,0 +1,53 @@
+package se.gritacademy.fulkoping_rental.security;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final ApiKeyRateLimiter rateLimiter;
+
+    public RateLimitFilter(ApiKeyRateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    /**
+     * Runs right after ApiKeyAuthFilter and takes a token from the caller's read or write bucket.
+     * Sends 429 with Retry-After (in seconds) if the bucket is empty,
+     * so throttled requests never reach a controller or the database.
+     */
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain)
+            throws ServletException, IOException {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof ApiKeyPrincipal principal) {
+            long waitMillis = rateLimiter.tryAcquire(principal, isWrite(request));
+            if (waitMillis > 0) {
+                response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+                response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf((waitMillis + 999) / 1000));
+                response.getWriter().write("Rate limit exceeded");
+                return;
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    /**
+     * Helper: Returns true for methods that modify data.
+     */
+    static boolean isWrite(HttpServletRequest request) {
+        String method = request.getMethod();
+        return !("GET".equals(method) || "HEAD".equals(method) || "OPTIONS".equals(method));
+    }
+}
@@ -1,5 +1,6 @@
 package se.gritacademy.fulkoping_rental.security;
 
+import jakarta.servlet.DispatcherType;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -19,9 +20,15 @@ import java.util.List;
 public class SecurityConfig {
 
     private final ApiKeyService apiKeyService;
+    private final ApiKeyRateLimiter rateLimiter;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
 
-    public SecurityConfig(ApiKeyService apiKeyService) {
+    public SecurityConfig(ApiKeyService apiKeyService,
+                          ApiKeyRateLimiter rateLimiter,
+                          AdaptiveConcurrencyLimiter concurrencyLimiter) {
         this.apiKeyService = apiKeyService;
+        this.rateLimiter = rateLimiter;
+        this.concurrencyLimiter = concurrencyLimiter;
     }
 
     /**
@@ -29,8 +36,11 @@ public class SecurityConfig {
      * - Disables CSRF (since this is an API with API key auth)
      * - Enables CORS using the CorsConfigurationSource bean
      * - Adds the ApiKeyAuthFilter before the standard UsernamePasswordAuthenticationFilter
-     * - Defines role-based access rules for different endpoints
+     * - Adds the RateLimitFilter right after the ApiKeyAuthFilter
+     * - Adds the ConcurrencyLimitFilter right after the RateLimitFilter
+     * - Defines role-based access rules for different endpoints (Actuator is admin only)
      * - Allows public access to Swagger UI and OpenAPI docs
+     * - Allows async dispatches (like the end of an SSE stream), whose request was already authorized
      */
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
@@ -38,12 +48,16 @@ public class SecurityConfig {
                 .csrf(csrf -> csrf.disable())
                 .cors(Customizer.withDefaults())
                 .addFilterBefore(new ApiKeyAuthFilter(apiKeyService), UsernamePasswordAuthenticationFilter.class)
+                .addFilterAfter(new RateLimitFilter(rateLimiter), ApiKeyAuthFilter.class)
+                .addFilterAfter(new ConcurrencyLimitFilter(concurrencyLimiter), RateLimitFilter.class)
                 .authorizeHttpRequests(auth -> auth
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .requestMatchers(HttpMethod.GET, "/api/vehicles/**").hasAnyRole("ADMIN", "USER")
                         .requestMatchers(HttpMethod.POST, "/api/vehicles/**").hasRole("ADMIN")
                         .requestMatchers(HttpMethod.PATCH, "/api/vehicles/**").hasRole("ADMIN")
                         .requestMatchers(HttpMethod.DELETE, "/api/vehicles/**").hasRole("ADMIN")
-                        .requestMatchers("/api/users/**", "/api/rentals/**").hasRole("ADMIN")
+                        .requestMatchers("/api/users/**", "/api/rentals/**", "/api/api-keys/**").hasRole("ADMIN")
+                        .requestMatchers("/actuator/**").hasRole("ADMIN")
                         .requestMatchers("/swagger-ui/**", "/v3/api-docs/**").permitAll()
                         .anyRequest().denyAll()
                 );
@@ -0,0 +1,64 @@
+package se.gritacademy.fulkoping_rental.security;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+public class TokenBucket {
+
+    // State is packed into one long: the upper 40 bits hold the time of the last refill
+    // in milliseconds since the bucket was created, the lower 24 bits the available tokens
+    // in thousandths of a token. Both are updated together with a single CAS.
+    private static final int TOKEN_BITS = 24;
+    private static final long TOKEN_MASK = (1L << TOKEN_BITS) - 1;
+    private static final long UNITS_PER_TOKEN = 1000;
+    public static final int MAX_CAPACITY = (int) (TOKEN_MASK / UNITS_PER_TOKEN);
+
+    private final AtomicLong state;
+    private final long capacityUnits;
+    private final long refillUnitsPerMilli;
+    private final long maxElapsedMillis;
+    private final long createdNanos;
+
+    /**
+     * Creates a full bucket that refills ratePerSecond tokens per second up to capacity.
+     */
+    public TokenBucket(int ratePerSecond, int capacity) {
+        if (ratePerSecond < 1 || capacity < 1 || capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("Invalid token bucket: rate=" + ratePerSecond + ", capacity=" + capacity);
+        }
+        this.capacityUnits = capacity * UNITS_PER_TOKEN;
+        // A thousandth of a token per ms equals one token per second
+        this.refillUnitsPerMilli = ratePerSecond;
+        this.maxElapsedMillis = capacityUnits / refillUnitsPerMilli + 1;
+        this.createdNanos = System.nanoTime();
+        this.state = new AtomicLong(capacityUnits);
+    }
+
+    /**
+     * Takes one token if available.
+     * Returns 0 if the token was taken, otherwise the number of milliseconds until one is available.
+     */
+    public long tryAcquire() {
+        return tryAcquire((System.nanoTime() - createdNanos) / 1_000_000);
+    }
+
+    /**
+     * Takes one token at the given time (milliseconds since the bucket was created).
+     * Lock-free: retries the CAS only when another thread changed the state in between.
+     */
+    long tryAcquire(long nowMillis) {
+        while (true) {
+            long current = state.get();
+            long lastMillis = current >>> TOKEN_BITS;
+            long tokens = current & TOKEN_MASK;
+            long elapsed = Math.min(Math.max(nowMillis - lastMillis, 0), maxElapsedMillis);
+            long available = Math.min(capacityUnits, tokens + elapsed * refillUnitsPerMilli);
+            if (available < UNITS_PER_TOKEN) {
+                return (UNITS_PER_TOKEN - available + refillUnitsPerMilli - 1) / refillUnitsPerMilli;
+            }
+            long next = (Math.max(nowMillis, lastMillis) << TOKEN_BITS) | (available - UNITS_PER_TOKEN);
+            if (state.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package se.gritacademy.fulkoping_rental.service.batch;
+
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import se.gritacademy.fulkoping_rental.exception.ValidationException;
+import se.gritacademy.fulkoping_rental.model.rental.Rental;
+import se.gritacademy.fulkoping_rental.model.user.User;
+import se.gritacademy.fulkoping_rental.model.vehicle.Vehicle;
+import se.gritacademy.fulkoping_rental.service.rental.RentalService;
+import se.gritacademy.fulkoping_rental.service.user.UserService;
+import se.gritacademy.fulkoping_rental.service.vehicle.VehicleService;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Looks up many vehicles, users or rentals by id with one IN query instead of one request per id.
+ * Results keep the order of the requested ids (each id once) and list the ids that do not exist.
+ */
+@Service
+@Timed(value = "app.service", histogram = true)
+public class BatchLookupService {
+
+    private final VehicleService vehicleService;
+    private final UserService userService;
+    private final RentalService rentalService;
+    private final int maxIds;
+
+    public BatchLookupService(VehicleService vehicleService, UserService userService, RentalService rentalService,
+                              @Value("${app.batch.max-ids:100}") int maxIds) {
+        this.vehicleService = vehicleService;
+        this.userService = userService;
+        this.rentalService = rentalService;
+        this.maxIds = maxIds;
+    }
+
+    /**
+     * Returns the vehicles with the given ids.
+     * Throws 400 if no id or more than the allowed number of ids is given.
+     */
+    public BatchResult<Vehicle> getVehicles(List<Long> ids) {
+        return lookup(ids, vehicleService::getVehiclesByIds, Vehicle::getId);
+    }
+
+    /**
+     * Returns the users with the given ids, like getVehicles.
+     */
+    public BatchResult<User> getUsers(List<Long> ids) {
+        return lookup(ids, userService::getUsersByIds, User::getId);
+    }
+
+    /**
+     * Returns the rentals with the given ids, like getVehicles.
+     */
+    public BatchResult<Rental> getRentals(List<Long> ids) {
+        return lookup(ids, rentalService::getRentalsByIds, Rental::getId);
+    }
+
+    /**
+     * Helper: Validates the ids, loads the entities with one query and puts them in request order.
+     */
+    private <E> BatchResult<E> lookup(List<Long> ids, Function<Collection<Long>, List<E>> loader, Function<E, Long> idOf) {
+        Set<Long> requested = new LinkedHashSet<>();
+        for (Long id : ids) {
+            if (id != null) requested.add(id);
+        }
+        if (requested.isEmpty()) {
+            throw new ValidationException("ids must contain at least one id");
+        }
+        if (requested.size() > maxIds) {
+            throw new ValidationException("At most " + maxIds + " ids can be requested at once");
+        }
+        Map<Long, E> byId = new HashMap<>();
+        for (E entity : loader.apply(requested)) {
+            byId.put(idOf.apply(entity), entity);
+        }
+        List<E> found = new ArrayList<>(byId.size());
+        List<Long> missing = new ArrayList<>();
+        for (Long id : requested) {
+            E entity = byId.get(id);
+            if (entity != null) {
+                found.add(entity);
+            } else {
+                missing.add(id);
+            }
+        }
+        return new BatchResult<>(found, missing);
+    }
+}
@@ -0,0 +1,9 @@
+package se.gritacademy.fulkoping_rental.service.batch;
+
+import java.util.List;
+
+/**
+ * Entities found by a batch lookup, in the order their ids were requested,
+ * and the requested ids that do not exist.
+ */
+public record BatchResult<E>(List<E> found, List<Long> missing) {}
@@ -0,0 +1,144 @@
+package se.gritacademy.fulkoping_rental.service.cleanup;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import se.gritacademy.fulkoping_rental.cache.ChangeLog;
+import se.gritacademy.fulkoping_rental.cache.EntityType;
+
+import javax.sql.DataSource;
+import java.time.LocalTime;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Physically removes soft deleted rentals, vehicles and users (rows with deleted_at set) in bounded batches.
+ * <p>
+ * One batch runs per interval, and only inside the low-traffic window (server time; an equal start and end means
+ * always). A batch is one transaction that removes up to batch-size tombstoned rentals, or once there are none left,
+ * tombstoned vehicles and then users that no longer have any rentals, with their subtype rows.
+ * Any instance may run a batch at the same time as another: at worst both pick the same rows, and deleting
+ * a row twice is a no-op.
+ */
+@Component
+public class SoftDeleteCleanup {
+
+    private static final Logger logger = LoggerFactory.getLogger(SoftDeleteCleanup.class);
+
+    // Subtype tables first, the vehicle and user rows are referenced by them
+    private static final List<String> VEHICLE_TABLES = List.of("car", "trailer", "truck", "vehicle");
+    private static final List<String> USER_TABLES = List.of("customer", "admin", "user");
+
+    // Rentals are only tombstoned together with their vehicle or user, so they are found through those
+    static final String SELECT_RENTALS_OF_VEHICLES = """
+            select r.id from vehicle v join rental r on r.vehicle_id = v.id
+            where v.deleted_at is not null and r.deleted_at is not null limit ?""";
+    static final String SELECT_RENTALS_OF_USERS = """
+            select r.id from user u join rental r on r.user_id = u.id
+            where u.deleted_at is not null and r.deleted_at is not null limit ?""";
+    static final String SELECT_VEHICLES = """
+            select v.id from vehicle v
+            where v.deleted_at is not null and not exists (select 1 from rental r where r.vehicle_id = v.id)
+            order by v.id limit ?""";
+    static final String SELECT_USERS = """
+            select u.id from user u
+            where u.deleted_at is not null and not exists (select 1 from rental r where r.user_id = u.id)
+            order by u.id limit ?""";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ChangeLog changeLog;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final int batchSize;
+    private final LocalTime windowStart;
+    private final LocalTime windowEnd;
+
+    public SoftDeleteCleanup(DataSource dataSource,
+                             PlatformTransactionManager transactionManager,
+                             ChangeLog changeLog,
+                             MeterRegistry meterRegistry,
+                             @Value("${app.soft-delete.cleanup.enabled:true}") boolean enabled,
+                             @Value("${app.soft-delete.cleanup.batch-size:500}") int batchSize,
+                             @Value("${app.soft-delete.cleanup.window-start:01:00}") LocalTime windowStart,
+                             @Value("${app.soft-delete.cleanup.window-end:05:00}") LocalTime windowEnd) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.changeLog = changeLog;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.windowStart = windowStart;
+        this.windowEnd = windowEnd;
+    }
+
+    /**
+     * Removes one batch if the scheduled cleanup is enabled and the current time is inside the cleanup window.
+     */
+    @Scheduled(fixedDelayString = "${app.soft-delete.cleanup.interval-ms:1000}")
+    public void cleanupIfInWindow() {
+        if (!enabled || !isInWindow(LocalTime.now())) return;
+        try {
+            cleanupBatch();
+        } catch (DataAccessException e) {
+            logger.warn("Soft delete cleanup batch failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Removes one batch of tombstoned rentals, vehicles or users (in that order of preference), whatever the time.
+     * Returns the number of entities removed, 0 once nothing is left to remove.
+     */
+    public int cleanupBatch() {
+        Integer removed = transactionTemplate.execute(status -> {
+            List<Long> rentalIds = jdbcTemplate.queryForList(SELECT_RENTALS_OF_VEHICLES, Long.class, batchSize);
+            if (rentalIds.isEmpty()) {
+                rentalIds = jdbcTemplate.queryForList(SELECT_RENTALS_OF_USERS, Long.class, batchSize);
+            }
+            if (!rentalIds.isEmpty()) {
+                // Rentals were tombstoned with one statement, without recording each of them in the change log
+                changeLog.recordDeletes(EntityType.RENTAL, rentalIds);
+                return remove("rental", List.of("rental"), rentalIds);
+            }
+            List<Long> vehicleIds = jdbcTemplate.queryForList(SELECT_VEHICLES, Long.class, batchSize);
+            if (!vehicleIds.isEmpty()) {
+                return remove("vehicle", VEHICLE_TABLES, vehicleIds);
+            }
+            return remove("user", USER_TABLES, jdbcTemplate.queryForList(SELECT_USERS, Long.class, batchSize));
+        });
+        return removed == null ? 0 : removed;
+    }
+
+    /**
+     * Returns true if the time is inside the cleanup window, which may span midnight (like 22:00 to 04:00).
+     */
+    boolean isInWindow(LocalTime time) {
+        if (windowStart.equals(windowEnd)) return true;
+        if (windowStart.isBefore(windowEnd)) {
+            return !time.isBefore(windowStart) && time.isBefore(windowEnd);
+        }
+        return !time.isBefore(windowStart) || time.isBefore(windowEnd);
+    }
+
+    /**
+     * Helper: Deletes the rows with the given ids from each table in order and returns the number of entities removed.
+     */
+    private int remove(String entity, List<String> tables, List<Long> ids) {
+        if (ids.isEmpty()) return 0;
+        String placeholders = String.join(", ", Collections.nCopies(ids.size(), "?"));
+        int removed = 0;
+        for (String table : tables) {
+            removed = jdbcTemplate.update("delete from " + table + " where id in (" + placeholders + ")", ids.toArray());
+        }
+        meterRegistry.counter("app.soft-delete.cleanup.removed", "entity", entity).increment(removed);
+        logger.info("Removed {} soft deleted {} rows", removed, entity);
+        return removed;
+    }
+}
@@ -0,0 +1,49 @@
+package se.gritacademy.fulkoping_rental.service.fields;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * One field of a sparse fieldset: the DTO field name, the JPQL expression that selects it,
+ * the join the expression needs (or null), the subtype entity the field belongs to (or null for fields of every
+ * entity) and the DTO accessor used to read it from cached DTOs.
+ */
+public record SparseField(String name, String expression, String join, String subtype, Method accessor) {
+
+    static SparseField of(String name, String expression) {
+        return new SparseField(name, expression, null, null, null);
+    }
+
+    static SparseField of(String name, String expression, String join) {
+        return new SparseField(name, expression, join, null, null);
+    }
+
+    /**
+     * A field of a subtype, selected with treat() so Hibernate only adds the subtype's own table to its joins.
+     */
+    static SparseField ofSubtype(String name, String alias, String subtype, String attribute) {
+        return new SparseField(name, "treat(" + alias + " as " + subtype + ")." + attribute, null, subtype, null);
+    }
+
+    SparseField withAccessor(Method accessor) {
+        return new SparseField(name, expression, join, subtype, accessor);
+    }
+
+    /**
+     * Returns true if entities of the given entity name can have this field.
+     */
+    boolean appliesTo(SparseResource resource, String entityName) {
+        return subtype == null || entityName.equals(resource.getEntityName()) || entityName.equals(subtype);
+    }
+
+    /**
+     * Reads this field from a DTO of the resource.
+     */
+    Object readFrom(Record dto) {
+        try {
+            return accessor.invoke(dto);
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            throw new IllegalStateException("Could not read " + name + " from " + dto.getClass().getSimpleName(), e);
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package se.gritacademy.fulkoping_rental.service.fields;
+
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import se.gritacademy.fulkoping_rental.cache.CoherentCache;
+import se.gritacademy.fulkoping_rental.exception.NotFoundException;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Serves sparse fieldsets (?fields=id,registrationNumber,rented) as maps of the requested fields only.
+ * If the local cache already holds the full DTOs they are narrowed in memory; otherwise only the
+ * requested columns are selected, joining subtype and user tables only for fields that live there.
+ * Values are the same as in the full DTOs, so a sparse response is a subset of the full one.
+ */
+@Service
+@Timed(value = "app.service", histogram = true)
+@Transactional(readOnly = true)
+public class SparseFieldService {
+
+    private final EntityManager entityManager;
+    private final List<CoherentCache<?>> caches;
+
+    public SparseFieldService(EntityManager entityManager, List<CoherentCache<?>> caches) {
+        this.entityManager = entityManager;
+        this.caches = caches;
+    }
+
+    /**
+     * Returns the requested fields of all entities of the resource.
+     * Throws 400 for unknown fields.
+     */
+    public List<Map<String, Object>> findAll(SparseResource resource, String fieldsParam) {
+        return findWhere(resource, fieldsParam, null, null);
+    }
+
+    /**
+     * Returns the requested fields of all entities whose type field equals the given subtype (like "Car").
+     * The query selects from the subtype entity, so only its rows are read.
+     */
+    public List<Map<String, Object>> findAllOfType(SparseResource resource, String fieldsParam, String subtype) {
+        List<SparseField> fields = resource.parse(fieldsParam);
+        Optional<List<Map<String, Object>>> cached = fromCachedList(resource, fields, resource.getField("type"), subtype);
+        if (cached.isPresent()) return cached.get();
+        return query(resource, fields, subtype, null, null);
+    }
+
+    /**
+     * Returns the requested fields of all entities whose field equals the given value (like a rental's userId).
+     */
+    public List<Map<String, Object>> findWhere(SparseResource resource, String fieldsParam, String fieldName, Object value) {
+        List<SparseField> fields = resource.parse(fieldsParam);
+        SparseField filter = fieldName == null ? null : resource.getField(fieldName);
+        Optional<List<Map<String, Object>>> cached = fromCachedList(resource, fields, filter, value);
+        if (cached.isPresent()) return cached.get();
+        return query(resource, fields, resource.getEntityName(), filter, value);
+    }
+
+    /**
+     * Returns the requested fields of one entity.
+     * Throws 400 for unknown fields and 404 if the entity does not exist.
+     */
+    public Map<String, Object> findById(SparseResource resource, String fieldsParam, Long id) {
+        List<SparseField> fields = resource.parse(fieldsParam);
+        Optional<Record> cached = cacheFor(resource).flatMap(cache -> cache.peek(id)).map(Record.class::cast);
+        if (cached.isPresent()) return narrow(cached.get(), fields);
+        return query(resource, fields, resource.getEntityName(), resource.getField("id"), id).stream()
+                .findFirst()
+                .orElseThrow(() -> new NotFoundException(resource.notFoundMessage(id)));
+    }
+
+    /**
+     * Returns the requested fields of DTOs the caller already has (like the results of a batch lookup).
+     * Throws 400 for unknown fields.
+     */
+    public List<Map<String, Object>> narrowAll(SparseResource resource, String fieldsParam, List<? extends Record> dtos) {
+        List<SparseField> fields = resource.parse(fieldsParam);
+        return dtos.stream().map(dto -> narrow(dto, fields)).toList();
+    }
+
+    /**
+     * Helper: Narrows the cached list of all DTOs of the resource, if there is one,
+     * keeping only those whose filter field equals the value (all if there is no filter).
+     */
+    private Optional<List<Map<String, Object>>> fromCachedList(SparseResource resource, List<SparseField> fields,
+                                                               SparseField filter, Object value) {
+        return cacheFor(resource).flatMap(CoherentCache::peekAll).map(all -> all.stream()
+                .map(Record.class::cast)
+                .filter(dto -> filter == null || Objects.equals(filter.readFrom(dto), value))
+                .map(dto -> narrow(dto, fields))
+                .toList());
+    }
+
+    /**
+     * Helper: Selects only the requested columns, with the joins they need (each join once).
+     * Fields of another subtype than the selected one are not queried and always null, like in the DTOs.
+     * Entity types selected with type() are returned as their simple name, like in the DTOs.
+     */
+    private List<Map<String, Object>> query(SparseResource resource, List<SparseField> fields, String entityName,
+                                            SparseField filter, Object value) {
+        String alias = resource.getAlias();
+        List<SparseField> selected = fields.stream().filter(field -> field.appliesTo(resource, entityName)).toList();
+        if (selected.isEmpty()) {
+            selected = List.of(resource.getField("id"));
+        }
+        Set<String> joins = selected.stream()
+                .map(SparseField::join)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        StringBuilder jpql = new StringBuilder("select ")
+                .append(selected.stream().map(SparseField::expression).collect(Collectors.joining(", ")))
+                .append(" from ").append(entityName).append(' ').append(alias);
+        joins.forEach(join -> jpql.append(' ').append(join));
+        if (filter != null) {
+            jpql.append(" where ").append(filter.expression()).append(" = :value");
+        }
+        jpql.append(" order by ").append(alias).append(".id");
+
+        TypedQuery<Tuple> query = entityManager.createQuery(jpql.toString(), Tuple.class);
+        if (filter != null) query.setParameter("value", value);
+        List<SparseField> columns = selected;
+        return query.getResultList().stream().map(tuple -> {
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (SparseField field : fields) {
+                int i = columns.indexOf(field);
+                Object column = i < 0 ? null : tuple.get(i);
+                row.put(field.name(), column instanceof Class<?> type ? type.getSimpleName() : column);
+            }
+            return row;
+        }).toList();
+    }
+
+    /**
+     * Helper: Copies the requested fields of a DTO into a map.
+     */
+    private Map<String, Object> narrow(Record dto, List<SparseField> fields) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        for (SparseField field : fields) {
+            row.put(field.name(), field.readFrom(dto));
+        }
+        return row;
+    }
+
+    /**
+     * Helper: The local cache of the resource's entity type, if it has one.
+     */
+    private Optional<CoherentCache<?>> cacheFor(SparseResource resource) {
+        return caches.stream().filter(cache -> cache.getType() == resource.getEntityType()).findFirst();
+    }
+}
@@ -0,0 +1,116 @@
+package se.gritacademy.fulkoping_rental.service.fields;
+
+import se.gritacademy.fulkoping_rental.cache.EntityType;
+import se.gritacademy.fulkoping_rental.dto.rental.RentalDTO;
+import se.gritacademy.fulkoping_rental.dto.user.UserDTO;
+import se.gritacademy.fulkoping_rental.dto.vehicle.VehicleDTO;
+import se.gritacademy.fulkoping_rental.exception.ValidationException;
+
+import java.lang.reflect.RecordComponent;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * The resources that support sparse fieldsets (?fields=...), with the JPQL expression behind every DTO field.
+ * Fields of a subtype are selected with treat(), and fields of the rental's user name the join they need,
+ * so a query only joins the tables of the requested fields.
+ */
+public enum SparseResource {
+
+    VEHICLE(EntityType.VEHICLE, VehicleDTO.class, "Vehicle", "v", "Vehicle not found with id %d", List.of(
+            SparseField.of("id", "v.id"),
+            SparseField.of("type", "type(v)"),
+            SparseField.of("registrationNumber", "v.registrationNumber"),
+            SparseField.of("brand", "v.brand"),
+            SparseField.of("model", "v.model"),
+            SparseField.of("rented", "v.isRented"),
+            SparseField.ofSubtype("seatCount", "v", "Car", "seatCount"),
+            SparseField.ofSubtype("maxWeight", "v", "Trailer", "maxWeight"),
+            SparseField.ofSubtype("drivingLicenseLevel", "v", "Truck", "drivingLicenseLevel"))),
+
+    USER(EntityType.USER, UserDTO.class, "User", "u", "User not found with id %d", List.of(
+            SparseField.of("id", "u.id"),
+            SparseField.of("type", "type(u)"),
+            SparseField.of("firstName", "u.firstName"),
+            SparseField.of("lastName", "u.lastName"),
+            SparseField.of("email", "u.email"),
+            SparseField.ofSubtype("phoneNumber", "u", "Customer", "phoneNumber"),
+            SparseField.ofSubtype("employeeNumber", "u", "Admin", "employeeNumber"))),
+
+    RENTAL(EntityType.RENTAL, RentalDTO.class, "Rental", "r", "Rental not found", List.of(
+            SparseField.of("id", "r.id"),
+            SparseField.of("userId", "r.user.id"),
+            SparseField.of("userFirstName", "u.firstName", "join r.user u"),
+            SparseField.of("userLastName", "u.lastName", "join r.user u"),
+            SparseField.of("vehicleId", "r.vehicleId"),
+            SparseField.of("vehicleRegistrationNumber", "r.vehicleRegistrationNumber"),
+            SparseField.of("vehicleType", "r.vehicleType"),
+            SparseField.of("startDateTime", "r.startDateTime"),
+            SparseField.of("endDateTime", "r.endDateTime")));
+
+    private final EntityType entityType;
+    private final String entityName;
+    private final String alias;
+    private final String notFoundMessage;
+    private final Map<String, SparseField> fields = new LinkedHashMap<>();
+
+    SparseResource(EntityType entityType, Class<? extends Record> dtoClass, String entityName, String alias,
+                   String notFoundMessage, List<SparseField> fields) {
+        this.entityType = entityType;
+        this.entityName = entityName;
+        this.alias = alias;
+        this.notFoundMessage = notFoundMessage;
+        Map<String, RecordComponent> components = Arrays.stream(dtoClass.getRecordComponents())
+                .collect(Collectors.toMap(RecordComponent::getName, c -> c));
+        for (SparseField field : fields) {
+            this.fields.put(field.name(), field.withAccessor(components.get(field.name()).getAccessor()));
+        }
+    }
+
+    public EntityType getEntityType() {
+        return entityType;
+    }
+
+    String getEntityName() {
+        return entityName;
+    }
+
+    String getAlias() {
+        return alias;
+    }
+
+    String notFoundMessage(Long id) {
+        return notFoundMessage.formatted(id);
+    }
+
+    SparseField getField(String name) {
+        return fields.get(name);
+    }
+
+    /**
+     * Parses a comma separated fields parameter into the requested fields, in DTO order and without duplicates.
+     * Throws 400 if it is empty or names a field the DTO does not have.
+     */
+    public List<SparseField> parse(String fieldsParam) {
+        Set<String> requested = new LinkedHashSet<>();
+        for (String name : fieldsParam.split(",")) {
+            String trimmed = name.trim();
+            if (trimmed.isEmpty()) continue;
+            if (!fields.containsKey(trimmed)) {
+                throw new ValidationException("Unknown field '" + trimmed + "', allowed fields are " + String.join(", ", fields.keySet()));
+            }
+            requested.add(trimmed);
+        }
+        if (requested.isEmpty()) {
+            throw new ValidationException("fields must name at least one field");
+        }
+        return fields.values().stream()
+                .filter(field -> requested.contains(field.name()))
+                .toList();
+    }
+}
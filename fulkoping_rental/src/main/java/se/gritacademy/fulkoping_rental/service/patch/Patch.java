@@ -0,0 +1,27 @@
+package se.gritacademy.fulkoping_rental.service.patch;
+
+public final class Patch<T> {
+
+    private final PatchPlan<T> plan;
+    private final Object[] values;
+
+    Patch(PatchPlan<T> plan, Object[] values) {
+        this.plan = plan;
+        this.values = values;
+    }
+
+    /**
+     * Returns the validated value for the given field, or null if it was not part of the patch.
+     */
+    public Object get(String name) {
+        return plan.valueOf(name, values);
+    }
+
+    /**
+     * Applies the validated values to the target.
+     * Returns true if at least one field was actually changed.
+     */
+    public boolean applyTo(T target) {
+        return plan.applyTo(target, values);
+    }
+}
@@ -0,0 +1,92 @@
+package se.gritacademy.fulkoping_rental.service.patch;
+
+import jakarta.validation.Validator;
+import org.springframework.stereotype.Component;
+import se.gritacademy.fulkoping_rental.dto.user.UpdateUserDTO;
+import se.gritacademy.fulkoping_rental.exception.ValidationException;
+import se.gritacademy.fulkoping_rental.model.user.Admin;
+import se.gritacademy.fulkoping_rental.model.user.Customer;
+import se.gritacademy.fulkoping_rental.model.user.User;
+import se.gritacademy.fulkoping_rental.model.vehicle.Car;
+import se.gritacademy.fulkoping_rental.model.vehicle.Trailer;
+import se.gritacademy.fulkoping_rental.model.vehicle.Truck;
+import se.gritacademy.fulkoping_rental.model.vehicle.Vehicle;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Component
+public class PatchEngine {
+
+    private static final PatchField<User, String> FIRST_NAME =
+            PatchField.optional("firstName", String.class, User::getFirstName, User::setFirstName);
+    private static final PatchField<User, String> LAST_NAME =
+            PatchField.optional("lastName", String.class, User::getLastName, User::setLastName);
+    private static final PatchField<User, String> EMAIL =
+            PatchField.optional("email", String.class, User::getEmail, User::setEmail);
+    private static final PatchField<Customer, String> PHONE_NUMBER =
+            PatchField.optional("phoneNumber", String.class, Customer::getPhoneNumber, Customer::setPhoneNumber);
+    private static final PatchField<Vehicle, Boolean> RENTED =
+            PatchField.required("rented", Boolean.class, Vehicle::isRented, Vehicle::setRented,
+                    "'rented' field is required and must be boolean");
+
+    private final Map<Class<?>, PatchPlan<?>> plans = new HashMap<>();
+
+    /**
+     * Compiles the patch plans for all patchable entity types once at startup.
+     * Uses the shared application Validator instead of building a new factory per request.
+     */
+    public PatchEngine(Validator validator) {
+        register(new PatchPlan<>(Customer.class, UpdateUserDTO.class, validator,
+                List.of(FIRST_NAME, LAST_NAME, EMAIL, PHONE_NUMBER)));
+        register(new PatchPlan<>(Admin.class, UpdateUserDTO.class, validator,
+                List.of(FIRST_NAME, LAST_NAME, EMAIL)));
+        register(vehiclePlan(Car.class, validator));
+        register(vehiclePlan(Truck.class, validator));
+        register(vehiclePlan(Trailer.class, validator));
+    }
+
+    /**
+     * Validates the patch fields against the plan for the target's type without changing the target.
+     * Throws BAD_REQUEST if invalid or not allowed.
+     */
+    public <T> Patch<T> validate(T target, Map<String, Object> fields) {
+        return planFor(target).validate(fields);
+    }
+
+    /**
+     * Validates the patch fields and applies them to the target.
+     * Returns true if at least one field was actually changed.
+     * Throws BAD_REQUEST if invalid or not allowed, in which case the target is left untouched.
+     */
+    public <T> boolean apply(T target, Map<String, Object> fields) {
+        return validate(target, fields).applyTo(target);
+    }
+
+    /**
+     * Helper: Finds the plan for the target's class, walking up the class hierarchy
+     * so that Hibernate proxies resolve to the plan of their entity class.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> PatchPlan<T> planFor(T target) {
+        for (Class<?> type = target.getClass(); type != null; type = type.getSuperclass()) {
+            PatchPlan<?> plan = plans.get(type);
+            if (plan != null) {
+                return (PatchPlan<T>) plan;
+            }
+        }
+        throw new ValidationException("Unknown type: " + target.getClass().getSimpleName());
+    }
+
+    /**
+     * Helper: Builds the plan for a vehicle type, which only allows the 'rented' field.
+     */
+    private <T extends Vehicle> PatchPlan<T> vehiclePlan(Class<T> type, Validator validator) {
+        return new PatchPlan<>(type, null, validator, List.of(RENTED));
+    }
+
+    private void register(PatchPlan<?> plan) {
+        plans.put(plan.getType(), plan);
+    }
+}
@@ -0,0 +1,76 @@
+package se.gritacademy.fulkoping_rental.service.patch;
+
+import java.util.Objects;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+public final class PatchField<T, V> {
+
+    private final String name;
+    private final Class<V> type;
+    private final Function<T, V> getter;
+    private final BiConsumer<T, V> setter;
+    private final boolean required;
+    private final String invalidMessage;
+
+    private PatchField(String name, Class<V> type, Function<T, V> getter, BiConsumer<T, V> setter,
+                       boolean required, String invalidMessage) {
+        this.name = name;
+        this.type = type;
+        this.getter = getter;
+        this.setter = setter;
+        this.required = required;
+        this.invalidMessage = invalidMessage;
+    }
+
+    /**
+     * Creates an optional field. A value of the wrong type is rejected with "<name> must be a <type>".
+     */
+    public static <T, V> PatchField<T, V> optional(String name, Class<V> type,
+                                                   Function<T, V> getter, BiConsumer<T, V> setter) {
+        String message = name + " must be a " + type.getSimpleName().toLowerCase();
+        return new PatchField<>(name, type, getter, setter, false, message);
+    }
+
+    /**
+     * Creates a field that must be present in every patch.
+     * A missing value or a value of the wrong type is rejected with the given message.
+     */
+    public static <T, V> PatchField<T, V> required(String name, Class<V> type,
+                                                   Function<T, V> getter, BiConsumer<T, V> setter,
+                                                   String invalidMessage) {
+        return new PatchField<>(name, type, getter, setter, true, invalidMessage);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isRequired() {
+        return required;
+    }
+
+    public String getInvalidMessage() {
+        return invalidMessage;
+    }
+
+    /**
+     * Returns true if the raw JSON value has the type this field expects.
+     */
+    public boolean accepts(Object value) {
+        return type.isInstance(value);
+    }
+
+    /**
+     * Writes the value to the target if it differs from the current one.
+     * Returns true if the target was changed.
+     */
+    boolean apply(T target, Object value) {
+        V typed = type.cast(value);
+        if (Objects.equals(getter.apply(target), typed)) {
+            return false;
+        }
+        setter.accept(target, typed);
+        return true;
+    }
+}
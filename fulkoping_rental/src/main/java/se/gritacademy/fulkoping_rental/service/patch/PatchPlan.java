@@ -0,0 +1,143 @@
+package se.gritacademy.fulkoping_rental.service.patch;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import jakarta.validation.metadata.BeanDescriptor;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import se.gritacademy.fulkoping_rental.exception.ValidationException;
+
+public final class PatchPlan<T> {
+
+    private final Class<T> type;
+    private final Class<?> constraintSource;
+    private final Validator validator;
+    private final Map<String, Slot<T>> slotsByName;
+    private final Slot<T>[] slots;
+    private final boolean hasRequiredFields;
+
+    /**
+     * Compiles the plan for one entity type.
+     * Each field gets a fixed slot, and fields with Bean Validation constraints on the
+     * constraint source class are flagged once here instead of being looked up per request.
+     */
+    @SuppressWarnings("unchecked")
+    public PatchPlan(Class<T> type, Class<?> constraintSource, Validator validator,
+                     List<PatchField<? super T, ?>> fields) {
+        this.type = type;
+        this.constraintSource = constraintSource;
+        this.validator = validator;
+        this.slotsByName = new HashMap<>();
+        this.slots = new Slot[fields.size()];
+        BeanDescriptor constraints = constraintSource != null ? validator.getConstraintsForClass(constraintSource) : null;
+        boolean required = false;
+        for (int i = 0; i < fields.size(); i++) {
+            PatchField<? super T, ?> field = fields.get(i);
+            boolean constrained = constraints != null && constraints.getConstraintsForProperty(field.getName()) != null;
+            Slot<T> slot = new Slot<>(i, field, constrained);
+            slots[i] = slot;
+            slotsByName.put(field.getName(), slot);
+            required |= field.isRequired();
+        }
+        this.hasRequiredFields = required;
+    }
+
+    public Class<T> getType() {
+        return type;
+    }
+
+    /**
+     * Validates a patch request in a single pass over the request body:
+     * rejects unknown fields and wrong types immediately, collects constraint violations,
+     * and checks that all required fields are present.
+     * Throws BAD_REQUEST if the patch is invalid.
+     */
+    public Patch<T> validate(Map<String, Object> fields) {
+        if ((fields == null || fields.isEmpty()) && !hasRequiredFields) {
+            throw new ValidationException("Request body cannot be empty");
+        }
+        Object[] values = new Object[slots.length];
+        StringBuilder violations = null;
+        if (fields != null) {
+            for (Map.Entry<String, Object> entry : fields.entrySet()) {
+                Slot<T> slot = slotsByName.get(entry.getKey());
+                if (slot == null) {
+                    throw new ValidationException("Field not allowed: " + entry.getKey());
+                }
+                Object value = entry.getValue();
+                if (!slot.field().accepts(value)) {
+                    throw new ValidationException(slot.field().getInvalidMessage());
+                }
+                if (slot.constrained()) {
+                    violations = appendViolations(violations, slot.field().getName(), value);
+                }
+                values[slot.index()] = value;
+            }
+        }
+        if (violations != null) {
+            throw new ValidationException(violations.toString());
+        }
+        checkRequiredFields(values);
+        return new Patch<>(this, values);
+    }
+
+    /**
+     * Writes every present value to the target.
+     * Returns true if at least one field was actually changed.
+     */
+    boolean applyTo(T target, Object[] values) {
+        boolean changed = false;
+        for (Slot<T> slot : slots) {
+            Object value = values[slot.index()];
+            if (value != null) {
+                changed |= slot.field().apply(target, value);
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Returns the validated value for the given field, or null if it was not part of the patch.
+     */
+    Object valueOf(String name, Object[] values) {
+        Slot<T> slot = slotsByName.get(name);
+        return slot != null ? values[slot.index()] : null;
+    }
+
+    /**
+     * Helper: Validates a single value against the constraints declared on the constraint source
+     * and appends any violations in the format "field: message".
+     */
+    private StringBuilder appendViolations(StringBuilder violations, String name, Object value) {
+        Set<? extends ConstraintViolation<?>> result = validator.validateValue(constraintSource, name, value);
+        for (ConstraintViolation<?> cv : result) {
+            if (violations == null) {
+                violations = new StringBuilder();
+            } else {
+                violations.append("; ");
+            }
+            violations.append(cv.getPropertyPath()).append(": ").append(cv.getMessage());
+        }
+        return violations;
+    }
+
+    /**
+     * Helper: Ensures that all required fields are present in the patch.
+     * Throws BAD_REQUEST with the field's message if one is missing.
+     */
+    private void checkRequiredFields(Object[] values) {
+        if (!hasRequiredFields) {
+            return;
+        }
+        for (Slot<T> slot : slots) {
+            if (slot.field().isRequired() && values[slot.index()] == null) {
+                throw new ValidationException(slot.field().getInvalidMessage());
+            }
+        }
+    }
+
+    private record Slot<T>(int index, PatchField<? super T, ?> field, boolean constrained) {}
+}
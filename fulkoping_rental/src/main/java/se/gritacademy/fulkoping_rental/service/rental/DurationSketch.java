@@ -0,0 +1,162 @@
+package se.gritacademy.fulkoping_rental.service.rental;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Mergeable quantile sketch for durations in seconds, with a relative error guarantee.
+ * <p>
+ * Durations are counted in logarithmic buckets (γ^(i-1), γ^i] with γ = (1 + α) / (1 - α), and a quantile is
+ * answered with the middle of its bucket, so every returned quantile is within α (RELATIVE_ERROR, 1%) of the
+ * exact one, independent of how many durations were added. Durations under a second are counted as 0.
+ * Only bucket counts are kept (under 900 buckets between a second and a year, usually far fewer), so
+ * merging two sketches is exact: a sketch merged from parts equals one built from all durations.
+ * Not thread-safe.
+ */
+public final class DurationSketch {
+
+    public static final double RELATIVE_ERROR = 0.01;
+
+    private static final double GAMMA = (1 + RELATIVE_ERROR) / (1 - RELATIVE_ERROR);
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+    private static final double MIN_SECONDS = 1;
+    private static final byte FORMAT_VERSION = 1;
+
+    // counts[i] is the number of durations in bucket minIndex + i
+    private long[] counts = new long[0];
+    private int minIndex;
+    private long zeroCount;
+    private long count;
+
+    /**
+     * Counts one duration (negative durations count as 0).
+     */
+    public void add(double seconds) {
+        count++;
+        if (!(seconds >= MIN_SECONDS)) {
+            zeroCount++;
+            return;
+        }
+        int index = (int) Math.ceil(Math.log(seconds) / LOG_GAMMA);
+        ensureCovers(index, index);
+        counts[index - minIndex]++;
+    }
+
+    /**
+     * Adds all durations counted by the other sketch.
+     */
+    public void merge(DurationSketch other) {
+        count += other.count;
+        zeroCount += other.zeroCount;
+        if (other.counts.length == 0) return;
+        ensureCovers(other.minIndex, other.minIndex + other.counts.length - 1);
+        for (int i = 0; i < other.counts.length; i++) {
+            counts[other.minIndex + i - minIndex] += other.counts[i];
+        }
+    }
+
+    /**
+     * Returns the q-quantile (0 ≤ q ≤ 1) in seconds: within RELATIVE_ERROR of the duration at rank
+     * floor(q · (count - 1)) of all counted durations in ascending order. Throws if the sketch is empty.
+     */
+    public double quantile(double q) {
+        if (count == 0) throw new IllegalStateException("Quantile of an empty sketch");
+        if (q < 0 || q > 1) throw new IllegalArgumentException("Quantile must be between 0 and 1: " + q);
+        long rank = (long) Math.floor(q * (count - 1));
+        long seen = zeroCount;
+        if (rank < seen) return 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (rank < seen) return 2 * Math.pow(GAMMA, minIndex + i) / (GAMMA + 1);
+        }
+        throw new IllegalStateException("Bucket counts do not add up to " + count);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Encodes the sketch compactly: a format version, then the zero count, the first bucket index,
+     * the number of buckets and every bucket count as variable length integers (a few hundred bytes).
+     */
+    public byte[] toBytes() {
+        int first = 0;
+        int last = counts.length - 1;
+        while (first <= last && counts[first] == 0) first++;
+        while (last >= first && counts[last] == 0) last--;
+        ByteArrayOutputStream out = new ByteArrayOutputStream(16 + Math.max(0, last - first + 1) * 2);
+        out.write(FORMAT_VERSION);
+        writeVarLong(out, zeroCount);
+        writeVarLong(out, zigZag(minIndex + first));
+        writeVarLong(out, Math.max(0, last - first + 1));
+        for (int i = first; i <= last; i++) {
+            writeVarLong(out, counts[i]);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Decodes a sketch written by toBytes. Throws IllegalArgumentException for an unknown format.
+     */
+    public static DurationSketch fromBytes(byte[] bytes) {
+        ByteBuffer in = ByteBuffer.wrap(bytes);
+        if (in.get() != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unknown duration sketch format " + bytes[0]);
+        }
+        DurationSketch sketch = new DurationSketch();
+        sketch.zeroCount = readVarLong(in);
+        sketch.minIndex = (int) unZigZag(readVarLong(in));
+        sketch.counts = new long[(int) readVarLong(in)];
+        sketch.count = sketch.zeroCount;
+        for (int i = 0; i < sketch.counts.length; i++) {
+            sketch.counts[i] = readVarLong(in);
+            sketch.count += sketch.counts[i];
+        }
+        return sketch;
+    }
+
+    /**
+     * Helper: Grows the bucket array so it covers the bucket indexes from low to high.
+     */
+    private void ensureCovers(int low, int high) {
+        if (counts.length == 0) {
+            minIndex = low;
+            counts = new long[high - low + 1];
+            return;
+        }
+        int newMin = Math.min(minIndex, low);
+        int newMax = Math.max(minIndex + counts.length - 1, high);
+        if (newMin == minIndex && newMax == minIndex + counts.length - 1) return;
+        long[] grown = new long[newMax - newMin + 1];
+        System.arraycopy(counts, 0, grown, minIndex - newMin, counts.length);
+        counts = grown;
+        minIndex = newMin;
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) return value;
+        }
+        throw new IllegalArgumentException("Malformed duration sketch");
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
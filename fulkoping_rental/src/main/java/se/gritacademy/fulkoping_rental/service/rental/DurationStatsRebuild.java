@@ -0,0 +1,6 @@
+package se.gritacademy.fulkoping_rental.service.rental;
+
+/**
+ * Outcome of rebuilding the rental duration sketches: rows written, finished rentals counted and time taken.
+ */
+public record DurationStatsRebuild(int sketches, long rentals, long durationMillis) {}
@@ -0,0 +1,234 @@
+package se.gritacademy.fulkoping_rental.service.rental;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.annotation.Timed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import se.gritacademy.fulkoping_rental.exception.ValidationException;
+import se.gritacademy.fulkoping_rental.model.rental.Rental;
+import se.gritacademy.fulkoping_rental.service.vehicle.FleetStatusCounters;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Rental duration percentiles per vehicle type and month, kept as DurationSketch rows in rental_duration_sketch
+ * so that percentile queries never read the rental table.
+ * <p>
+ * Every return adds its duration to the sketch of its vehicle type and the month it was returned in (UTC),
+ * inside the returning transaction: the row is locked, merged and written back, so a rolled back (or retried)
+ * return never counts and returns on different instances never overwrite each other. Returns of the same type
+ * in the same month wait for each other's commit on that row.
+ * A rebuild recomputes every row from the finished rentals, reading id ranges in parallel on the primary.
+ * It holds the locks on all rows (including the current month's) until it commits, so a return that
+ * commits during the rebuild is counted exactly once. Deleted rentals stay counted until the next rebuild.
+ */
+@Service
+@Timed(value = "app.service", histogram = true)
+public class RentalDurationStats {
+
+    private static final Logger logger = LoggerFactory.getLogger(RentalDurationStats.class);
+
+    static final String SELECT_FOR_UPDATE =
+            "select sketch from rental_duration_sketch where vehicle_type = ? and bucket_month = ? for update";
+    static final String INSERT_IF_ABSENT = """
+            insert into rental_duration_sketch (vehicle_type, bucket_month, rental_count, sketch, updated_at)
+            values (?, ?, ?, ?, ?) on duplicate key update updated_at = updated_at""";
+    static final String UPDATE_SKETCH =
+            "update rental_duration_sketch set rental_count = ?, sketch = ?, updated_at = ? where vehicle_type = ? and bucket_month = ?";
+    static final String SELECT_FINISHED_IN_ID_RANGE = """
+            select vehicle_type, start_date_time, end_date_time from rental
+            where id between ? and ? and end_date_time is not null and deleted_at is null""";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate primary;
+    private final TransactionTemplate transactionTemplate;
+    private final int rebuildThreads;
+    private final int rebuildChunkSize;
+
+    public RentalDurationStats(DataSource dataSource,
+                               HikariDataSource primaryDataSource,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${app.rental-stats.rebuild-threads:4}") int rebuildThreads,
+                               @Value("${app.rental-stats.rebuild-chunk-size:10000}") int rebuildChunkSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.primary = new JdbcTemplate(primaryDataSource);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.rebuildThreads = rebuildThreads;
+        this.rebuildChunkSize = rebuildChunkSize;
+    }
+
+    /**
+     * Adds the duration of a returned rental to its sketch, on the returning transaction's connection.
+     * Throws IllegalStateException outside a transaction, where the duration could be counted without the return.
+     */
+    public void recordReturn(Rental rental) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Rental returns must be recorded inside the returning transaction");
+        }
+        Instant end = rental.getEndDateTime().toInstant();
+        String type = rental.getVehicleType();
+        String month = monthOf(end);
+        DurationSketch sketch = lockRow(type, month);
+        sketch.add(secondsBetween(rental.getStartDateTime().toInstant(), end));
+        jdbcTemplate.update(UPDATE_SKETCH, sketch.getCount(), sketch.toBytes(), System.currentTimeMillis(), type, month);
+    }
+
+    /**
+     * Returns the sketches of the months from and to (inclusive, either may be null for no limit) by month,
+     * merged over all vehicle types or only the given type. Months without returns are left out.
+     * Throws 400 for an unknown type or if from is after to.
+     */
+    @Transactional(readOnly = true)
+    public Map<YearMonth, DurationSketch> getSketchesByMonth(String type, YearMonth from, YearMonth to) {
+        if (type != null && !FleetStatusCounters.TYPES.contains(type)) {
+            throw new ValidationException("Unknown vehicle type '" + type + "', allowed types are "
+                    + String.join(", ", FleetStatusCounters.TYPES));
+        }
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new ValidationException("from must not be after to");
+        }
+        StringBuilder sql = new StringBuilder(
+                "select bucket_month, sketch from rental_duration_sketch where bucket_month between ? and ?");
+        List<Object> args = new ArrayList<>(List.of(from == null ? "0000-01" : from.toString(),
+                to == null ? "9999-12" : to.toString()));
+        if (type != null) {
+            sql.append(" and vehicle_type = ?");
+            args.add(type);
+        }
+        Map<YearMonth, DurationSketch> byMonth = new TreeMap<>();
+        jdbcTemplate.query(sql.toString(), rs -> {
+            DurationSketch sketch = DurationSketch.fromBytes(rs.getBytes(2));
+            if (sketch.getCount() > 0) {
+                byMonth.computeIfAbsent(YearMonth.parse(rs.getString(1)), month -> new DurationSketch()).merge(sketch);
+            }
+        }, args.toArray());
+        return byMonth;
+    }
+
+    /**
+     * Recomputes all sketches from the finished rentals and replaces the stored ones in one transaction.
+     * Returns the number of rows written and rentals counted.
+     */
+    public DurationStatsRebuild rebuild() {
+        return transactionTemplate.execute(status -> {
+            long started = System.currentTimeMillis();
+            String currentMonth = monthOf(Instant.now());
+            byte[] empty = new DurationSketch().toBytes();
+            jdbcTemplate.batchUpdate(INSERT_IF_ABSENT, FleetStatusCounters.TYPES.stream()
+                    .map(type -> new Object[]{type, currentMonth, 0, empty, started})
+                    .toList());
+            jdbcTemplate.query("select vehicle_type from rental_duration_sketch for update", rs -> {});
+
+            Map<List<String>, DurationSketch> sketches = readFinishedRentals();
+            jdbcTemplate.update("delete from rental_duration_sketch");
+            long now = System.currentTimeMillis();
+            jdbcTemplate.batchUpdate(INSERT_IF_ABSENT, sketches.entrySet().stream()
+                    .map(e -> new Object[]{e.getKey().get(0), e.getKey().get(1), e.getValue().getCount(), e.getValue().toBytes(), now})
+                    .toList());
+            long rentals = sketches.values().stream().mapToLong(DurationSketch::getCount).sum();
+            long millis = System.currentTimeMillis() - started;
+            logger.info("Rebuilt {} rental duration sketches from {} finished rentals in {} ms", sketches.size(), rentals, millis);
+            return new DurationStatsRebuild(sketches.size(), rentals, millis);
+        });
+    }
+
+    /**
+     * Builds the sketches once the application has started if there are none yet but there are finished rentals,
+     * like right after the table was created.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfEmpty() {
+        boolean hasSketches = !primary.queryForList("select 1 from rental_duration_sketch limit 1").isEmpty();
+        boolean hasFinishedRentals = !primary.queryForList("select 1 from rental where end_date_time is not null limit 1").isEmpty();
+        if (!hasSketches && hasFinishedRentals) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Helper: Locks the sketch row of a type and month (creating an empty one first if needed) and returns its sketch.
+     */
+    private DurationSketch lockRow(String type, String month) {
+        List<byte[]> rows = jdbcTemplate.query(SELECT_FOR_UPDATE, (rs, rowNum) -> rs.getBytes(1), type, month);
+        if (rows.isEmpty()) {
+            jdbcTemplate.update(INSERT_IF_ABSENT, type, month, 0, new DurationSketch().toBytes(), System.currentTimeMillis());
+            rows = jdbcTemplate.query(SELECT_FOR_UPDATE, (rs, rowNum) -> rs.getBytes(1), type, month);
+        }
+        return DurationSketch.fromBytes(rows.get(0));
+    }
+
+    /**
+     * Helper: Reads the finished rentals on the primary in id ranges of rebuild-chunk-size, rebuild-threads ranges
+     * at a time, and merges the sketches of all ranges by (vehicle type, month).
+     */
+    private Map<List<String>, DurationSketch> readFinishedRentals() {
+        Map<String, Object> range = primary.queryForMap("select min(id) as low, max(id) as high from rental");
+        Map<List<String>, DurationSketch> sketches = new HashMap<>();
+        if (range.get("low") == null) return sketches;
+        long low = ((Number) range.get("low")).longValue();
+        long high = ((Number) range.get("high")).longValue();
+        List<Callable<Map<List<String>, DurationSketch>>> chunks = new ArrayList<>();
+        for (long from = low; from <= high; from += rebuildChunkSize) {
+            long chunkFrom = from;
+            long chunkTo = Math.min(high, from + rebuildChunkSize - 1);
+            chunks.add(() -> readChunk(chunkFrom, chunkTo));
+        }
+        try (ExecutorService executor = Executors.newFixedThreadPool(rebuildThreads,
+                Thread.ofPlatform().name("duration-stats-rebuild-", 0).factory())) {
+            for (Future<Map<List<String>, DurationSketch>> chunk : executor.invokeAll(chunks)) {
+                chunk.get().forEach((key, sketch) -> sketches.computeIfAbsent(key, k -> new DurationSketch()).merge(sketch));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while rebuilding rental duration sketches", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw new IllegalStateException("Could not rebuild rental duration sketches", e.getCause());
+        }
+        return sketches;
+    }
+
+    /**
+     * Helper: Sketches of the finished rentals with ids from and to (inclusive) by (vehicle type, month).
+     */
+    private Map<List<String>, DurationSketch> readChunk(long from, long to) {
+        Map<List<String>, DurationSketch> sketches = new HashMap<>();
+        primary.query(SELECT_FINISHED_IN_ID_RANGE, rs -> {
+            Instant end = rs.getTimestamp(3).toInstant();
+            sketches.computeIfAbsent(List.of(rs.getString(1), monthOf(end)), key -> new DurationSketch())
+                    .add(secondsBetween(rs.getTimestamp(2).toInstant(), end));
+        }, from, to);
+        return sketches;
+    }
+
+    private static String monthOf(Instant instant) {
+        return YearMonth.from(instant.atOffset(ZoneOffset.UTC)).toString();
+    }
+
+    private static double secondsBetween(Instant start, Instant end) {
+        return Duration.between(start, end).toMillis() / 1000.0;
+    }
+}
@@ -1,25 +1,34 @@
 package se.gritacademy.fulkoping_rental.service.rental;
 
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.server.ResponseStatusException;
+import se.gritacademy.fulkoping_rental.cache.ChangeLog;
+import se.gritacademy.fulkoping_rental.cache.EntityType;
 import se.gritacademy.fulkoping_rental.dto.rental.CreateRentalDTO;
+import se.gritacademy.fulkoping_rental.exception.NotFoundException;
+import se.gritacademy.fulkoping_rental.exception.ValidationException;
 import se.gritacademy.fulkoping_rental.model.rental.Rental;
 import se.gritacademy.fulkoping_rental.model.user.User;
 import se.gritacademy.fulkoping_rental.model.vehicle.Vehicle;
 import se.gritacademy.fulkoping_rental.repository.rental.RentalRepository;
 import se.gritacademy.fulkoping_rental.repository.user.UserRepository;
 import se.gritacademy.fulkoping_rental.repository.vehicle.VehicleRepository;
+import se.gritacademy.fulkoping_rental.service.vehicle.FleetStatusCounters;
+import se.gritacademy.fulkoping_rental.retry.RetryOnConflict;
 
 import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
-
-import static org.springframework.http.HttpStatus.NOT_FOUND;
+import java.util.Set;
 
 @Service
+@Timed(value = "app.service", histogram = true)
 public class RentalService {
 
     private static final Logger logger = LoggerFactory.getLogger(RentalService.class);
@@ -27,49 +36,88 @@ public class RentalService {
     private final RentalRepository rentalRepository;
     private final UserRepository userRepository;
     private final VehicleRepository vehicleRepository;
+    private final ChangeLog changeLog;
+    private final FleetStatusCounters fleetStatus;
+    private final RentalDurationStats durationStats;
+    private final Counter bookingsCreated;
+    private final Counter bookingConflicts;
+    private final Counter returnsRegistered;
+    private final Counter returnConflicts;
+    private final Counter rentalsDeleted;
 
     public RentalService(RentalRepository rentalRepository,
                          UserRepository userRepository,
-                         VehicleRepository vehicleRepository) {
+                         VehicleRepository vehicleRepository,
+                         ChangeLog changeLog,
+                         FleetStatusCounters fleetStatus,
+                         RentalDurationStats durationStats,
+                         MeterRegistry meterRegistry) {
         this.rentalRepository = rentalRepository;
         this.userRepository = userRepository;
         this.vehicleRepository = vehicleRepository;
+        this.changeLog = changeLog;
+        this.fleetStatus = fleetStatus;
+        this.durationStats = durationStats;
+        this.bookingsCreated = meterRegistry.counter("app.rental.bookings", "outcome", "created");
+        this.bookingConflicts = meterRegistry.counter("app.rental.bookings", "outcome", "conflict");
+        this.returnsRegistered = meterRegistry.counter("app.rental.returns", "outcome", "returned");
+        this.returnConflicts = meterRegistry.counter("app.rental.returns", "outcome", "already_returned");
+        this.rentalsDeleted = meterRegistry.counter("app.rental.deletes");
     }
 
     /**
      * Creates a new rental for a user and vehicle.
      * Checks if vehicle is available, marks it as rented, saves the rental, and returns it.
+     * Marked as @Transactional so the availability check reads from the primary and the
+     * vehicle update and rental insert happen atomically.
+     * If the vehicle is changed concurrently (like a second booking), the whole booking is retried,
+     * so the availability check sees the other change.
+     * The user is read with a shared lock, so a concurrent soft delete of the user either sees this rental
+     * or has committed and the user is not found.
      */
+    @RetryOnConflict(message = "Vehicle was updated concurrently, please try again")
+    @Transactional
     public Rental createRental(CreateRentalDTO dto) {
-        User user = getUser(dto.getUserId());
+        User user = userRepository.findByIdForShare(dto.getUserId())
+                .orElseThrow(() -> new NotFoundException("User not found"));
         Vehicle vehicle = getVehicle(dto.getVehicleId());
         if (vehicle.isRented()) {
             logger.warn("Attempted to create rental for vehicle {} that is already rented", vehicle.getRegistrationNumber());
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
-                    "Vehicle is already rented: " + vehicle.getRegistrationNumber());
+            bookingConflicts.increment();
+            throw new ValidationException("Vehicle is already rented: " + vehicle.getRegistrationNumber());
         }
         markVehicleRented(vehicle, true);
         Rental rental = buildNewRental(user, vehicle);
         Rental savedRental = rentalRepository.save(rental);
+        changeLog.recordUpsert(EntityType.RENTAL, savedRental.getId());
         logger.info("Created new rental (id={}) for userId={} and vehicleId={}", savedRental.getId(), user.getId(), vehicle.getId());
+        bookingsCreated.increment();
         return savedRental;
     }
 
     /**
      * Registers the return of a rental.
-     * Sets end date, marks vehicle as available, and saves the updated rental.
+     * Sets end date, marks vehicle as available, saves the updated rental and adds its duration to the duration stats.
+     * Marked as @Transactional so the rental is read from the primary and all updates happen atomically.
+     * Retried if the rental or vehicle is changed concurrently, so a rental is never returned twice.
      */
+    @RetryOnConflict(message = "Rental was updated concurrently, please try again")
+    @Transactional
     public Rental returnRental(Long rentalId) {
         Rental rental = getRental(rentalId);
         if (rental.getEndDateTime() != null) {
             logger.warn("Attempted to return rental (id={}) that is already returned", rentalId);
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Rental already returned");
+            returnConflicts.increment();
+            throw new ValidationException("Rental already returned");
         }
         rental.setEndDateTime(OffsetDateTime.now());
         Vehicle vehicle = getVehicle(rental.getVehicleId());
         markVehicleRented(vehicle, false);
         Rental updatedRental = rentalRepository.save(rental);
+        changeLog.recordUpsert(EntityType.RENTAL, rentalId);
+        durationStats.recordReturn(updatedRental);
         logger.info("Rental (id={}) returned for vehicleId={} by userId={}", updatedRental.getId(), vehicle.getId(), rental.getUser().getId());
+        returnsRegistered.increment();
         return updatedRental;
     }
 
@@ -77,7 +125,9 @@ public class RentalService {
      * Deletes a rental.
      * Marks vehicle as available if rental is still active and removes rental from repository.
      * Marked as @Transactional to ensure both vehicle update and rental deletion happen atomically.
+     * Retried if the rental or vehicle is changed concurrently.
      */
+    @RetryOnConflict(message = "Rental was updated concurrently, please try again")
     @Transactional
     public void deleteRental(Long rentalId) {
         Rental rental = getRental(rentalId);
@@ -86,39 +136,42 @@ public class RentalService {
             markVehicleRented(vehicle, false);
         }
         rentalRepository.deleteById(rentalId);
+        changeLog.recordDelete(EntityType.RENTAL, rentalId);
         logger.info("Deleted rental (id={}) for vehicleId={} and userId={}", rental.getId(), rental.getVehicleId(), rental.getUser().getId());
+        rentalsDeleted.increment();
     }
 
     /**
-     * Deletes all finished rentals for a given user.
-     * A finished rental is defined as having a non-null endDateTime.
-     * Marked as @Transactional to ensure all deletions happen atomically.
-     * If no finished rentals exist, the method does nothing.
+     * Soft deletes all rentals of a user with one statement, for deleting the user.
+     * Must be called inside the caller's transaction; the rentals are removed later by SoftDeleteCleanup.
      */
-    @Transactional
-    public void deleteFinishedRentalsByUser(Long userId) {
-        List<Rental> finishedRentals = rentalRepository.findByUserIdAndEndDateTimeIsNotNull(userId);
-        rentalRepository.deleteAll(finishedRentals);
-        logger.info("Deleted {} finished rentals for userId={}", finishedRentals.size(), userId);
+    public void softDeleteRentalsByUser(Long userId, OffsetDateTime now) {
+        int tombstoned = rentalRepository.softDeleteByUserId(userId, now);
+        logger.info("Soft deleted {} rentals for userId={}", tombstoned, userId);
     }
 
     /**
-     * Deletes all finished rentals for a given vehicle.
-     * A finished rental is defined as having a non-null endDateTime.
-     * Marked as @Transactional to ensure all deletions happen atomically.
-     * If no finished rentals exist, the method does nothing.
+     * Soft deletes all rentals of a vehicle with one statement, like softDeleteRentalsByUser.
      */
-    @Transactional
-    public void deleteFinishedRentalsByVehicle(Long vehicleId) {
-        List<Rental> finishedRentals = rentalRepository.findByVehicleIdAndEndDateTimeIsNotNull(vehicleId);
-        rentalRepository.deleteAll(finishedRentals);
-        logger.info("Deleted {} finished rentals for vehicleId={}", finishedRentals.size(), vehicleId);
+    public void softDeleteRentalsByVehicle(Long vehicleId, OffsetDateTime now) {
+        int tombstoned = rentalRepository.softDeleteByVehicleId(vehicleId, now);
+        logger.info("Soft deleted {} rentals for vehicleId={}", tombstoned, vehicleId);
+    }
+
+    /**
+     * Soft deletes all rentals of the given users with one statement, like softDeleteRentalsByUser.
+     */
+    public void softDeleteRentalsByUsers(Collection<Long> userIds, OffsetDateTime now) {
+        if (userIds.isEmpty()) return;
+        int tombstoned = rentalRepository.softDeleteByUserIds(userIds, now);
+        logger.info("Soft deleted {} rentals for {} users", tombstoned, userIds.size());
     }
 
     /**
      * Returns all rentals for a specific user.
      * Throws if user not found.
      */
+    @Transactional(readOnly = true)
     public List<Rental> getHistoryForUser(Long userId) {
         getUser(userId);
         return rentalRepository.findByUserId(userId);
@@ -128,47 +181,83 @@ public class RentalService {
      * Returns all rentals for a specific vehicle.
      * Throws if vehicle not found.
      */
+    @Transactional(readOnly = true)
     public List<Rental> getHistoryForVehicle(Long vehicleId) {
         getVehicle(vehicleId);
         return rentalRepository.findByVehicleId(vehicleId);
     }
 
+    /**
+     * Throws 404 if the user does not exist, for callers that read the user's rentals themselves.
+     */
+    @Transactional(readOnly = true)
+    public void checkUserExists(Long userId) {
+        if (!userRepository.existsById(userId)) throw new NotFoundException("User not found");
+    }
+
+    /**
+     * Throws 404 if the vehicle does not exist, like checkUserExists.
+     */
+    @Transactional(readOnly = true)
+    public void checkVehicleExists(Long vehicleId) {
+        if (!vehicleRepository.existsById(vehicleId)) throw new NotFoundException("Vehicle not found");
+    }
+
     /**
      * Returns all rentals in the system.
      */
+    @Transactional(readOnly = true)
     public List<Rental> getAllRentals() {
         return rentalRepository.findAll();
     }
 
+    /**
+     * Returns the given rentals with their users, in a single query
+     * (skipping ids that do not exist, in no particular order).
+     */
+    @Transactional(readOnly = true)
+    public List<Rental> getRentalsByIds(Collection<Long> ids) {
+        return rentalRepository.findAllById(ids);
+    }
+
     /**
      * Checks if a vehicle has any active rental.
      */
     public boolean vehicleHasActiveRental(Long vehicleId) {
-        return rentalRepository.findByVehicleId(vehicleId)
-                .stream().anyMatch(r -> r.getEndDateTime() == null);
+        return rentalRepository.existsByVehicleIdAndEndDateTimeIsNull(vehicleId);
     }
 
     /**
      * Checks if a user has any active rental.
      */
     public boolean userHasActiveRental(Long userId) {
-        return rentalRepository.findByUserId(userId)
-                .stream().anyMatch(r -> r.getEndDateTime() == null);
+        return rentalRepository.existsByUserIdAndEndDateTimeIsNull(userId);
+    }
+
+    /**
+     * Returns the ids of the given users that have an active rental, using a single query.
+     */
+    public Set<Long> getUserIdsWithActiveRental(Collection<Long> userIds) {
+        if (userIds.isEmpty()) return Set.of();
+        return new HashSet<>(rentalRepository.findUserIdsWithActiveRental(userIds));
     }
 
     /**
      * Fetches rental or throws 404 if not found.
      */
+    @Transactional(readOnly = true)
     public Rental getRental(Long rentalId) {
         return rentalRepository.findById(rentalId)
-                .orElseThrow(() -> new ResponseStatusException(NOT_FOUND, "Rental not found"));
+                .orElseThrow(() -> new NotFoundException("Rental not found"));
     }
 
     /**
      * Saves a rental entity to the database.
+     * Must be called inside the caller's transaction, which the change is recorded in.
      */
     public void saveRental(Rental rental) {
         rentalRepository.save(rental);
+        changeLog.recordUpsert(EntityType.RENTAL, rental.getId());
     }
 
     /**
@@ -176,7 +265,7 @@ public class RentalService {
      */
     private User getUser(Long userId) {
         return userRepository.findById(userId)
-                .orElseThrow(() -> new ResponseStatusException(NOT_FOUND, "User not found"));
+                .orElseThrow(() -> new NotFoundException("User not found"));
     }
 
     /**
@@ -184,15 +273,18 @@ public class RentalService {
      */
     private Vehicle getVehicle(Long vehicleId) {
         return vehicleRepository.findById(vehicleId)
-                .orElseThrow(() -> new ResponseStatusException(NOT_FOUND, "Vehicle not found"));
+                .orElseThrow(() -> new NotFoundException("Vehicle not found"));
     }
 
     /**
-     * Helper: Marks a vehicle as rented or available and saves it.
+     * Helper: Marks a vehicle as rented or available, saves it and updates the fleet status after commit.
      */
     private void markVehicleRented(Vehicle vehicle, boolean rented) {
+        boolean wasRented = vehicle.isRented();
         vehicle.setRented(rented);
         vehicleRepository.save(vehicle);
+        changeLog.recordUpsert(EntityType.VEHICLE, vehicle.getId());
+        fleetStatus.recordRentedChanged(vehicle, wasRented);
         logger.info("Vehicle {} rental status updated to {}", vehicle.getRegistrationNumber(), rented ? "rented" : "available");
     }
 
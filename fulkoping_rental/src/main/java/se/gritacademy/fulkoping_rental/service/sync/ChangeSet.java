@@ -0,0 +1,9 @@
+package se.gritacademy.fulkoping_rental.service.sync;
+
+import java.util.List;
+
+/**
+ * Current state of the entities changed within one page of the change log, the ids of the ones
+ * that were deleted, and the cursor to request the next page with.
+ */
+public record ChangeSet<E>(long since, long next, boolean hasMore, List<E> upserts, List<Long> deleted) {}
@@ -0,0 +1,97 @@
+package se.gritacademy.fulkoping_rental.service.sync;
+
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import se.gritacademy.fulkoping_rental.cache.CacheCoherencePoller;
+import se.gritacademy.fulkoping_rental.cache.ChangeLog;
+import se.gritacademy.fulkoping_rental.cache.ChangePage;
+import se.gritacademy.fulkoping_rental.cache.EntityType;
+import se.gritacademy.fulkoping_rental.exception.GoneException;
+import se.gritacademy.fulkoping_rental.exception.ValidationException;
+import se.gritacademy.fulkoping_rental.model.user.User;
+import se.gritacademy.fulkoping_rental.model.vehicle.Vehicle;
+import se.gritacademy.fulkoping_rental.service.user.UserService;
+import se.gritacademy.fulkoping_rental.service.vehicle.VehicleService;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Delta synchronization for offline-capable clients, based on the entity change log.
+ * The sequence numbers of the log are the sync cursors: a client asks for the changes after its cursor
+ * and gets the current state of every changed entity plus tombstones (ids) for deleted ones.
+ * Pages never go past the change log watermark, so a change that commits late is never skipped.
+ */
+@Service
+@Timed(value = "app.service", histogram = true)
+public class DeltaSyncService {
+
+    private final ChangeLog changeLog;
+    private final CacheCoherencePoller poller;
+    private final VehicleService vehicleService;
+    private final UserService userService;
+    private final int maxPageSize;
+
+    public DeltaSyncService(ChangeLog changeLog, CacheCoherencePoller poller, VehicleService vehicleService,
+                            UserService userService, @Value("${app.sync.max-page-size:1000}") int maxPageSize) {
+        this.changeLog = changeLog;
+        this.poller = poller;
+        this.vehicleService = vehicleService;
+        this.userService = userService;
+        this.maxPageSize = maxPageSize;
+    }
+
+    /**
+     * Returns the vehicles changed after the cursor. Without a cursor, returns no changes and the
+     * current cursor, to be fetched before a full download of all vehicles.
+     * Throws 400 for an invalid cursor or page size and 410 if the cursor is older than the change log retention.
+     */
+    public ChangeSet<Vehicle> getVehicleChanges(Long since, int limit) {
+        return getChanges(EntityType.VEHICLE, since, limit, vehicleService::getCurrentVehicles, Vehicle::getId);
+    }
+
+    /**
+     * Returns the users changed after the cursor, like getVehicleChanges.
+     */
+    public ChangeSet<User> getUserChanges(Long since, int limit) {
+        return getChanges(EntityType.USER, since, limit, userService::getCurrentUsers, User::getId);
+    }
+
+    /**
+     * Helper: Reads one page of changes and loads the current state of the changed entities from the primary.
+     * Ids that no longer exist are returned as deleted.
+     */
+    private <E> ChangeSet<E> getChanges(EntityType type, Long since, int limit,
+                                        Function<Collection<Long>, List<E>> loader, Function<E, Long> idOf) {
+        if (limit < 1 || limit > maxPageSize) {
+            throw new ValidationException("limit must be between 1 and " + maxPageSize);
+        }
+        if (since != null && since < 0) {
+            throw new ValidationException("since must not be negative");
+        }
+        long watermark = poller.getWatermark();
+        if (since == null || watermark < 0) {
+            long cursor = since == null ? Math.max(watermark, 0) : since;
+            return new ChangeSet<>(cursor, cursor, false, List.of(), List.of());
+        }
+        ChangePage page = changeLog.readPage(type, since, watermark, limit)
+                .orElseThrow(() -> new GoneException("Changes after " + since + " are no longer available, download the full list again"));
+        Map<Long, E> current = new HashMap<>();
+        if (!page.changedIds().isEmpty()) {
+            loader.apply(page.changedIds()).forEach(e -> current.put(idOf.apply(e), e));
+        }
+        List<E> upserts = new ArrayList<>();
+        List<Long> deleted = new ArrayList<>();
+        for (Long id : page.changedIds()) {
+            E entity = current.get(id);
+            if (entity != null) upserts.add(entity);
+            else deleted.add(id);
+        }
+        return new ChangeSet<>(since, page.next(), page.hasMore(), upserts, deleted);
+    }
+}
@@ -0,0 +1,59 @@
+package se.gritacademy.fulkoping_rental.service.unique;
+
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * The unique columns guarded by UniqueValueFilter, with the API field name reported on conflicts
+ * and the name of the database constraint (see the V4 migration).
+ */
+public enum UniqueField {
+
+    EMAIL("email", "user", "email", "uk_user_email"),
+    EMPLOYEE_NUMBER("employeeNumber", "admin", "employee_number", "uk_admin_employee_number"),
+    REGISTRATION_NUMBER("registrationNumber", "vehicle", "registration_number", "uk_vehicle_registration_number");
+
+    private final String fieldName;
+    private final String table;
+    private final String column;
+    private final String constraintName;
+
+    UniqueField(String fieldName, String table, String column, String constraintName) {
+        this.fieldName = fieldName;
+        this.table = table;
+        this.column = column;
+        this.constraintName = constraintName;
+    }
+
+    public String getFieldName() {
+        return fieldName;
+    }
+
+    public String getConstraintName() {
+        return constraintName;
+    }
+
+    String selectValuesSql() {
+        return "select " + column + " from " + table + " where " + column + " is not null";
+    }
+
+    String countSql() {
+        return "select count(" + column + ") from " + table;
+    }
+
+    /**
+     * Finds the field for a constraint name reported by the database.
+     * Databases decorate the name differently (MySQL prefixes the table, H2 appends the index and columns),
+     * so the known name only has to be part of it.
+     */
+    public static Optional<UniqueField> fromConstraintName(String name) {
+        if (name == null) return Optional.empty();
+        String lower = name.toLowerCase(Locale.ROOT);
+        for (UniqueField field : values()) {
+            if (lower.contains(field.constraintName)) {
+                return Optional.of(field);
+            }
+        }
+        return Optional.empty();
+    }
+}
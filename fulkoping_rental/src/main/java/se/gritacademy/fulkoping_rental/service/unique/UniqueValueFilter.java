@@ -0,0 +1,187 @@
+package se.gritacademy.fulkoping_rental.service.unique;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import se.gritacademy.fulkoping_rental.exception.DuplicateValueException;
+
+import java.text.Normalizer;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps one Bloom filter per unique column so that saves can skip the uniqueness query
+ * for values that are definitely new, which is almost every value during bulk onboarding.
+ * Only possible hits are checked against the database.
+ * The unique constraints remain the final guard: a value missing from a filter
+ * (written by another instance, or committed while a filter was rebuilt) only means
+ * the duplicate is rejected by the database instead.
+ */
+@Component
+public class UniqueValueFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(UniqueValueFilter.class);
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    private final JdbcTemplate primary;
+    private final long expectedInsertions;
+    private final double falsePositiveRate;
+    private final double maxStaleRatio;
+    private final Map<UniqueField, Slot> slots = new EnumMap<>(UniqueField.class);
+
+    public UniqueValueFilter(HikariDataSource primaryDataSource,
+                             MeterRegistry meterRegistry,
+                             @Value("${app.unique-filter.expected-insertions:100000}") long expectedInsertions,
+                             @Value("${app.unique-filter.false-positive-rate:0.01}") double falsePositiveRate,
+                             @Value("${app.unique-filter.max-stale-ratio:0.2}") double maxStaleRatio) {
+        this.primary = new JdbcTemplate(primaryDataSource);
+        this.primary.setFetchSize(1000);
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveRate = falsePositiveRate;
+        this.maxStaleRatio = maxStaleRatio;
+        for (UniqueField field : UniqueField.values()) {
+            slots.put(field, new Slot(field, meterRegistry));
+        }
+    }
+
+    /**
+     * Throws 409 with the field name if the value is already taken.
+     * Definite misses return without touching the database; possible hits are checked
+     * with the given indexed query. Null values are ignored.
+     * Until the filter is built at startup, every value is treated as a possible hit.
+     */
+    public void ensureUnique(UniqueField field, String value, Predicate<String> existsInDatabase) {
+        if (value == null) return;
+        Slot slot = slots.get(field);
+        BloomFilter filter = slot.filter;
+        if (filter != null && !filter.mightContain(normalize(value))) {
+            slot.definiteMisses.increment();
+            return;
+        }
+        if (existsInDatabase.test(value)) {
+            slot.conflicts.increment();
+            throw new DuplicateValueException(field.getFieldName());
+        }
+        slot.falsePositives.increment();
+    }
+
+    /**
+     * Adds a saved value to the filter (and to the filter being rebuilt, if any).
+     * Called after the insert, so a rolled back save only leaves a harmless false positive.
+     * Only call it for values new to the filter (an insert or a changed value): each call counts as one more
+     * row, and a count above the table's would hide rows inserted by other instances from refresh.
+     */
+    public void add(UniqueField field, String value) {
+        if (value == null) return;
+        Slot slot = slots.get(field);
+        String key = normalize(value);
+        BloomFilter filter = slot.filter;
+        if (filter != null) filter.put(key);
+        BloomFilter building = slot.building;
+        if (building != null) building.put(key);
+        slot.entries.incrementAndGet();
+    }
+
+    /**
+     * Builds the filters at startup and afterwards rebuilds a filter when its row count shows that
+     * values were added by another instance (possible false negatives), too many values were deleted
+     * or changed (false positive rate drifting up), or the filter has outgrown its size.
+     * Reads go to the primary so a lagging replica cannot leave recent values out.
+     */
+    @Scheduled(fixedDelayString = "${app.unique-filter.check-interval-ms:60000}")
+    public void refresh() {
+        for (Slot slot : slots.values()) {
+            try {
+                long rows = primary.queryForObject(slot.field.countSql(), Long.class);
+                if (slot.needsRebuild(rows, maxStaleRatio)) {
+                    rebuild(slot, rows);
+                }
+            } catch (DataAccessException e) {
+                logger.warn("Could not refresh unique value filter for {}: {}", slot.field.getFieldName(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Helper: Scans the column into a new filter sized for twice the current rows, then swaps it in.
+     * Values saved during the scan are added to both filters.
+     */
+    private void rebuild(Slot slot, long rows) {
+        long capacity = Math.max(expectedInsertions, rows * 2);
+        BloomFilter next = new BloomFilter(capacity, falsePositiveRate);
+        slot.building = next;
+        long[] count = {0};
+        try {
+            primary.query(slot.field.selectValuesSql(), rs -> {
+                next.put(normalize(rs.getString(1)));
+                count[0]++;
+            });
+        } finally {
+            slot.building = null;
+        }
+        slot.install(next, count[0], capacity);
+        logger.info("Built unique value filter for {} with {} values ({} KB)",
+                slot.field.getFieldName(), count[0], next.getBitCount() / 8 / 1024);
+    }
+
+    /**
+     * Helper: Maps values that the database compares as equal to the same key. MySQL's default
+     * collation ignores case, trailing spaces and accents; merging more values than the database
+     * does only costs a false positive, merging fewer would hide duplicates.
+     */
+    static String normalize(String value) {
+        String key = value.strip().toLowerCase(Locale.ROOT);
+        for (int i = 0; i < key.length(); i++) {
+            if (key.charAt(i) > 0x7F) {
+                return COMBINING_MARKS.matcher(Normalizer.normalize(key, Normalizer.Form.NFD)).replaceAll("");
+            }
+        }
+        return key;
+    }
+
+    private static final class Slot {
+
+        private final UniqueField field;
+        private final Counter definiteMisses;
+        private final Counter falsePositives;
+        private final Counter conflicts;
+        private final AtomicLong entries = new AtomicLong();
+        private volatile BloomFilter filter;
+        private volatile BloomFilter building;
+        private volatile long capacity;
+
+        Slot(UniqueField field, MeterRegistry meterRegistry) {
+            this.field = field;
+            this.definiteMisses = counter(meterRegistry, "definite_miss");
+            this.falsePositives = counter(meterRegistry, "false_positive");
+            this.conflicts = counter(meterRegistry, "conflict");
+        }
+
+        boolean needsRebuild(long rows, double maxStaleRatio) {
+            if (filter == null) return true;
+            long known = entries.get();
+            return rows > known || known - rows > known * maxStaleRatio || rows > capacity;
+        }
+
+        void install(BloomFilter next, long count, long nextCapacity) {
+            capacity = nextCapacity;
+            entries.set(count);
+            filter = next;
+        }
+
+        private Counter counter(MeterRegistry meterRegistry, String outcome) {
+            return meterRegistry.counter("app.unique.checks", "field", field.getFieldName(), "outcome", outcome);
+        }
+    }
+}
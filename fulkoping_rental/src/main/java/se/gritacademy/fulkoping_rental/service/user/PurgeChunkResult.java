@@ -0,0 +1,5 @@
+package se.gritacademy.fulkoping_rental.service.user;
+
+import java.util.Map;
+
+public record PurgeChunkResult(int deleted, Map<Long, String> failures) {}
@@ -0,0 +1,80 @@
+package se.gritacademy.fulkoping_rental.service.user;
+
+import java.time.OffsetDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class PurgeJob {
+
+    public enum Status { QUEUED, RUNNING, COMPLETED, FAILED }
+
+    private final Long id;
+    private final OffsetDateTime submittedAt = OffsetDateTime.now();
+    private final AtomicInteger processed = new AtomicInteger();
+    private final AtomicInteger deleted = new AtomicInteger();
+    private final Map<Long, String> failures = new ConcurrentHashMap<>();
+    private volatile Status status = Status.QUEUED;
+    private volatile int total;
+    private volatile OffsetDateTime finishedAt;
+
+    public PurgeJob(Long id) {
+        this.id = id;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public OffsetDateTime getSubmittedAt() {
+        return submittedAt;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public int getProcessed() {
+        return processed.get();
+    }
+
+    public int getDeleted() {
+        return deleted.get();
+    }
+
+    public Map<Long, String> getFailures() {
+        return failures;
+    }
+
+    public OffsetDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public boolean isFinished() {
+        return status == Status.COMPLETED || status == Status.FAILED;
+    }
+
+    void start(int total) {
+        this.total = total;
+        this.status = Status.RUNNING;
+    }
+
+    void recordDeleted(int count) {
+        deleted.addAndGet(count);
+        processed.addAndGet(count);
+    }
+
+    void recordFailure(Long userId, String reason) {
+        failures.put(userId, reason);
+        processed.incrementAndGet();
+    }
+
+    void finish(Status status) {
+        this.finishedAt = OffsetDateTime.now();
+        this.status = status;
+    }
+}
@@ -0,0 +1,143 @@
+package se.gritacademy.fulkoping_rental.service.user;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import se.gritacademy.fulkoping_rental.dto.user.CreatePurgeJobDTO;
+import se.gritacademy.fulkoping_rental.exception.NotFoundException;
+import se.gritacademy.fulkoping_rental.exception.ValidationException;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Service
+public class UserPurgeService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserPurgeService.class);
+    private static final int MAX_FINISHED_JOBS = 100;
+
+    private final UserService userService;
+    private final ThreadPoolTaskExecutor purgeExecutor;
+    private final int chunkSize;
+    private final long minChunkMillis;
+    private final Map<Long, PurgeJob> jobs = new ConcurrentHashMap<>();
+    private final AtomicLong nextId = new AtomicLong(1);
+
+    public UserPurgeService(UserService userService,
+                            @Qualifier("purgeExecutor") ThreadPoolTaskExecutor purgeExecutor,
+                            @Value("${app.purge.chunk-size:100}") int chunkSize,
+                            @Value("${app.purge.users-per-second:200}") int usersPerSecond) {
+        this.userService = userService;
+        this.purgeExecutor = purgeExecutor;
+        this.chunkSize = chunkSize;
+        this.minChunkMillis = usersPerSecond > 0 ? 1000L * chunkSize / usersPerSecond : 0;
+    }
+
+    /**
+     * Registers a new purge job and hands it to the background executor.
+     * Exactly one of userIds or dormantSince must be given; otherwise throws 400.
+     * Throws 503 if too many jobs are already waiting.
+     */
+    public PurgeJob submit(CreatePurgeJobDTO dto) {
+        boolean hasIds = dto.getUserIds() != null && !dto.getUserIds().isEmpty();
+        if (hasIds == (dto.getDormantSince() != null)) {
+            throw new ValidationException("Specify either userIds or dormantSince");
+        }
+        evictFinishedJobs();
+        PurgeJob job = new PurgeJob(nextId.getAndIncrement());
+        jobs.put(job.getId(), job);
+        try {
+            purgeExecutor.execute(() -> run(job, dto));
+        } catch (TaskRejectedException e) {
+            jobs.remove(job.getId());
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many purge jobs queued, try again later");
+        }
+        logger.info("Submitted user purge job (id={})", job.getId());
+        return job;
+    }
+
+    /**
+     * Fetches a purge job by ID or throws 404 if not found.
+     */
+    public PurgeJob getJob(Long id) {
+        PurgeJob job = jobs.get(id);
+        if (job == null) {
+            throw new NotFoundException("Purge job not found with id " + id);
+        }
+        return job;
+    }
+
+    /**
+     * Helper: Resolves the users to purge and deletes them chunk by chunk,
+     * pausing between chunks so the configured users-per-second rate is not exceeded.
+     */
+    private void run(PurgeJob job, CreatePurgeJobDTO dto) {
+        try {
+            List<Long> ids = dto.getUserIds() != null && !dto.getUserIds().isEmpty()
+                    ? dto.getUserIds().stream().distinct().toList()
+                    : userService.getDormantCustomerIds(dto.getDormantSince());
+            job.start(ids.size());
+            logger.info("Purge job (id={}) started for {} users", job.getId(), ids.size());
+            for (int from = 0; from < ids.size(); from += chunkSize) {
+                long started = System.currentTimeMillis();
+                purgeChunk(job, ids.subList(from, Math.min(from + chunkSize, ids.size())));
+                long remaining = minChunkMillis - (System.currentTimeMillis() - started);
+                if (remaining > 0) Thread.sleep(remaining);
+            }
+            job.finish(PurgeJob.Status.COMPLETED);
+            logger.info("Purge job (id={}) completed: {} deleted, {} failed", job.getId(), job.getDeleted(), job.getFailures().size());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.finish(PurgeJob.Status.FAILED);
+            logger.warn("Purge job (id={}) interrupted", job.getId());
+        } catch (RuntimeException e) {
+            job.finish(PurgeJob.Status.FAILED);
+            logger.error("Purge job (id={}) failed", job.getId(), e);
+        }
+    }
+
+    /**
+     * Helper: Deletes one chunk in a single transaction.
+     * If the chunk fails as a whole, falls back to deleting user by user
+     * so that one bad row only fails itself.
+     */
+    private void purgeChunk(PurgeJob job, List<Long> ids) {
+        try {
+            PurgeChunkResult result = userService.purgeUsers(ids);
+            job.recordDeleted(result.deleted());
+            result.failures().forEach(job::recordFailure);
+        } catch (RuntimeException e) {
+            logger.warn("Purge job (id={}) chunk failed, retrying user by user", job.getId());
+            for (Long id : ids) {
+                try {
+                    userService.deleteUser(id);
+                    job.recordDeleted(1);
+                } catch (RuntimeException ex) {
+                    job.recordFailure(id, ex.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Helper: Keeps the job registry bounded by dropping the oldest finished jobs.
+     */
+    private void evictFinishedJobs() {
+        List<Long> finished = jobs.values().stream()
+                .filter(PurgeJob::isFinished)
+                .map(PurgeJob::getId)
+                .sorted()
+                .toList();
+        for (int i = 0; i < finished.size() - MAX_FINISHED_JOBS; i++) {
+            jobs.remove(finished.get(i));
+        }
+    }
+}
@@ -1,45 +1,81 @@
 package se.gritacademy.fulkoping_rental.service.user;
 
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.server.ResponseStatusException;
+import se.gritacademy.fulkoping_rental.cache.ChangeLog;
+import se.gritacademy.fulkoping_rental.cache.EntityType;
+import se.gritacademy.fulkoping_rental.exception.NotFoundException;
+import se.gritacademy.fulkoping_rental.exception.ValidationException;
+import se.gritacademy.fulkoping_rental.model.user.Admin;
 import se.gritacademy.fulkoping_rental.model.user.User;
 import se.gritacademy.fulkoping_rental.repository.user.UserRepository;
+import se.gritacademy.fulkoping_rental.service.patch.Patch;
+import se.gritacademy.fulkoping_rental.service.patch.PatchEngine;
 import se.gritacademy.fulkoping_rental.service.rental.RentalService;
+import se.gritacademy.fulkoping_rental.service.unique.UniqueField;
+import se.gritacademy.fulkoping_rental.service.unique.UniqueValueFilter;
 
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
-
-import static org.springframework.http.HttpStatus.NOT_FOUND;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 @Transactional
+@Timed(value = "app.service", histogram = true)
 public class UserService {
 
     private static final Logger logger = LoggerFactory.getLogger(UserService.class);
 
     private final UserRepository userRepository;
     private final RentalService rentalService;
+    private final PatchEngine patchEngine;
+    private final UniqueValueFilter uniqueValues;
+    private final ChangeLog changeLog;
+    private final Counter usersDeleted;
+    private final Counter deletesRejected;
 
-    public UserService(UserRepository userRepository, RentalService rentalService) {
+    public UserService(UserRepository userRepository, RentalService rentalService, PatchEngine patchEngine,
+                       UniqueValueFilter uniqueValues, ChangeLog changeLog, MeterRegistry meterRegistry) {
         this.userRepository = userRepository;
         this.rentalService = rentalService;
+        this.patchEngine = patchEngine;
+        this.uniqueValues = uniqueValues;
+        this.changeLog = changeLog;
+        this.usersDeleted = meterRegistry.counter("app.user.deletes", "outcome", "deleted");
+        this.deletesRejected = meterRegistry.counter("app.user.deletes", "outcome", "active_rental");
     }
 
     /**
      * Saves a new user or updates an existing user in the database.
+     * Throws 409 naming the field if the email (or an admin's employee number) is already taken;
+     * the uniqueness query only runs when the unique value filter cannot rule out a duplicate,
+     * and counts soft deleted users too.
      */
     public User saveUser(User user) {
-        User savedUser = userRepository.save(user);
-        logger.info("Saved user (id={}) with name={} {} and email={}", savedUser.getId(), savedUser.getFirstName(), savedUser.getLastName(), savedUser.getEmail());
-        return savedUser;
+        uniqueValues.ensureUnique(UniqueField.EMAIL, user.getEmail(),
+                email -> userRepository.countOtherWithEmailIncludingDeleted(email, user.getId()) > 0);
+        if (user instanceof Admin admin) {
+            uniqueValues.ensureUnique(UniqueField.EMPLOYEE_NUMBER, admin.getEmployeeNumber(),
+                    number -> userRepository.countOtherAdminsWithEmployeeNumberIncludingDeleted(number, admin.getId()) > 0);
+        }
+        boolean isNew = user.getId() == null;
+        return store(user, isNew, isNew);
     }
 
     /**
      * Fetches and returns all users.
      */
+    @Transactional(readOnly = true)
     public List<User> getAllUsers() {
         return userRepository.findAll();
     }
@@ -47,22 +83,130 @@ public class UserService {
     /**
      * Fetches a user by ID or throws 404 if not found.
      */
+    @Transactional(readOnly = true)
     public User getById(Long id) {
-        return userRepository.findById(id)
-                .orElseThrow(() -> new ResponseStatusException(NOT_FOUND, "User not found with id " + id));
+        return findUser(id);
+    }
+
+    /**
+     * Fetches the given users with a single query (skipping ids that do not exist, in no particular order).
+     */
+    @Transactional(readOnly = true)
+    public List<User> getUsersByIds(Collection<Long> ids) {
+        return userRepository.findAllById(ids);
+    }
+
+    /**
+     * Fetches the given users from the primary (skipping ids that do not exist).
+     * Not read-only, so delta sync clients never get a state older than the change that listed the user.
+     */
+    public List<User> getCurrentUsers(Collection<Long> ids) {
+        return userRepository.findAllById(ids);
     }
 
     /**
-     * Deletes a user if they have no active rentals; otherwise throws 400.
-     * Before deleting the user, all finished rentals associated with the user are also deleted.
+     * Validates and applies patch fields to a user, and saves the user only if something changed.
+     * The user is read and written in the same transaction on the primary, so a lagging replica
+     * can never supply the unchanged fields.
+     * A changed email is checked for uniqueness before it is applied, so the check never
+     * flushes the duplicate value. Throws 404 if the user does not exist, 400 if the patch is invalid
+     * and 409 if the new email is already taken.
+     */
+    public User updateUser(Long id, Map<String, Object> fields) {
+        User user = findUser(id);
+        Patch<User> patch = patchEngine.validate(user, fields);
+        Object email = patch.get("email");
+        boolean emailChanged = email != null && !email.equals(user.getEmail());
+        if (emailChanged) {
+            uniqueValues.ensureUnique(UniqueField.EMAIL, (String) email,
+                    value -> userRepository.countOtherWithEmailIncludingDeleted(value, id) > 0);
+        }
+        if (patch.applyTo(user)) {
+            user = store(user, emailChanged, false);
+        }
+        return user;
+    }
+
+    /**
+     * Soft deletes a user if they have no active rentals; otherwise throws 400.
+     * Throws 404 if the user does not exist or is already deleted.
+     * The user and their finished rentals are tombstoned with two statements, hidden from all reads right away
+     * and removed by SoftDeleteCleanup.
      */
     public void deleteUser(Long id) {
-        if (rentalService.userHasActiveRental(id)) {
+        findUser(id);
+        OffsetDateTime now = OffsetDateTime.now();
+        if (userRepository.softDeleteUnlessRenting(id, now) == 0) {
             logger.warn("Attempted to delete user (id={}) with active rentals", id);
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cannot delete user with active rentals");
+            deletesRejected.increment();
+            throw new ValidationException("Cannot delete user with active rentals");
         }
-        rentalService.deleteFinishedRentalsByUser(id);
-        userRepository.deleteById(id);
+        rentalService.softDeleteRentalsByUser(id, now);
+        changeLog.recordDelete(EntityType.USER, id);
         logger.info("Deleted user (id={})", id);
+        usersDeleted.increment();
+    }
+
+    /**
+     * Soft deletes a chunk of users in one transaction, like deleteUser.
+     * Users that do not exist or have active rentals are skipped and reported as failures.
+     * The users are locked first so no rental can be booked for them in between; the remaining users and
+     * their finished rentals are then tombstoned with two bulk statements.
+     */
+    public PurgeChunkResult purgeUsers(List<Long> ids) {
+        Map<Long, String> failures = new LinkedHashMap<>();
+        List<User> users = userRepository.findAllByIdForUpdate(ids);
+        Set<Long> found = new HashSet<>();
+        users.forEach(u -> found.add(u.getId()));
+        ids.stream().filter(id -> !found.contains(id)).forEach(id -> failures.put(id, "User not found"));
+        Set<Long> active = rentalService.getUserIdsWithActiveRental(found);
+        active.forEach(id -> failures.put(id, "Cannot delete user with active rentals"));
+        List<User> deletable = new ArrayList<>();
+        for (User user : users) {
+            if (!active.contains(user.getId())) deletable.add(user);
+        }
+        List<Long> deletableIds = deletable.stream().map(User::getId).toList();
+        if (!deletableIds.isEmpty()) {
+            OffsetDateTime now = OffsetDateTime.now();
+            userRepository.softDeleteAllById(deletableIds, now);
+            rentalService.softDeleteRentalsByUsers(deletableIds, now);
+            changeLog.recordDeletes(EntityType.USER, deletableIds);
+        }
+        logger.info("Purged {} users, skipped {}", deletable.size(), failures.size());
+        usersDeleted.increment(deletable.size());
+        deletesRejected.increment(active.size());
+        return new PurgeChunkResult(deletable.size(), failures);
+    }
+
+    /**
+     * Returns the ids of customers whose rentals all started before the given time and are finished.
+     * Customers without any rentals are never considered dormant.
+     */
+    @Transactional(readOnly = true)
+    public List<Long> getDormantCustomerIds(OffsetDateTime since) {
+        return userRepository.findDormantCustomerIds(since);
+    }
+
+    /**
+     * Helper: Saves the user, adds the unique values that are new to the filter and records the change.
+     * Unchanged values are not added again, as each add counts as one more row in the filter's staleness check.
+     */
+    private User store(User user, boolean newEmail, boolean newEmployeeNumber) {
+        User savedUser = userRepository.save(user);
+        if (newEmail) uniqueValues.add(UniqueField.EMAIL, savedUser.getEmail());
+        if (newEmployeeNumber && savedUser instanceof Admin admin) {
+            uniqueValues.add(UniqueField.EMPLOYEE_NUMBER, admin.getEmployeeNumber());
+        }
+        changeLog.recordUpsert(EntityType.USER, savedUser.getId());
+        logger.info("Saved user (id={}) with name={} {} and email={}", savedUser.getId(), savedUser.getFirstName(), savedUser.getLastName(), savedUser.getEmail());
+        return savedUser;
+    }
+
+    /**
+     * Helper: Fetches a user by ID or throws 404 if not found.
+     */
+    private User findUser(Long id) {
+        return userRepository.findById(id)
+                .orElseThrow(() -> new NotFoundException("User not found with id " + id));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,240 @@
+package se.gritacademy.fulkoping_rental.service.vehicle;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import se.gritacademy.fulkoping_rental.cache.EntityChange;
+import se.gritacademy.fulkoping_rental.cache.EntityChangeListener;
+import se.gritacademy.fulkoping_rental.cache.EntityType;
+import se.gritacademy.fulkoping_rental.model.vehicle.Vehicle;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Number of rented and available vehicles per type, kept in memory so the fleet summary needs no query.
+ * <p>
+ * Services report every vehicle that is created, deleted or changes its rented status inside the changing
+ * transaction; the counters are adjusted right after the commit, so a rolled back (or retried) transaction
+ * never counts. Changes made by other instances (or directly in the database) are picked up by reconciling
+ * with a count on the primary: periodically, and soon after the entity change log shows any vehicle change.
+ * A counter that changes locally while the count runs is left alone until the next reconcile, so a
+ * reconcile never overwrites a local change. A change that commits during the count itself can be off by one
+ * until the next reconcile; the size of every correction is recorded as app.fleet.reconcile.corrections.
+ */
+@Component
+public class FleetStatusCounters implements EntityChangeListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(FleetStatusCounters.class);
+
+    // The vehicle subtypes, as returned in VehicleDTO.type
+    public static final List<String> TYPES = List.of("Car", "Trailer", "Truck");
+
+    private static final String COUNT_BY_TYPE_AND_STATUS = """
+            select case when c.id is not null then 'Car' when t.id is not null then 'Trailer'
+                        when k.id is not null then 'Truck' end as vehicle_type,
+                   v.is_rented, count(*)
+            from vehicle v
+            left join car c on c.id = v.id
+            left join trailer t on t.id = v.id
+            left join truck k on k.id = v.id
+            where v.deleted_at is null
+            group by vehicle_type, v.is_rented""";
+
+    private final JdbcTemplate primary;
+    private final long reconcileIntervalMillis;
+    private final long minReconcileIntervalMillis;
+    // type -> {available, rented}
+    private final Map<String, LongAdder[]> counters = new HashMap<>();
+    private final Counter corrections;
+    private volatile boolean vehiclesChanged;
+    private volatile long reconciledAt;
+
+    public FleetStatusCounters(HikariDataSource primaryDataSource,
+                               MeterRegistry meterRegistry,
+                               @Value("${app.fleet-status.reconcile-interval-ms:60000}") long reconcileIntervalMillis,
+                               @Value("${app.fleet-status.min-reconcile-interval-ms:1000}") long minReconcileIntervalMillis) {
+        this.primary = new JdbcTemplate(primaryDataSource);
+        this.reconcileIntervalMillis = reconcileIntervalMillis;
+        this.minReconcileIntervalMillis = minReconcileIntervalMillis;
+        for (String type : TYPES) {
+            LongAdder[] byStatus = {new LongAdder(), new LongAdder()};
+            counters.put(type, byStatus);
+            meterRegistry.gauge("app.fleet.vehicles", Tags.of("type", type.toLowerCase(), "status", "available"),
+                    byStatus[0], LongAdder::sum);
+            meterRegistry.gauge("app.fleet.vehicles", Tags.of("type", type.toLowerCase(), "status", "rented"),
+                    byStatus[1], LongAdder::sum);
+        }
+        this.corrections = meterRegistry.counter("app.fleet.reconcile.corrections");
+    }
+
+    /**
+     * Counts a created vehicle once the transaction commits.
+     */
+    public void recordAdded(Vehicle vehicle) {
+        String type = typeOf(vehicle);
+        boolean rented = vehicle.isRented();
+        afterCommit(() -> add(type, rented, 1));
+    }
+
+    /**
+     * Stops counting a deleted vehicle once the transaction commits.
+     */
+    public void recordRemoved(Vehicle vehicle) {
+        String type = typeOf(vehicle);
+        boolean rented = vehicle.isRented();
+        afterCommit(() -> add(type, rented, -1));
+    }
+
+    /**
+     * Moves a vehicle between rented and available once the transaction commits (nothing if the status is unchanged).
+     */
+    public void recordRentedChanged(Vehicle vehicle, boolean wasRented) {
+        String type = typeOf(vehicle);
+        boolean rented = vehicle.isRented();
+        if (rented == wasRented) return;
+        afterCommit(() -> {
+            add(type, wasRented, -1);
+            add(type, rented, 1);
+        });
+    }
+
+    /**
+     * Returns {available, rented} for every vehicle type, in the order of TYPES. Reads only the counters.
+     */
+    public Map<String, long[]> getCounts() {
+        Map<String, long[]> counts = new LinkedHashMap<>();
+        for (String type : TYPES) {
+            LongAdder[] byStatus = counters.get(type);
+            counts.put(type, new long[]{Math.max(0, byStatus[0].sum()), Math.max(0, byStatus[1].sum())});
+        }
+        return counts;
+    }
+
+    /**
+     * Returns when the counters were last reconciled with the database (epoch milliseconds, 0 before the first time).
+     */
+    public long getReconciledAt() {
+        return reconciledAt;
+    }
+
+    /**
+     * Any vehicle change in the change log (from this or another instance) triggers a reconcile.
+     */
+    @Override
+    public void onChanges(List<EntityChange> changes, long watermark) {
+        for (EntityChange change : changes) {
+            if (change.entityType() == EntityType.VEHICLE) {
+                vehiclesChanged = true;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Reconciles on startup, every reconcile interval, and at most once per min-reconcile interval
+     * after vehicle changes were seen in the change log.
+     */
+    @Scheduled(fixedDelayString = "${app.fleet-status.min-reconcile-interval-ms:1000}")
+    public void reconcileIfDue() {
+        long sinceLast = System.currentTimeMillis() - reconciledAt;
+        if (reconciledAt == 0 || sinceLast >= reconcileIntervalMillis
+                || (vehiclesChanged && sinceLast >= minReconcileIntervalMillis)) {
+            reconcile();
+        }
+    }
+
+    /**
+     * Counts the vehicles per type and status on the primary and corrects the counters that did not change
+     * locally while counting.
+     */
+    public synchronized void reconcile() {
+        vehiclesChanged = false;
+        Map<String, long[]> before = rawCounts();
+        Map<String, long[]> actual = new HashMap<>();
+        TYPES.forEach(type -> actual.put(type, new long[2]));
+        try {
+            primary.query(COUNT_BY_TYPE_AND_STATUS, rs -> {
+                long[] byStatus = actual.get(rs.getString(1));
+                if (byStatus != null) byStatus[rs.getBoolean(2) ? 1 : 0] += rs.getLong(3);
+            });
+        } catch (DataAccessException e) {
+            vehiclesChanged = true;
+            logger.warn("Could not reconcile fleet status counters: {}", e.getMessage());
+            return;
+        }
+        Map<String, long[]> after = rawCounts();
+        for (String type : TYPES) {
+            for (int status = 0; status < 2; status++) {
+                long current = after.get(type)[status];
+                if (current != before.get(type)[status]) {
+                    vehiclesChanged = true;
+                    continue;
+                }
+                long correction = actual.get(type)[status] - current;
+                if (correction != 0) {
+                    counters.get(type)[status].add(correction);
+                    corrections.increment(Math.abs(correction));
+                    logger.info("Corrected fleet status counter {}/{} by {}", type, status == 1 ? "rented" : "available", correction);
+                }
+            }
+        }
+        reconciledAt = System.currentTimeMillis();
+    }
+
+    /**
+     * Helper: Current counter values, including transient negative ones.
+     */
+    private Map<String, long[]> rawCounts() {
+        Map<String, long[]> counts = new HashMap<>();
+        counters.forEach((type, byStatus) -> counts.put(type, new long[]{byStatus[0].sum(), byStatus[1].sum()}));
+        return counts;
+    }
+
+    /**
+     * Helper: Adjusts one counter; unknown types are left to the reconcile.
+     */
+    private void add(String type, boolean rented, long delta) {
+        LongAdder[] byStatus = counters.get(type);
+        if (byStatus != null) byStatus[rented ? 1 : 0].add(delta);
+    }
+
+    /**
+     * Helper: Runs the update after the current transaction commits.
+     * Throws IllegalStateException outside a transaction, where the change could still be rolled back unseen.
+     */
+    private void afterCommit(Runnable update) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Fleet status changes must be recorded inside the changing transaction");
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                update.run();
+            }
+        });
+    }
+
+    /**
+     * Helper: The DTO type name of a vehicle. Hibernate proxies are subclasses of the entity class.
+     */
+    private static String typeOf(Vehicle vehicle) {
+        for (Class<?> c = vehicle.getClass(); c != null; c = c.getSuperclass()) {
+            if (TYPES.contains(c.getSimpleName())) return c.getSimpleName();
+        }
+        return vehicle.getClass().getSimpleName();
+    }
+}
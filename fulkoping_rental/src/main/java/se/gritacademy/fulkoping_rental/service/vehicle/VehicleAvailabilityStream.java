@@ -0,0 +1,307 @@
+package se.gritacademy.fulkoping_rental.service.vehicle;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import se.gritacademy.fulkoping_rental.cache.ChangeLog;
+import se.gritacademy.fulkoping_rental.cache.EntityChange;
+import se.gritacademy.fulkoping_rental.cache.EntityChangeListener;
+import se.gritacademy.fulkoping_rental.cache.EntityType;
+import se.gritacademy.fulkoping_rental.dto.vehicle.VehicleAvailabilityDTO;
+import se.gritacademy.fulkoping_rental.exception.ValidationException;
+import se.gritacademy.fulkoping_rental.model.vehicle.Vehicle;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes vehicle availability to Server-Sent Events subscribers.
+ * <p>
+ * Events come from the entity change log (see CacheCoherencePoller), so every instance streams
+ * the changes made on all instances: bookings, returns and rent status PATCHes, as well as
+ * created and deleted vehicles. Each event carries the vehicle's current state, read once from
+ * the primary and serialized once for all subscribers.
+ * <p>
+ * Every subscriber has a bounded queue; a writer task from the stream executor only runs while
+ * the queue is not empty, so connected but idle clients hold no thread. A subscriber whose queue
+ * overflows is disconnected and catches up by reconnecting with its Last-Event-ID.
+ * <p>
+ * Event ids are change log watermarks. On reconnect, the current state of every vehicle changed
+ * after the Last-Event-ID is replayed (a "reset" event followed by all vehicles if that part of the
+ * log was already deleted). Since events carry state rather than deltas, repeated events are harmless.
+ */
+@Component
+public class VehicleAvailabilityStream implements EntityChangeListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(VehicleAvailabilityStream.class);
+
+    static final String AVAILABILITY_EVENT = "availability";
+    static final String RESET_EVENT = "reset";
+    private static final Set<String> TYPES = Set.of("Car", "Trailer", "Truck");
+
+    private final VehicleService vehicleService;
+    private final ChangeLog changeLog;
+    private final ObjectMapper objectMapper;
+    private final TaskExecutor streamExecutor;
+    private final int maxSubscribers;
+    private final int queueCapacity;
+    private final long timeoutMillis;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final Counter eventsSent;
+    private final Counter slowSubscribersDropped;
+    private final Counter subscribersRejected;
+    private volatile long watermark = -1;
+
+    public VehicleAvailabilityStream(VehicleService vehicleService,
+                                     ChangeLog changeLog,
+                                     ObjectMapper objectMapper,
+                                     TaskExecutor streamExecutor,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${app.vehicle-stream.max-subscribers:10000}") int maxSubscribers,
+                                     @Value("${app.vehicle-stream.queue-capacity:1000}") int queueCapacity,
+                                     @Value("${app.vehicle-stream.timeout-ms:1800000}") long timeoutMillis) {
+        this.vehicleService = vehicleService;
+        this.changeLog = changeLog;
+        this.objectMapper = objectMapper;
+        this.streamExecutor = streamExecutor;
+        this.maxSubscribers = maxSubscribers;
+        this.queueCapacity = queueCapacity;
+        this.timeoutMillis = timeoutMillis;
+        this.eventsSent = meterRegistry.counter("app.vehicle.stream.events", "outcome", "sent");
+        this.slowSubscribersDropped = meterRegistry.counter("app.vehicle.stream.disconnects", "reason", "queue_full");
+        this.subscribersRejected = meterRegistry.counter("app.vehicle.stream.disconnects", "reason", "too_many_subscribers");
+        meterRegistry.gauge("app.vehicle.stream.subscribers", subscribers, Set::size);
+    }
+
+    /**
+     * Registers a subscriber for vehicles of the given type (Car, Trailer or Truck, any case; null = all).
+     * With a Last-Event-ID, the vehicles changed since then are replayed before live events.
+     * Throws 400 for an unknown type and 503 when the subscriber limit is reached.
+     */
+    public SseEmitter subscribe(String type, Long lastEventId) {
+        String filter = normalizeType(type);
+        if (subscribers.size() >= maxSubscribers) {
+            subscribersRejected.increment();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many stream subscribers, please try again later");
+        }
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscriber subscriber = new Subscriber(emitter, filter, lastEventId);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(e -> subscriber.close());
+        subscribers.add(subscriber);
+        subscriber.scheduleWrite();
+        return emitter;
+    }
+
+    /**
+     * Called after every change log poll: loads the current state of the changed vehicles
+     * (one query) and queues an event for every matching subscriber.
+     */
+    @Override
+    public void onChanges(List<EntityChange> changes, long watermark) {
+        this.watermark = watermark;
+        if (subscribers.isEmpty()) return;
+        Set<Long> ids = new LinkedHashSet<>();
+        for (EntityChange change : changes) {
+            if (change.entityType() == EntityType.VEHICLE) ids.add(change.entityId());
+        }
+        if (ids.isEmpty()) return;
+        for (Event event : toEvents(ids, vehicleService.getCurrentVehicles(ids), watermark)) {
+            for (Subscriber subscriber : subscribers) {
+                subscriber.offer(event);
+            }
+        }
+    }
+
+    /**
+     * Sends a comment to every subscriber so that proxies keep idle connections open
+     * and connections of clients that went away are detected and removed.
+     */
+    @Scheduled(fixedDelayString = "${app.vehicle-stream.heartbeat-interval-ms:15000}")
+    public void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(Event.HEARTBEAT);
+        }
+    }
+
+    /**
+     * Helper: Builds one event per id, with the vehicle's state or as removed if it no longer exists.
+     */
+    private List<Event> toEvents(Set<Long> ids, List<Vehicle> vehicles, long eventId) {
+        Map<Long, Vehicle> byId = new HashMap<>();
+        vehicles.forEach(v -> byId.put(v.getId(), v));
+        return ids.stream().map(id -> {
+            Vehicle vehicle = byId.get(id);
+            VehicleAvailabilityDTO dto = vehicle == null
+                    ? new VehicleAvailabilityDTO(id, null, null, false, true)
+                    : new VehicleAvailabilityDTO(id, vehicle.getClass().getSimpleName(),
+                            vehicle.getRegistrationNumber(), vehicle.isRented(), false);
+            return new Event(AVAILABILITY_EVENT, eventId, id, dto.type(),
+                    vehicle == null ? Long.MAX_VALUE : vehicle.getVersion(), toJson(dto));
+        }).toList();
+    }
+
+    /**
+     * Helper: Serializes an event payload once for all subscribers.
+     */
+    private String toJson(Object payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize stream event", e);
+        }
+    }
+
+    /**
+     * Helper: Maps the type parameter to the vehicle class name, or throws 400.
+     */
+    private static String normalizeType(String type) {
+        if (type == null || type.isBlank()) return null;
+        String normalized = type.substring(0, 1).toUpperCase() + type.substring(1).toLowerCase();
+        if (!TYPES.contains(normalized)) {
+            throw new ValidationException("Unknown vehicle type: " + type + " (expected Car, Trailer or Truck)");
+        }
+        return normalized;
+    }
+
+    /**
+     * A queued event. Version is the vehicle's optimistic lock version (Long.MAX_VALUE for removed vehicles),
+     * used to skip live events that are older than the state a replay already sent.
+     */
+    private record Event(String name, long id, Long vehicleId, String type, long version, String json) {
+        static final Event HEARTBEAT = new Event(null, -1, null, null, 0, null);
+    }
+
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final String type;
+        private final Queue<Event> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger queued = new AtomicInteger();
+        private final AtomicBoolean writing = new AtomicBoolean();
+        private volatile Long replayFrom;
+        private volatile boolean closed;
+        // Versions sent by the replay; only touched by the writer task
+        private Map<Long, Long> replayedVersions;
+
+        Subscriber(SseEmitter emitter, String type, Long replayFrom) {
+            this.emitter = emitter;
+            this.type = type;
+            this.replayFrom = replayFrom;
+        }
+
+        void offer(Event event) {
+            if (closed || (event.type() != null && type != null && !type.equals(event.type()))) return;
+            if (queued.incrementAndGet() > queueCapacity) {
+                slowSubscribersDropped.increment();
+                close();
+                return;
+            }
+            queue.add(event);
+            scheduleWrite();
+        }
+
+        void scheduleWrite() {
+            if (!closed && writing.compareAndSet(false, true)) {
+                streamExecutor.execute(this::write);
+            }
+        }
+
+        /**
+         * Sends the replay (if requested) and then all queued events. Only one write task runs per subscriber.
+         */
+        private void write() {
+            try {
+                if (replayFrom != null) {
+                    replay(replayFrom);
+                    replayFrom = null;
+                } else if (replayedVersions == null) {
+                    replayedVersions = Map.of();
+                    emitter.send(SseEmitter.event().comment("connected"));
+                }
+                Event event;
+                while (!closed && (event = queue.poll()) != null) {
+                    queued.decrementAndGet();
+                    send(event);
+                }
+            } catch (IOException | IllegalStateException e) {
+                // Client went away or the emitter already completed
+                close();
+            } catch (RuntimeException e) {
+                logger.warn("Could not write to vehicle stream subscriber: {}", e.getMessage());
+                close();
+            } finally {
+                writing.set(false);
+            }
+            if (!queue.isEmpty()) scheduleWrite();
+        }
+
+        /**
+         * Helper: Sends the current state of every vehicle changed after the given event id,
+         * or a reset event and all vehicles if the change log no longer goes back that far.
+         */
+        private void replay(long from) throws IOException {
+            long eventId = Math.max(watermark, from);
+            Optional<Set<Long>> changed = changeLog.changedSince(EntityType.VEHICLE, from);
+            List<Event> events;
+            if (changed.isPresent()) {
+                events = toEvents(changed.get(), vehicleService.getCurrentVehicles(changed.get()), eventId);
+            } else {
+                List<Vehicle> vehicles = vehicleService.getAllCurrentVehicles();
+                Set<Long> ids = new LinkedHashSet<>();
+                vehicles.forEach(v -> ids.add(v.getId()));
+                emitter.send(SseEmitter.event().name(RESET_EVENT).id(String.valueOf(eventId)).data("{}"));
+                events = toEvents(ids, vehicles, eventId);
+            }
+            replayedVersions = new HashMap<>();
+            for (Event event : events) {
+                if (type == null || event.type() == null || type.equals(event.type())) {
+                    send(event);
+                }
+                replayedVersions.put(event.vehicleId(), event.version());
+            }
+            if (events.isEmpty()) {
+                emitter.send(SseEmitter.event().comment("connected"));
+            }
+        }
+
+        private void send(Event event) throws IOException {
+            if (event == Event.HEARTBEAT) {
+                emitter.send(SseEmitter.event().comment("heartbeat"));
+                return;
+            }
+            Long replayed = replayedVersions.get(event.vehicleId());
+            if (replayed != null && event.version() <= replayed) return;
+            emitter.send(SseEmitter.event().name(event.name()).id(String.valueOf(event.id())).data(event.json()));
+            eventsSent.increment();
+        }
+
+        void close() {
+            if (closed) return;
+            closed = true;
+            subscribers.remove(this);
+            emitter.complete();
+        }
+    }
+}
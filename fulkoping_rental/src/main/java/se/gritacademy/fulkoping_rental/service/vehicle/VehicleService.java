@@ -1,39 +1,81 @@
 package se.gritacademy.fulkoping_rental.service.vehicle;
 
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
-import org.springframework.web.server.ResponseStatusException;
+import org.springframework.transaction.annotation.Transactional;
+import se.gritacademy.fulkoping_rental.cache.ChangeLog;
+import se.gritacademy.fulkoping_rental.cache.EntityType;
+import se.gritacademy.fulkoping_rental.exception.NotFoundException;
+import se.gritacademy.fulkoping_rental.exception.ValidationException;
 import se.gritacademy.fulkoping_rental.model.rental.Rental;
 import se.gritacademy.fulkoping_rental.model.vehicle.Vehicle;
 import se.gritacademy.fulkoping_rental.repository.vehicle.VehicleRepository;
+import se.gritacademy.fulkoping_rental.retry.RetryOnConflict;
+import se.gritacademy.fulkoping_rental.service.rental.RentalDurationStats;
 import se.gritacademy.fulkoping_rental.service.rental.RentalService;
+import se.gritacademy.fulkoping_rental.service.unique.UniqueField;
+import se.gritacademy.fulkoping_rental.service.unique.UniqueValueFilter;
 
 import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
-import static org.springframework.http.HttpStatus.NOT_FOUND;
-
 @Service
+@Timed(value = "app.service", histogram = true)
 public class VehicleService {
 
     private static final Logger logger = LoggerFactory.getLogger(VehicleService.class);
 
     private final VehicleRepository vehicleRepository;
     private final RentalService rentalService;
+    private final UniqueValueFilter uniqueValues;
+    private final ChangeLog changeLog;
+    private final FleetStatusCounters fleetStatus;
+    private final RentalDurationStats durationStats;
+    private final Counter statusUpdates;
+    private final Counter rentalsEndedByPatch;
+    private final Counter vehiclesDeleted;
+    private final Counter deletesRejected;
 
-    public VehicleService(VehicleRepository vehicleRepository, RentalService rentalService) {
+    public VehicleService(VehicleRepository vehicleRepository, RentalService rentalService,
+                          UniqueValueFilter uniqueValues, ChangeLog changeLog, FleetStatusCounters fleetStatus,
+                          RentalDurationStats durationStats, MeterRegistry meterRegistry) {
         this.vehicleRepository = vehicleRepository;
         this.rentalService = rentalService;
+        this.uniqueValues = uniqueValues;
+        this.changeLog = changeLog;
+        this.fleetStatus = fleetStatus;
+        this.durationStats = durationStats;
+        this.statusUpdates = meterRegistry.counter("app.vehicle.status.updates");
+        this.rentalsEndedByPatch = meterRegistry.counter("app.rental.returns", "outcome", "ended_by_patch");
+        this.vehiclesDeleted = meterRegistry.counter("app.vehicle.deletes", "outcome", "deleted");
+        this.deletesRejected = meterRegistry.counter("app.vehicle.deletes", "outcome", "active_rental");
     }
 
     /**
      * Saves a new vehicle or updates an existing vehicle in the database.
+     * Throws 409 naming the field if the registration number is already taken;
+     * the uniqueness query only runs when the unique value filter cannot rule out a duplicate,
+     * and counts soft deleted vehicles too.
+     * New vehicles are added to the unique value filter and counted in the fleet status right away;
+     * updates are picked up by its next reconcile.
      */
+    @Transactional
     public Vehicle saveVehicle(Vehicle vehicle) {
+        uniqueValues.ensureUnique(UniqueField.REGISTRATION_NUMBER, vehicle.getRegistrationNumber(),
+                number -> vehicleRepository.countOtherWithRegistrationNumberIncludingDeleted(number, vehicle.getId()) > 0);
+        boolean isNew = vehicle.getId() == null;
         Vehicle savedVehicle = vehicleRepository.save(vehicle);
+        changeLog.recordUpsert(EntityType.VEHICLE, savedVehicle.getId());
+        if (isNew) {
+            uniqueValues.add(UniqueField.REGISTRATION_NUMBER, savedVehicle.getRegistrationNumber());
+            fleetStatus.recordAdded(savedVehicle);
+        }
         logger.info("Saved vehicle (id={}) with registration number={} and type={}",
                 savedVehicle.getId(), savedVehicle.getRegistrationNumber(), savedVehicle.getClass().getSimpleName());
         return savedVehicle;
@@ -42,6 +84,7 @@ public class VehicleService {
     /**
      * Fetches and returns all vehicles.
      */
+    @Transactional(readOnly = true)
     public List<Vehicle> getAllVehicles() {
         return vehicleRepository.findAll();
     }
@@ -49,38 +92,79 @@ public class VehicleService {
     /**
      * Fetches a vehicle by ID or throws 404 if not found.
      */
+    @Transactional(readOnly = true)
     public Vehicle getVehicleById(Long id) {
         return vehicleRepository.findById(id)
-                .orElseThrow(() -> new ResponseStatusException(NOT_FOUND, "Vehicle not found with id " + id));
+                .orElseThrow(() -> new NotFoundException("Vehicle not found with id " + id));
+    }
+
+    /**
+     * Fetches the given vehicles with a single query (skipping ids that do not exist, in no particular order).
+     */
+    @Transactional(readOnly = true)
+    public List<Vehicle> getVehiclesByIds(Collection<Long> ids) {
+        return vehicleRepository.findAllById(ids);
+    }
+
+    /**
+     * Fetches the given vehicles from the primary (skipping ids that do not exist).
+     * Marked as @Transactional so state pushed to stream subscribers is never older than the change that triggered it.
+     */
+    @Transactional
+    public List<Vehicle> getCurrentVehicles(Collection<Long> ids) {
+        return vehicleRepository.findAllById(ids);
+    }
+
+    /**
+     * Fetches all vehicles from the primary, for stream subscribers that need a full snapshot.
+     */
+    @Transactional
+    public List<Vehicle> getAllCurrentVehicles() {
+        return vehicleRepository.findAll();
     }
 
     /**
      * Updates the rented status of a vehicle.
      * Ends active rental if marking as available.
+     * Marked as @Transactional so all reads go to the primary and the updates happen atomically.
+     * Retried if the vehicle or its active rental is changed concurrently (like a booking or return).
      */
+    @RetryOnConflict(message = "Vehicle was updated concurrently, please try again")
+    @Transactional
     public Vehicle updateRentStatus(Long id, boolean rented) {
         Vehicle vehicle = getVehicleById(id);
         if (!rented && rentalService.vehicleHasActiveRental(id)) {
             endActiveRental(id);
         }
+        boolean wasRented = vehicle.isRented();
         vehicle.setRented(rented);
         Vehicle updated = vehicleRepository.save(vehicle);
+        changeLog.recordUpsert(EntityType.VEHICLE, id);
+        fleetStatus.recordRentedChanged(updated, wasRented);
         logger.info("Vehicle (id={}) rental status updated to {}", updated.getId(), rented ? "rented" : "available");
+        statusUpdates.increment();
         return updated;
     }
 
     /**
-     * Deletes a vehicle if it has no active rentals; otherwise throws 400.
-     * Before deleting the vehicle, all finished rentals associated with the vehicle are also deleted.
+     * Soft deletes a vehicle if it has no active rentals; otherwise throws 400.
+     * The vehicle and its finished rentals are tombstoned with two statements, so the request takes the same time
+     * however long the rental history is; they are hidden from all reads right away and removed by SoftDeleteCleanup.
      */
+    @Transactional
     public void deleteVehicle(Long id) {
-        if (rentalService.vehicleHasActiveRental(id)) {
+        Vehicle vehicle = getVehicleById(id);
+        OffsetDateTime now = OffsetDateTime.now();
+        if (vehicleRepository.softDeleteUnlessRented(id, now) == 0) {
             logger.warn("Attempted to delete vehicle (id={}) with active rentals", id);
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cannot delete vehicle with active rentals");
+            deletesRejected.increment();
+            throw new ValidationException("Cannot delete vehicle with active rentals");
         }
-        rentalService.deleteFinishedRentalsByVehicle(id);
-        vehicleRepository.deleteById(id);
+        rentalService.softDeleteRentalsByVehicle(id, now);
+        fleetStatus.recordRemoved(vehicle);
+        changeLog.recordDelete(EntityType.VEHICLE, id);
         logger.info("Deleted vehicle (id={})", id);
+        vehiclesDeleted.increment();
     }
 
     /**
@@ -100,11 +184,13 @@ public class VehicleService {
     }
 
     /**
-     * Helper: Finishes a rental by setting endDateTime and saving it.
+     * Helper: Finishes a rental by setting endDateTime, saving it and adding its duration to the duration stats.
      */
     private void finishRental(Rental rental) {
         rental.setEndDateTime(OffsetDateTime.now());
         rentalService.saveRental(rental);
+        durationStats.recordReturn(rental);
         logger.info("Active rental (id={}) ended automatically due to PATCH on vehicle {}", rental.getId(), rental.getVehicleId());
+        rentalsEndedByPatch.increment();
     }
 }
\ No newline at end of file
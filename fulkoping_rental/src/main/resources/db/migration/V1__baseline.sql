@@ -0,0 +1,82 @@
+-- Baseline: the schema as previously created by Hibernate (ddl-auto=update).
+-- Existing databases are baselined at this version and start with V2.
+
+create table user (
+    id bigint not null auto_increment,
+    first_name varchar(20) not null,
+    last_name varchar(20) not null,
+    email varchar(255) not null,
+    primary key (id),
+    constraint UKob8kqyqqgmefl0aco34akdtpe unique (email)
+) engine=InnoDB;
+
+create table customer (
+    id bigint not null,
+    phone_number varchar(255) not null,
+    primary key (id),
+    constraint FKg2o3t8h0g17smtr9jgypagdtv foreign key (id) references user (id)
+) engine=InnoDB;
+
+create table admin (
+    id bigint not null,
+    employee_number varchar(255) not null,
+    primary key (id),
+    constraint UKnqu8w0fjd1yujs0klm1vboyt4 unique (employee_number),
+    constraint FK1ja8rua032fgnk9jmq7du3b3a foreign key (id) references user (id)
+) engine=InnoDB;
+
+create table vehicle (
+    is_rented bit not null,
+    id bigint not null auto_increment,
+    brand varchar(255) not null,
+    model varchar(255) not null,
+    registration_number varchar(255) not null,
+    primary key (id),
+    constraint UK6fo0502tpr111m29vqj0bhpa4 unique (registration_number)
+) engine=InnoDB;
+
+create table car (
+    seat_count integer not null,
+    id bigint not null,
+    primary key (id),
+    constraint FKfugwdpykh9kb35q1quro44hrm foreign key (id) references vehicle (id)
+) engine=InnoDB;
+
+create table truck (
+    id bigint not null,
+    driving_license_level varchar(255) not null,
+    primary key (id),
+    constraint FKhr1a7ybtqa417xh5rfa1x2moc foreign key (id) references vehicle (id)
+) engine=InnoDB;
+
+create table trailer (
+    max_weight integer not null,
+    id bigint not null,
+    primary key (id),
+    constraint FKj619wx1l3vkobocsqv2ao07s1 foreign key (id) references vehicle (id)
+) engine=InnoDB;
+
+create table rental (
+    end_date_time datetime(6),
+    id bigint not null auto_increment,
+    start_date_time datetime(6) not null,
+    user_id bigint not null,
+    vehicle_id bigint not null,
+    vehicle_registration_number varchar(255) not null,
+    vehicle_type varchar(255) not null,
+    primary key (id),
+    constraint FKm6f1r8a0m7w8n5upyjslprj25 foreign key (user_id) references user (id)
+) engine=InnoDB;
+
+create table api_key (
+    read_limit_per_second integer,
+    write_limit_per_second integer,
+    created_at datetime(6) not null,
+    id bigint not null auto_increment,
+    revoked_at datetime(6),
+    key_hash varchar(64) not null,
+    name varchar(255) not null,
+    role varchar(255) not null,
+    primary key (id),
+    constraint UKc3kxypboi2preufocp17cterb unique (key_hash)
+) engine=InnoDB;
@@ -0,0 +1,11 @@
+-- Indexes for the queries in RentalRepository and UserRepository.
+
+-- History per user, active/finished checks per user, bulk delete of finished rentals
+-- and the dormant customer lookup. start_date_time makes the index covering for the dormant check.
+create index idx_rental_user_end_start on rental (user_id, end_date_time, start_date_time);
+
+-- History per vehicle and active/finished checks per vehicle.
+create index idx_rental_vehicle_end on rental (vehicle_id, end_date_time);
+
+-- Time range queries over all rentals.
+create index idx_rental_start on rental (start_date_time);
@@ -0,0 +1,6 @@
+-- Heartbeat row written by ReplicaLagMonitor to measure replica lag.
+-- "if not exists" because earlier versions created the table at runtime.
+create table if not exists replica_heartbeat (
+    id int not null primary key,
+    beat_at bigint not null
+) engine=InnoDB;
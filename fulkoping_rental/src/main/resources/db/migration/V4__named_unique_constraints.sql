@@ -0,0 +1,11 @@
+-- Give the unique constraints generated by Hibernate readable names, so a violation
+-- can be mapped to the field it belongs to (see UniqueField).
+-- Dropped before re-adding because H2 would otherwise keep reporting the old index name.
+alter table user drop constraint UKob8kqyqqgmefl0aco34akdtpe;
+alter table user add constraint uk_user_email unique (email);
+
+alter table admin drop constraint UKnqu8w0fjd1yujs0klm1vboyt4;
+alter table admin add constraint uk_admin_employee_number unique (employee_number);
+
+alter table vehicle drop constraint UK6fo0502tpr111m29vqj0bhpa4;
+alter table vehicle add constraint uk_vehicle_registration_number unique (registration_number);
@@ -0,0 +1,3 @@
+-- Version columns for optimistic locking of vehicles and rentals (@Version).
+alter table vehicle add column version bigint not null default 0;
+alter table rental add column version bigint not null default 0;
@@ -0,0 +1,13 @@
+-- Append-only log of entity changes written by the services in the same transaction as the change.
+-- Every instance polls it by seq to evict its local caches (see ChangeLog and CacheCoherencePoller).
+create table entity_change (
+    seq bigint not null auto_increment,
+    entity_type varchar(16) not null,
+    entity_id bigint not null,
+    change_type varchar(8) not null,
+    changed_at bigint not null,
+    primary key (seq)
+) engine=InnoDB;
+
+-- Retention cleanup by age.
+create index idx_entity_change_changed_at on entity_change (changed_at);
@@ -0,0 +1,2 @@
+-- Changes of one entity type after a sequence number (delta sync pages and stream replays).
+create index idx_entity_change_type_seq on entity_change (entity_type, seq);
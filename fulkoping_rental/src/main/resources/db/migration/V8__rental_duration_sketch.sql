@@ -0,0 +1,14 @@
+-- Rental duration quantile sketches per vehicle type and month of the return (UTC, like 2026-10),
+-- updated in the transaction of every return (see RentalDurationStats and DurationSketch).
+-- rental_count is the number of durations in the sketch.
+create table rental_duration_sketch (
+    vehicle_type varchar(32) not null,
+    bucket_month char(7) not null,
+    rental_count bigint not null,
+    sketch blob not null,
+    updated_at bigint not null,
+    primary key (vehicle_type, bucket_month)
+) engine=InnoDB;
+
+-- Range queries over months for all vehicle types.
+create index idx_rental_duration_sketch_month on rental_duration_sketch (bucket_month);
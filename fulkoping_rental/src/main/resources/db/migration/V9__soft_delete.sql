@@ -0,0 +1,17 @@
+-- Tombstones for soft deletion: rows with deleted_at set are hidden from all reads (@SQLRestriction on the
+-- entities) and removed in batches by SoftDeleteCleanup. Deleting a vehicle or user tombstones its rentals too.
+alter table vehicle add column deleted_at datetime(6);
+alter table user add column deleted_at datetime(6);
+alter table rental add column deleted_at datetime(6);
+
+-- Cleanup batches start from the (few) tombstoned vehicles and users and reach their rentals through
+-- idx_rental_vehicle_end and idx_rental_user_end_start_deleted. rental.deleted_at gets no index of its own:
+-- nearly every row is null, and an index on it only tempts the planner away from the indexes below.
+create index idx_vehicle_deleted_at on vehicle (deleted_at);
+create index idx_user_deleted_at on user (deleted_at);
+
+-- Every rental query now also filters on deleted_at; adding it keeps the index covering for the dormant check.
+-- MySQL uses idx_rental_user_end_start for the rental.user_id foreign key (V2 replaced the key's own index),
+-- so the new index is created first and the old one can then be dropped.
+create index idx_rental_user_end_start_deleted on rental (user_id, end_date_time, start_date_time, deleted_at);
+drop index idx_rental_user_end_start on rental;
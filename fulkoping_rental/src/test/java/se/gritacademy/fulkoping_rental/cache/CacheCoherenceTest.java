@@ -0,0 +1,119 @@
+package se.gritacademy.fulkoping_rental.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import se.gritacademy.fulkoping_rental.FulkopingRentalApplication;
+import se.gritacademy.fulkoping_rental.controller.user.UserController;
+import se.gritacademy.fulkoping_rental.controller.vehicle.VehicleController;
+import se.gritacademy.fulkoping_rental.dto.vehicle.VehicleDTO;
+import se.gritacademy.fulkoping_rental.exception.NotFoundException;
+import se.gritacademy.fulkoping_rental.model.user.Customer;
+import se.gritacademy.fulkoping_rental.model.vehicle.Car;
+import se.gritacademy.fulkoping_rental.service.user.UserService;
+import se.gritacademy.fulkoping_rental.service.vehicle.VehicleService;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs two instances of the application against one embedded database: changes made on instance A
+ * must evict the cached DTOs on instance B within a bounded delay, measured by B's delay timer.
+ */
+class CacheCoherenceTest {
+
+    private static final long POLL_INTERVAL_MS = 50;
+    private static final long MAX_DELAY_MS = 1000;
+
+    private static ConfigurableApplicationContext instanceA;
+    private static ConfigurableApplicationContext instanceB;
+
+    @BeforeAll
+    static void startInstances() {
+        instanceA = start();
+        instanceB = start();
+    }
+
+    @AfterAll
+    static void stopInstances() {
+        instanceB.close();
+        instanceA.close();
+    }
+
+    @Test
+    void changesOnOneInstanceEvictTheOtherInstancesCaches() {
+        long run = System.nanoTime();
+        VehicleService vehiclesA = instanceA.getBean(VehicleService.class);
+        UserService usersA = instanceA.getBean(UserService.class);
+        VehicleController vehiclesB = instanceB.getBean(VehicleController.class);
+        UserController usersB = instanceB.getBean(UserController.class);
+        MeterRegistry metricsB = instanceB.getBean(MeterRegistry.class);
+        Long vehicleId = vehiclesA.saveVehicle(new Car("CO" + run % 100_000, "Volvo", "V70", false, 5)).getId();
+        Long userId = usersA.saveUser(new Customer("Cache", "Test", "cache-" + run + "@example.com", "+46701234567")).getId();
+        awaitTrue(() -> instanceB.getBean("vehicleCache", CoherentCache.class).isValid(System.currentTimeMillis()));
+
+        assertFalse(((VehicleDTO) vehiclesB.getVehicleById(vehicleId, null)).rented());
+        assertFalse(vehiclesB.getAllVehicles(null).stream().map(VehicleDTO.class::cast).filter(v -> v.id().equals(vehicleId)).findFirst().orElseThrow().rented());
+        assertEquals(vehicleId, ((VehicleDTO) vehiclesB.getVehicleById(vehicleId, null)).id());
+        assertTrue(hits(metricsB, "vehicle") >= 1, "second read on B should be a cache hit");
+        usersB.getUserById(userId, null);
+
+        long changedAt = System.nanoTime();
+        vehiclesA.updateRentStatus(vehicleId, true);
+        usersA.deleteUser(userId);
+        awaitTrue(() -> ((VehicleDTO) vehiclesB.getVehicleById(vehicleId, null)).rented());
+        long observedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - changedAt);
+
+        assertTrue(observedMillis < MAX_DELAY_MS, "change visible on B after " + observedMillis + " ms");
+        VehicleDTO listed = vehiclesB.getAllVehicles(null).stream().map(VehicleDTO.class::cast).filter(v -> v.id().equals(vehicleId)).findFirst().orElseThrow();
+        assertTrue(listed.rented());
+        awaitTrue(() -> {
+            try {
+                usersB.getUserById(userId, null);
+                return false;
+            } catch (NotFoundException deleted) {
+                return true;
+            }
+        });
+        assertThrows(NotFoundException.class, () -> usersB.getUserById(userId, null));
+        Timer delay = metricsB.get("app.cache.coherence.delay").timer();
+        assertTrue(delay.count() >= 2, "changes applied on B: " + delay.count());
+        assertTrue(delay.max(TimeUnit.MILLISECONDS) < MAX_DELAY_MS, "max delay " + delay.max(TimeUnit.MILLISECONDS) + " ms");
+    }
+
+    private static ConfigurableApplicationContext start() {
+        return new SpringApplicationBuilder(FulkopingRentalApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                .run("--spring.datasource.url=jdbc:h2:mem:cache_coherence;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1",
+                        "--app.datasource.replica.urls=",
+                        "--app.cache.coherence.poll-interval-ms=" + POLL_INTERVAL_MS);
+    }
+
+    private static double hits(MeterRegistry registry, String cache) {
+        return registry.get("app.cache.requests").tag("cache", cache).tag("result", "hit").counter().count();
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "condition not met within 5 s");
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
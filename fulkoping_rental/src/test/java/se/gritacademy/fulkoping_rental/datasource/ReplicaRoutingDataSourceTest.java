@@ -0,0 +1,125 @@
+package se.gritacademy.fulkoping_rental.datasource;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Routes transactions through the same proxy setup as DataSourceConfig, with two embedded H2 databases
+ * standing in for the primary and the replica. Replication is simulated by copying the heartbeat row.
+ */
+class ReplicaRoutingDataSourceTest {
+
+    private static final AtomicInteger DATABASES = new AtomicInteger();
+    private static final String CREATE_HEARTBEAT =
+            "create table replica_heartbeat (id int not null primary key, beat_at bigint not null)";
+
+    private DataSource primary;
+    private DataSource replica;
+    private JdbcTemplate replicaJdbc;
+    private ReplicaLagMonitor monitor;
+    private TransactionTemplate readOnly;
+    private TransactionTemplate readWrite;
+    private JdbcTemplate jdbc;
+
+    @BeforeEach
+    void setUp() {
+        primary = h2("primary");
+        replica = h2("replica");
+        replicaJdbc = new JdbcTemplate(replica);
+        new JdbcTemplate(primary).execute(CREATE_HEARTBEAT);
+        new JdbcTemplate(primary).execute("create table marker (name varchar(20))");
+        new JdbcTemplate(primary).update("insert into marker values ('primary')");
+        replicaJdbc.execute("create table marker (name varchar(20))");
+        replicaJdbc.update("insert into marker values ('replica')");
+        setUpRouting(replica);
+    }
+
+    @Test
+    void readsUsePrimaryUntilReplicaHasHeartbeat() {
+        monitor.checkReplicas();
+
+        assertEquals("primary", readOnlyTarget());
+    }
+
+    @Test
+    void readOnlyTransactionsUseReplicaAndWritesUsePrimary() {
+        monitor.checkReplicas();
+        replicateHeartbeat();
+        monitor.checkReplicas();
+
+        assertEquals("replica", readOnlyTarget());
+        assertEquals("primary", readWrite.execute(status -> target()));
+    }
+
+    @Test
+    void laggingReplicaFallsBackToPrimary() {
+        monitor.checkReplicas();
+        replicateHeartbeat();
+        replicaJdbc.update("update replica_heartbeat set beat_at = beat_at - 60000");
+        monitor.checkReplicas();
+
+        assertEquals("primary", readOnlyTarget());
+    }
+
+    @Test
+    void unreachableReplicaFallsBackToPrimary() {
+        JdbcDataSource missing = new JdbcDataSource();
+        missing.setURL("jdbc:h2:mem:missing-" + DATABASES.incrementAndGet() + ";IFEXISTS=TRUE");
+        setUpRouting(missing);
+        monitor.checkReplicas();
+
+        assertEquals("primary", readOnlyTarget());
+    }
+
+    private void setUpRouting(DataSource replicaDataSource) {
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary,
+                List.of(new ReplicaRoutingDataSource.Replica("replica-1", replicaDataSource)), 2000, new SimpleMeterRegistry());
+        monitor = new ReplicaLagMonitor(routing, 1000);
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(primary);
+        proxy.setReadOnlyDataSource(routing);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(proxy);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readWrite = new TransactionTemplate(transactionManager);
+        jdbc = new JdbcTemplate(proxy);
+    }
+
+    private String readOnlyTarget() {
+        return readOnly.execute(status -> target());
+    }
+
+    private String target() {
+        return jdbc.execute((ConnectionCallback<String>) connection -> {
+            try (var statement = connection.createStatement(); var result = statement.executeQuery("select name from marker")) {
+                result.next();
+                return result.getString(1);
+            }
+        });
+    }
+
+    private void replicateHeartbeat() {
+        Long beat = new JdbcTemplate(primary).queryForObject(ReplicaLagMonitor.SELECT_BEAT, Long.class);
+        replicaJdbc.execute("drop table if exists replica_heartbeat");
+        replicaJdbc.execute(CREATE_HEARTBEAT);
+        replicaJdbc.update("insert into replica_heartbeat (id, beat_at) values (1, ?)", beat);
+    }
+
+    private static DataSource h2(String name) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + name + "-" + DATABASES.incrementAndGet() + ";DB_CLOSE_DELAY=-1");
+        return dataSource;
+    }
+}
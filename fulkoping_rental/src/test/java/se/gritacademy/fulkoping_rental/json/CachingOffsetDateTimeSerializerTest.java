@@ -0,0 +1,68 @@
+package se.gritacademy.fulkoping_rental.json;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import se.gritacademy.fulkoping_rental.config.JacksonConfig;
+import se.gritacademy.fulkoping_rental.dto.rental.RentalDTO;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+/**
+ * The fast path must produce exactly the JSON that Spring Boot's default ObjectMapper produced before.
+ */
+class CachingOffsetDateTimeSerializerTest {
+
+    private final ObjectMapper defaultMapper = Jackson2ObjectMapperBuilder.json().build();
+    private final ObjectMapper fastMapper = Jackson2ObjectMapperBuilder.json()
+            .modulesToInstall(new JacksonConfig().blackbirdModule(), new JacksonConfig().offsetDateTimeModule())
+            .build();
+
+    @Test
+    void replacesDefaultSerializer() throws Exception {
+        assertInstanceOf(CachingOffsetDateTimeSerializer.class,
+                fastMapper.getSerializerProviderInstance().findValueSerializer(OffsetDateTime.class));
+    }
+
+    @Test
+    void matchesDefaultFormatForRandomValues() throws Exception {
+        SplittableRandom random = new SplittableRandom(42);
+        int[] nanoSteps = {0, 1, 1_000, 1_000_000, 10_000_000, 100_000_000};
+        for (int i = 0; i < 20_000; i++) {
+            int step = nanoSteps[random.nextInt(nanoSteps.length)];
+            int nano = step == 0 ? 0 : random.nextInt(1_000_000_000 / step) * step;
+            OffsetDateTime value = OffsetDateTime.of(
+                    random.nextInt(1, 10_000), random.nextInt(1, 13), random.nextInt(1, 29),
+                    random.nextInt(24), random.nextInt(60), random.nextInt(60), nano,
+                    ZoneOffset.ofTotalSeconds(random.nextInt(-18 * 3600, 18 * 3600 + 1)));
+            assertEquals(defaultMapper.writeValueAsString(value), fastMapper.writeValueAsString(value));
+        }
+    }
+
+    @Test
+    void matchesDefaultFormatForEdgeCases() throws Exception {
+        OffsetDateTime[] values = {
+                OffsetDateTime.of(2025, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC),
+                OffsetDateTime.of(2025, 12, 31, 23, 59, 59, 999_999_999, ZoneOffset.ofHours(1)),
+                OffsetDateTime.of(2025, 6, 1, 12, 0, 0, 120_000, ZoneOffset.ofHoursMinutesSeconds(-5, -30, -15)),
+                OffsetDateTime.of(7, 3, 4, 5, 6, 7, 0, ZoneOffset.UTC),
+                OffsetDateTime.of(-1, 3, 4, 5, 6, 7, 0, ZoneOffset.UTC),
+                OffsetDateTime.of(10_000, 3, 4, 5, 6, 7, 0, ZoneOffset.UTC)
+        };
+        for (OffsetDateTime value : values) {
+            assertEquals(defaultMapper.writeValueAsString(value), fastMapper.writeValueAsString(value));
+        }
+    }
+
+    @Test
+    void rentalDtoJsonIsUnchanged() throws Exception {
+        RentalDTO rental = new RentalDTO(1L, 2L, "Anna", "Andersson", 3L, "ABC123", "Car",
+                OffsetDateTime.of(2025, 5, 1, 10, 15, 30, 123_456_000, ZoneOffset.UTC), null);
+        assertEquals(defaultMapper.writeValueAsString(rental), fastMapper.writeValueAsString(rental));
+    }
+}
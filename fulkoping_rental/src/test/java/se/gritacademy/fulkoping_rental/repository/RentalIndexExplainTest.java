@@ -0,0 +1,104 @@
+package se.gritacademy.fulkoping_rental.repository;
+
+import org.flywaydb.core.Flyway;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the migrations against an embedded H2 database in MySQL mode and checks with EXPLAIN that
+ * each repository query uses its index, and that the plan changes once the index is dropped.
+ * Lookups on user_id alone are served equally well by the index MySQL and H2 create for the
+ * foreign key, which cannot be dropped; for those only the chosen index is checked.
+ * The SQL mirrors what Hibernate generates for the repository methods named in each case.
+ */
+class RentalIndexExplainTest {
+
+    private static final AtomicInteger DATABASES = new AtomicInteger();
+    private static final String USER_FOREIGN_KEY_INDEX = "fkm6f1r8a0m7w8n5upyjslprj25";
+
+    private JdbcTemplate jdbc;
+
+    @BeforeEach
+    void setUp() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:explain-" + DATABASES.incrementAndGet()
+                + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1");
+        Flyway.configure().dataSource(dataSource).load().migrate();
+        jdbc = new JdbcTemplate(dataSource);
+        seed();
+    }
+
+    static Stream<Arguments> queries() {
+        return Stream.of(
+                Arguments.of("findByUserId", "idx_rental_user_end_start_deleted",
+                        "select r.id from rental r where r.user_id = 7 and r.deleted_at is null"),
+                Arguments.of("existsByUserIdAndEndDateTimeIsNull", "idx_rental_user_end_start_deleted",
+                        "select r.id from rental r where r.user_id = 7 and r.end_date_time is null and r.deleted_at is null limit 1"),
+                Arguments.of("softDeleteByUserId", USER_FOREIGN_KEY_INDEX,
+                        "update rental set deleted_at = timestamp '2025-01-01 00:00:00' where user_id = 7 and deleted_at is null"),
+                Arguments.of("findUserIdsWithActiveRental", "idx_rental_user_end_start_deleted",
+                        "select distinct r.user_id from rental r where r.user_id in (3, 7, 11) and r.end_date_time is null"
+                                + " and r.deleted_at is null"),
+                Arguments.of("softDeleteByUserIds", USER_FOREIGN_KEY_INDEX,
+                        "update rental set deleted_at = timestamp '2025-01-01 00:00:00' where user_id in (3, 7, 11)"
+                                + " and deleted_at is null"),
+                Arguments.of("findDormantCustomerIds", "idx_rental_user_end_start_deleted",
+                        "select c.id from customer c where not exists (select r.id from rental r where r.user_id = c.id"
+                                + " and (r.end_date_time is null or r.start_date_time >= timestamp '2025-01-01 00:00:00')"
+                                + " and r.deleted_at is null)"),
+                Arguments.of("findByVehicleId", "idx_rental_vehicle_end",
+                        "select r.id from rental r where r.vehicle_id = 7 and r.deleted_at is null"),
+                Arguments.of("existsByVehicleIdAndEndDateTimeIsNull", "idx_rental_vehicle_end",
+                        "select r.id from rental r where r.vehicle_id = 7 and r.end_date_time is null and r.deleted_at is null limit 1"),
+                Arguments.of("softDeleteByVehicleId", "idx_rental_vehicle_end",
+                        "update rental set deleted_at = timestamp '2025-01-01 00:00:00' where vehicle_id = 7 and deleted_at is null"),
+                Arguments.of("SoftDeleteCleanup rentals of vehicles", "idx_rental_vehicle_end",
+                        "select r.id from vehicle v join rental r on r.vehicle_id = v.id"
+                                + " where v.deleted_at is not null and r.deleted_at is not null limit 500"),
+                Arguments.of("rentals started in a time range", "idx_rental_start",
+                        "select r.id from rental r where r.start_date_time >= timestamp '2025-03-01 00:00:00'"
+                                + " and r.start_date_time < timestamp '2025-04-01 00:00:00' and r.deleted_at is null"));
+    }
+
+    @ParameterizedTest(name = "{0} uses {1}")
+    @MethodSource("queries")
+    void queryUsesIndex(String query, String index, String sql) {
+        assertTrue(explain(sql).contains(index), () -> query + " does not use " + index + ":\n" + explain(sql));
+
+        if (index.equals(USER_FOREIGN_KEY_INDEX)) return;
+        jdbc.execute("drop index " + index);
+
+        assertFalse(explain(sql).contains(index), () -> query + " still uses " + index + ":\n" + explain(sql));
+    }
+
+    private String explain(String sql) {
+        return jdbc.queryForObject("explain " + sql, String.class);
+    }
+
+    /**
+     * Helper: Inserts enough rows that H2's cost-based planner prefers an index over a table scan.
+     */
+    private void seed() {
+        jdbc.update("insert into user (id, first_name, last_name, email) "
+                + "select x, 'First', 'Last', 'user' || x || '@example.com' from system_range(1, 500) r(x)");
+        jdbc.update("insert into customer (id, phone_number) select x, '+46700000000' from system_range(1, 500) r(x)");
+        jdbc.update("insert into rental (id, user_id, vehicle_id, vehicle_registration_number, vehicle_type, "
+                + "start_date_time, end_date_time, deleted_at) "
+                + "select x, 1 + mod(x, 500), 1 + mod(x, 200), 'REG' || mod(x, 200), 'Car', "
+                + "timestamp '2024-01-01 00:00:00' + x * interval '1' hour, "
+                + "casewhen(mod(x, 50) = 0, null, timestamp '2024-01-01 03:00:00' + x * interval '1' hour), "
+                + "casewhen(mod(x, 1000) = 0, timestamp '2025-01-01 00:00:00', null) "
+                + "from system_range(1, 20000) r(x)");
+        jdbc.execute("analyze");
+    }
+}
@@ -0,0 +1,80 @@
+package se.gritacademy.fulkoping_rental.security;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The concurrency limit must settle where requests barely queue for database connections, shrink at once
+ * when they start queueing, and never let more than the limit in flight.
+ */
+class GradientLimitTest {
+
+    private static final long MILLIS = 1_000_000;
+
+    @Test
+    void settlesNearThePoolSizeAndShrinksWhenTheDatabaseSlowsDown() {
+        GradientLimit limit = new GradientLimit(20, 4, 200, 2.0, 0.2);
+        for (int i = 0; i < 300; i++) runFullLoad(limit, 10 * MILLIS);
+        assertTrue(limit.getLimit() >= 10 && limit.getLimit() <= 60, "limit " + limit.getLimit());
+
+        // Every query now takes five times as long, so requests queue at any concurrency
+        for (int i = 0; i < 5; i++) runFullLoad(limit, 50 * MILLIS);
+        assertTrue(limit.getLimit() <= 10, "limit " + limit.getLimit());
+    }
+
+    @Test
+    void rejectsOverTheLimitAndDoesNotGrowWhileMostlyIdle() {
+        GradientLimit limit = new GradientLimit(10, 2, 100, 2.0, 0.2);
+        int[] permits = new int[10];
+        for (int i = 0; i < permits.length; i++) permits[i] = limit.tryAcquire();
+        assertEquals(10, permits[9]);
+        assertEquals(0, limit.tryAcquire());
+        for (int permit : permits) limit.release(permit, 10 * MILLIS, false);
+        assertEquals(0, limit.getInFlight());
+
+        int before = limit.getLimit();
+        for (int i = 0; i < 1000; i++) limit.release(limit.tryAcquire(), 10 * MILLIS, false);
+        assertEquals(before, limit.getLimit());
+
+        limit.release(limit.tryAcquire(), 10 * MILLIS, true);
+        assertTrue(limit.getLimit() < before);
+    }
+
+    @Test
+    void fastCacheHitsDoNotShrinkTheLimitForSlowerQueries() {
+        GradientLimit limit = new GradientLimit(20, 4, 200, 2.0, 0.2);
+        // One request at a time, 7 in 10 served from the cache in 0.2 ms and the rest by a 3 ms query
+        for (int i = 0; i < 2000; i++) limit.release(limit.tryAcquire(), mixedLatency(i), false);
+        assertEquals(20, limit.getLimit());
+
+        // Bursts of 8 that never queue, as the database pool has 10 connections
+        for (int i = 0; i < 500; i++) {
+            int[] permits = new int[8];
+            for (int j = 0; j < permits.length; j++) permits[j] = limit.tryAcquire();
+            for (int j = 0; j < permits.length; j++) {
+                assertTrue(permits[j] > 0, "burst " + i + " rejected at limit " + limit.getLimit());
+                limit.release(permits[j], mixedLatency(i * permits.length + j), false);
+            }
+        }
+    }
+
+    /**
+     * Helper: Latency of the i-th request when 3 in 10 miss the cache.
+     */
+    private static long mixedLatency(int i) {
+        return i % 10 < 3 ? 3 * MILLIS : MILLIS / 5;
+    }
+
+    /**
+     * Helper: Starts as many requests as the limit allows and ends them all with the latency of a pool of
+     * 10 database connections running queries of the given duration, where the excess requests queue.
+     */
+    private static void runFullLoad(GradientLimit limit, long queryNanos) {
+        int[] permits = new int[limit.getLimit()];
+        for (int i = 0; i < permits.length; i++) permits[i] = limit.tryAcquire();
+        long rttNanos = (long) (queryNanos * Math.max(1, permits.length / 10.0));
+        for (int permit : permits) limit.release(permit, rttNanos, false);
+    }
+}
@@ -0,0 +1,96 @@
+package se.gritacademy.fulkoping_rental.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The bucket must refill at its rate up to its capacity, report when the next token is available
+ * (rounded up to whole milliseconds), ignore clock readings older than its last refill,
+ * and never grant more than capacity plus refill, however many threads take tokens at once.
+ */
+class TokenBucketTest {
+
+    @Test
+    void grantsTheFullBucketThenRefillsAtTheRate() {
+        TokenBucket bucket = new TokenBucket(10, 5);
+        for (int i = 0; i < 5; i++) assertEquals(0, bucket.tryAcquire(0));
+        assertEquals(100, bucket.tryAcquire(0));
+
+        assertEquals(50, bucket.tryAcquire(50));
+        assertEquals(0, bucket.tryAcquire(100));
+        assertEquals(100, bucket.tryAcquire(100));
+    }
+
+    @Test
+    void roundsTheRetryTimeUpToWholeMilliseconds() {
+        TokenBucket bucket = new TokenBucket(3, 1);
+        assertEquals(0, bucket.tryAcquire(0));
+        // One token takes 333.3 ms at 3 per second
+        assertEquals(334, bucket.tryAcquire(0));
+        assertEquals(1, bucket.tryAcquire(333));
+        assertEquals(0, bucket.tryAcquire(334));
+    }
+
+    @Test
+    void neverHoldsMoreThanItsCapacity() {
+        TokenBucket bucket = new TokenBucket(100, 3);
+        assertEquals(0, bucket.tryAcquire(0));
+        long idle = 1_000_000_000L;
+        for (int i = 0; i < 3; i++) assertEquals(0, bucket.tryAcquire(idle));
+        assertEquals(10, bucket.tryAcquire(idle));
+    }
+
+    @Test
+    void ignoresClockReadingsBeforeTheLastRefill() {
+        TokenBucket bucket = new TokenBucket(1, 1);
+        assertEquals(0, bucket.tryAcquire(1000));
+        assertEquals(1000, bucket.tryAcquire(500));
+        assertEquals(1, bucket.tryAcquire(1999));
+        assertEquals(0, bucket.tryAcquire(2000));
+    }
+
+    @Test
+    void concurrentCallersNeverGetMoreThanCapacityPlusRefill() throws Exception {
+        int rate = 50;
+        int capacity = 20;
+        long durationMillis = 2000;
+        TokenBucket bucket = new TokenBucket(rate, capacity);
+        AtomicLong clock = new AtomicLong();
+        int threads = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    int granted = 0;
+                    for (int i = 0; i < 20_000; i++) {
+                        // Threads read the shared clock at different moments, so their times arrive out of order
+                        long now = Math.min(clock.incrementAndGet() / 50, durationMillis);
+                        if (bucket.tryAcquire(now) == 0) granted++;
+                    }
+                    return granted;
+                }));
+            }
+            start.countDown();
+            int granted = 0;
+            for (Future<Integer> result : results) granted += result.get();
+
+            assertTrue(granted >= capacity, "granted " + granted);
+            assertTrue(granted <= capacity + rate * durationMillis / 1000, "granted " + granted);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package se.gritacademy.fulkoping_rental.service.cleanup;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import se.gritacademy.fulkoping_rental.dto.rental.CreateRentalDTO;
+import se.gritacademy.fulkoping_rental.exception.DuplicateValueException;
+import se.gritacademy.fulkoping_rental.exception.NotFoundException;
+import se.gritacademy.fulkoping_rental.exception.ValidationException;
+import se.gritacademy.fulkoping_rental.model.rental.Rental;
+import se.gritacademy.fulkoping_rental.model.user.Customer;
+import se.gritacademy.fulkoping_rental.model.vehicle.Car;
+import se.gritacademy.fulkoping_rental.service.rental.RentalService;
+import se.gritacademy.fulkoping_rental.service.user.UserService;
+import se.gritacademy.fulkoping_rental.service.vehicle.VehicleService;
+
+import java.time.LocalTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Deleting a vehicle or user must hide it and its rentals from every read at once while the rows stay
+ * until the cleanup removes them, subtype rows included. The scheduled cleanup is off so only the test cleans up.
+ */
+@SpringBootTest(properties = {
+        "app.soft-delete.cleanup.enabled=false",
+        "app.soft-delete.cleanup.window-start=00:00",
+        "app.soft-delete.cleanup.window-end=00:01"
+})
+@ActiveProfiles("test")
+class SoftDeleteCleanupTest {
+
+    @Autowired
+    private SoftDeleteCleanup cleanup;
+    @Autowired
+    private VehicleService vehicleService;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private RentalService rentalService;
+    @Autowired
+    private HikariDataSource primaryDataSource;
+
+    @Test
+    void hidesDeletedEntitiesAndTheirRentalsUntilCleanupRemovesThem() {
+        JdbcTemplate jdbc = new JdbcTemplate(primaryDataSource);
+        long run = System.nanoTime() % 100_000;
+        Long userId = userService.saveUser(
+                new Customer("Soft", "Delete", "soft-" + run + "@example.com", "+46701234567")).getId();
+        Long carId = vehicleService.saveVehicle(new Car("SD" + run, "Volvo", "V70", false, 5)).getId();
+        Long otherCarId = vehicleService.saveVehicle(new Car("SE" + run, "Volvo", "V90", false, 5)).getId();
+        for (int i = 0; i < 3; i++) {
+            rentalService.returnRental(rentalService.createRental(booking(userId, carId)).getId());
+        }
+        Rental active = rentalService.createRental(booking(userId, otherCarId));
+
+        assertThrows(ValidationException.class, () -> vehicleService.deleteVehicle(otherCarId));
+        assertThrows(ValidationException.class, () -> userService.deleteUser(userId));
+
+        vehicleService.deleteVehicle(carId);
+        assertThrows(NotFoundException.class, () -> vehicleService.getVehicleById(carId));
+        assertTrue(rentalService.getAllRentals().stream().noneMatch(r -> r.getVehicleId().equals(carId)));
+        assertEquals(3, count(jdbc, "select count(*) from rental where vehicle_id = ?", carId));
+
+        rentalService.returnRental(active.getId());
+        userService.deleteUser(userId);
+        assertThrows(NotFoundException.class, () -> userService.getById(userId));
+        assertTrue(rentalService.getAllRentals().stream().noneMatch(r -> r.getVehicleId().equals(otherCarId)));
+        assertFalse(vehicleService.getAllVehicles().stream().anyMatch(v -> v.getId().equals(carId)));
+
+        // Tombstoned rows keep their unique values until the cleanup removes them
+        assertThrows(DuplicateValueException.class,
+                () -> vehicleService.saveVehicle(new Car("SD" + run, "Volvo", "V70", false, 5)));
+        assertThrows(DuplicateValueException.class, () -> userService.saveUser(
+                new Customer("Soft", "Again", "soft-" + run + "@example.com", "+46701234567")));
+
+        while (cleanup.cleanupBatch() > 0) {
+            // One batch per call, like the scheduled cleanup
+        }
+        assertEquals(0, count(jdbc, "select count(*) from rental where user_id = ?", userId));
+        assertEquals(0, count(jdbc, "select count(*) from vehicle where id = ?", carId));
+        assertEquals(0, count(jdbc, "select count(*) from car where id = ?", carId));
+        assertEquals(0, count(jdbc, "select count(*) from user where id = ?", userId));
+        assertEquals(0, count(jdbc, "select count(*) from customer where id = ?", userId));
+        assertEquals(otherCarId, vehicleService.getVehicleById(otherCarId).getId());
+    }
+
+    @Test
+    void cleanupOnlyRunsInsideTheWindow() {
+        assertTrue(cleanup.isInWindow(LocalTime.of(0, 0, 30)));
+        assertFalse(cleanup.isInWindow(LocalTime.of(0, 1)));
+        assertFalse(cleanup.isInWindow(LocalTime.of(23, 59)));
+    }
+
+    private static CreateRentalDTO booking(Long userId, Long vehicleId) {
+        CreateRentalDTO dto = new CreateRentalDTO();
+        dto.setUserId(userId);
+        dto.setVehicleId(vehicleId);
+        return dto;
+    }
+
+    private static long count(JdbcTemplate jdbc, String sql, Long id) {
+        return jdbc.queryForObject(sql, Long.class, id);
+    }
+}
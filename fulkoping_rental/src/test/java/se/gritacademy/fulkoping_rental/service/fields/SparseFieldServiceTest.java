@@ -0,0 +1,119 @@
+package se.gritacademy.fulkoping_rental.service.fields;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import se.gritacademy.fulkoping_rental.dto.rental.CreateRentalDTO;
+import se.gritacademy.fulkoping_rental.exception.ValidationException;
+import se.gritacademy.fulkoping_rental.model.user.Customer;
+import se.gritacademy.fulkoping_rental.model.vehicle.Car;
+import se.gritacademy.fulkoping_rental.model.vehicle.Trailer;
+import se.gritacademy.fulkoping_rental.service.rental.RentalService;
+import se.gritacademy.fulkoping_rental.service.user.UserService;
+import se.gritacademy.fulkoping_rental.service.vehicle.VehicleService;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Sparse fieldsets must only select the requested columns: subtype tables are joined only for their own fields
+ * (without reading vehicle a second time), and the rental's user only for the user's name.
+ * The SQL is captured with a statement inspector, the caches are never filled so every call queries.
+ */
+@SpringBootTest(properties =
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "se.gritacademy.fulkoping_rental.service.fields.SparseFieldServiceTest$CapturingInspector")
+@ActiveProfiles("test")
+class SparseFieldServiceTest {
+
+    private static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+    private static final Pattern VEHICLE_TABLE = Pattern.compile("\\bvehicle \\w+_\\d");
+
+    @Autowired
+    private SparseFieldService sparseFieldService;
+    @Autowired
+    private VehicleService vehicleService;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private RentalService rentalService;
+
+    @Test
+    void parsesFieldsInDtoOrderAndRejectsUnknownOrEmptyOnes() {
+        assertEquals(List.of("id", "rented"),
+                SparseResource.VEHICLE.parse(" rented,id,,id ").stream().map(SparseField::name).toList());
+        assertThrows(ValidationException.class, () -> SparseResource.VEHICLE.parse("id,color"));
+        assertThrows(ValidationException.class, () -> SparseResource.RENTAL.parse(" , "));
+    }
+
+    @Test
+    void subtypeFieldsJoinOnlyTheirOwnTable() {
+        long run = System.nanoTime() % 100_000;
+        Long carId = vehicleService.saveVehicle(new Car("SP" + run, "Volvo", "V70", false, 5)).getId();
+        Long trailerId = vehicleService.saveVehicle(new Trailer("SQ" + run, "Brenderup", "1205", false, 750)).getId();
+
+        String sql = capture(() -> {
+            Map<String, Object> car = sparseFieldService.findById(SparseResource.VEHICLE, "id,seatCount", carId);
+            assertEquals(5, car.get("seatCount"));
+        });
+        assertEquals(1, VEHICLE_TABLE.matcher(sql).results().count(), sql);
+        assertTrue(sql.contains("car "), sql);
+        assertFalse(sql.contains("trailer") || sql.contains("truck"), sql);
+
+        sql = capture(() -> {
+            Map<String, Object> trailer = sparseFieldService.findAllOfType(SparseResource.VEHICLE, "id,seatCount,maxWeight", "Trailer")
+                    .stream().filter(row -> row.get("id").equals(trailerId)).findFirst().orElseThrow();
+            assertNull(trailer.get("seatCount"));
+            assertEquals(750, trailer.get("maxWeight"));
+        });
+        assertFalse(sql.contains("car "), sql);
+    }
+
+    @Test
+    void rentalFieldsJoinTheUserOnlyForItsName() {
+        long run = System.nanoTime() % 100_000;
+        Long userId = userService.saveUser(
+                new Customer("Sparse", "Fields", "sparse-" + run + "@example.com", "+46701234567")).getId();
+        Long carId = vehicleService.saveVehicle(new Car("SR" + run, "Volvo", "V90", false, 5)).getId();
+        CreateRentalDTO booking = new CreateRentalDTO();
+        booking.setUserId(userId);
+        booking.setVehicleId(carId);
+        Long rentalId = rentalService.createRental(booking).getId();
+
+        String sql = capture(() -> assertEquals(Map.of("id", rentalId, "userId", userId),
+                sparseFieldService.findById(SparseResource.RENTAL, "id,userId", rentalId)));
+        assertFalse(sql.contains(" join "), sql);
+
+        sql = capture(() -> assertEquals("Sparse",
+                sparseFieldService.findById(SparseResource.RENTAL, "userFirstName", rentalId).get("userFirstName")));
+        assertTrue(sql.contains(" join "), sql);
+    }
+
+    /**
+     * Helper: Runs the action and returns the SQL it executed.
+     */
+    private static String capture(Runnable action) {
+        STATEMENTS.clear();
+        action.run();
+        return String.join("\n", STATEMENTS);
+    }
+
+    public static class CapturingInspector implements StatementInspector {
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
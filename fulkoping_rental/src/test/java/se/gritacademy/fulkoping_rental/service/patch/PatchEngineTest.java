@@ -0,0 +1,127 @@
+package se.gritacademy.fulkoping_rental.service.patch;
+
+import jakarta.validation.Validation;
+import jakarta.validation.ValidatorFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import se.gritacademy.fulkoping_rental.exception.ValidationException;
+import se.gritacademy.fulkoping_rental.model.user.Admin;
+import se.gritacademy.fulkoping_rental.model.user.Customer;
+import se.gritacademy.fulkoping_rental.model.vehicle.Car;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Patches must be rejected with the same messages as the former UserValidator and vehicle checks,
+ * and a rejected patch must leave the entity as it was.
+ */
+class PatchEngineTest {
+
+    private static ValidatorFactory validatorFactory;
+    private static PatchEngine engine;
+
+    @BeforeAll
+    static void setUp() {
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        engine = new PatchEngine(validatorFactory.getValidator());
+    }
+
+    @AfterAll
+    static void tearDown() {
+        validatorFactory.close();
+    }
+
+    @Test
+    void rejectsEmptyBodiesAndUnknownFields() {
+        assertRejected("Request body cannot be empty", customer(), Map.of());
+        assertRejected("Request body cannot be empty", customer(), null);
+        assertRejected("Field not allowed: password", customer(), Map.of("password", "secret"));
+        assertRejected("Field not allowed: phoneNumber", new Admin("Anna", "Berg", "anna@example.com", "E1"),
+                Map.of("phoneNumber", "+46701234567"));
+        assertRejected("Field not allowed: color", car(), Map.of("rented", true, "color", "red"));
+    }
+
+    @Test
+    void rejectsWrongTypes() {
+        assertRejected("firstName must be a string", customer(), Map.of("firstName", 42));
+        Map<String, Object> nullEmail = new HashMap<>();
+        nullEmail.put("email", null);
+        assertRejected("email must be a string", customer(), nullEmail);
+    }
+
+    @Test
+    void reportsUpdateUserDtoConstraintViolations() {
+        assertRejected("email: Email must be valid", customer(), Map.of("email", "not-an-email"));
+        assertRejected("phoneNumber: Phone number must be in format +46xxxxxxx", customer(),
+                Map.of("phoneNumber", "0701234567"));
+
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("firstName", "A");
+        fields.put("lastName", "B");
+        assertRejected("firstName: First name must be between 2 and 20 characters; "
+                + "lastName: Last name must be between 2 and 20 characters", customer(), fields);
+    }
+
+    @Test
+    void requiresRentedForVehicles() {
+        String message = "'rented' field is required and must be boolean";
+        assertRejected(message, car(), Map.of());
+        assertRejected(message, car(), Map.of("rented", "yes"));
+
+        Car car = car();
+        assertTrue(engine.apply(car, Map.of("rented", true)));
+        assertTrue(car.isRented());
+    }
+
+    @Test
+    void appliesOnlyChangedValues() {
+        Customer customer = customer();
+        Patch<Customer> unchanged = engine.validate(customer, Map.of("firstName", "Anna", "email", "anna@example.com"));
+        assertFalse(unchanged.applyTo(customer));
+
+        Patch<Customer> changed = engine.validate(customer, Map.of("lastName", "Lind"));
+        assertEquals("Lind", changed.get("lastName"));
+        assertNull(changed.get("firstName"));
+        assertTrue(changed.applyTo(customer));
+        assertEquals("Lind", customer.getLastName());
+    }
+
+    @Test
+    void leavesTheTargetUntouchedWhenAPatchIsRejected() {
+        Customer customer = customer();
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("firstName", "Berit");
+        fields.put("email", "not-an-email");
+        assertThrows(ValidationException.class, () -> engine.apply(customer, fields));
+
+        fields.put("email", "berit@example.com");
+        fields.put("phoneNumber", 46701234567L);
+        assertThrows(ValidationException.class, () -> engine.apply(customer, fields));
+
+        assertEquals("Anna", customer.getFirstName());
+        assertEquals("anna@example.com", customer.getEmail());
+        assertEquals("+46701234567", customer.getPhoneNumber());
+    }
+
+    private static void assertRejected(String message, Object target, Map<String, Object> fields) {
+        ValidationException e = assertThrows(ValidationException.class, () -> engine.validate(target, fields));
+        assertEquals(message, e.getMessage());
+    }
+
+    private static Customer customer() {
+        return new Customer("Anna", "Berg", "anna@example.com", "+46701234567");
+    }
+
+    private static Car car() {
+        return new Car("ABC123", "Volvo", "V70", false, 5);
+    }
+}
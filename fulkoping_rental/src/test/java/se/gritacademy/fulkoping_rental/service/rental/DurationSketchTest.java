@@ -0,0 +1,71 @@
+package se.gritacademy.fulkoping_rental.service.rental;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The duration percentiles promise every quantile within 1% of the exact one, and rebuilds rely on
+ * merging sketches of id ranges giving the same result as one sketch over all rentals.
+ */
+class DurationSketchTest {
+
+    private static final double[] QUANTILES = {0, 0.01, 0.25, 0.5, 0.9, 0.99, 0.999, 1};
+
+    @Test
+    void quantilesAreWithinTheRelativeError() {
+        double[] durations = rentalDurations(100_000, 1);
+        DurationSketch sketch = new DurationSketch();
+        for (double duration : durations) sketch.add(duration);
+
+        double[] sorted = durations.clone();
+        Arrays.sort(sorted);
+        for (double q : QUANTILES) {
+            double exact = sorted[(int) Math.floor(q * (sorted.length - 1))];
+            double estimate = sketch.quantile(q);
+            double error = exact < 1 ? estimate : Math.abs(estimate - exact) / exact;
+            assertTrue(error <= DurationSketch.RELATIVE_ERROR + 1e-9, "q=" + q + " exact=" + exact + " estimate=" + estimate);
+        }
+    }
+
+    @Test
+    void mergedPartsEqualOneSketchAndSurviveEncoding() {
+        double[] durations = rentalDurations(20_000, 2);
+        DurationSketch whole = new DurationSketch();
+        DurationSketch[] parts = {new DurationSketch(), new DurationSketch(), new DurationSketch()};
+        for (int i = 0; i < durations.length; i++) {
+            whole.add(durations[i]);
+            parts[i % parts.length].add(durations[i]);
+        }
+        DurationSketch merged = new DurationSketch();
+        for (DurationSketch part : parts) merged.merge(DurationSketch.fromBytes(part.toBytes()));
+
+        DurationSketch decoded = DurationSketch.fromBytes(merged.toBytes());
+        assertEquals(whole.getCount(), decoded.getCount());
+        assertArrayEquals(quantiles(whole), quantiles(decoded));
+        assertArrayEquals(whole.toBytes(), decoded.toBytes());
+        assertTrue(decoded.toBytes().length < 1024, decoded.toBytes().length + " bytes");
+    }
+
+    /**
+     * Helper: Log-normal rental durations around a day (from minutes to months), with some under a second.
+     */
+    private static double[] rentalDurations(int n, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        double[] durations = new double[n];
+        for (int i = 0; i < n; i++) {
+            double gaussian = Math.sqrt(-2 * Math.log(1 - random.nextDouble())) * Math.cos(2 * Math.PI * random.nextDouble());
+            durations[i] = i % 500 == 0 ? random.nextDouble() : Math.exp(Math.log(86_400) + 1.5 * gaussian);
+        }
+        return durations;
+    }
+
+    private static double[] quantiles(DurationSketch sketch) {
+        return Arrays.stream(QUANTILES).map(sketch::quantile).toArray();
+    }
+}
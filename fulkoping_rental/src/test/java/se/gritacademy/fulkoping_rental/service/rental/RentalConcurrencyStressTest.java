@@ -0,0 +1,131 @@
+package se.gritacademy.fulkoping_rental.service.rental;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import se.gritacademy.fulkoping_rental.dto.rental.CreateRentalDTO;
+import se.gritacademy.fulkoping_rental.exception.ConflictException;
+import se.gritacademy.fulkoping_rental.exception.ValidationException;
+import se.gritacademy.fulkoping_rental.model.rental.Rental;
+import se.gritacademy.fulkoping_rental.model.user.Customer;
+import se.gritacademy.fulkoping_rental.model.vehicle.Car;
+import se.gritacademy.fulkoping_rental.model.vehicle.Vehicle;
+import se.gritacademy.fulkoping_rental.repository.rental.RentalRepository;
+import se.gritacademy.fulkoping_rental.repository.user.UserRepository;
+import se.gritacademy.fulkoping_rental.repository.vehicle.VehicleRepository;
+import se.gritacademy.fulkoping_rental.service.vehicle.VehicleService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Hammers two vehicles with concurrent bookings, returns and "mark as available" PATCHes
+ * and checks that no update was lost: every vehicle is rented exactly when it has an active rental,
+ * no vehicle has two active rentals, every successful booking created a rental
+ * and no rental was returned twice.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class RentalConcurrencyStressTest {
+
+    private static final int THREADS = 8;
+    private static final int OPERATIONS_PER_THREAD = 100;
+
+    @Autowired
+    private RentalService rentalService;
+    @Autowired
+    private VehicleService vehicleService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private VehicleRepository vehicleRepository;
+    @Autowired
+    private RentalRepository rentalRepository;
+
+    @Test
+    void noLostUpdatesUnderContention() throws Exception {
+        long run = System.nanoTime();
+        Long customerId = userRepository.save(
+                new Customer("Stress", "Test", "stress-" + run + "@example.com", "+46701234567")).getId();
+        List<Long> vehicleIds = List.of(
+                vehicleRepository.save(new Car("ST" + run % 100_000 + "A", "Volvo", "V70", false, 5)).getId(),
+                vehicleRepository.save(new Car("ST" + run % 100_000 + "B", "Volvo", "V90", false, 5)).getId());
+
+        AtomicInteger bookings = new AtomicInteger();
+        AtomicInteger conflicts = new AtomicInteger();
+        Set<Long> returnedRentals = ConcurrentHashMap.newKeySet();
+        List<Long> doubleReturns = new ArrayList<>();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            SplittableRandom random = new SplittableRandom(t);
+            workers.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                    Long vehicleId = vehicleIds.get(random.nextInt(vehicleIds.size()));
+                    try {
+                        switch (random.nextInt(3)) {
+                            case 0 -> {
+                                CreateRentalDTO dto = new CreateRentalDTO();
+                                dto.setUserId(customerId);
+                                dto.setVehicleId(vehicleId);
+                                rentalService.createRental(dto);
+                                bookings.incrementAndGet();
+                            }
+                            case 1 -> {
+                                for (Rental rental : rentalRepository.findByVehicleId(vehicleId)) {
+                                    if (rental.getEndDateTime() == null) {
+                                        rentalService.returnRental(rental.getId());
+                                        if (!returnedRentals.add(rental.getId())) {
+                                            synchronized (doubleReturns) {
+                                                doubleReturns.add(rental.getId());
+                                            }
+                                        }
+                                        break;
+                                    }
+                                }
+                            }
+                            default -> vehicleService.updateRentStatus(vehicleId, false);
+                        }
+                    } catch (ValidationException expected) {
+                        // Already rented or already returned, decided on the latest state
+                    } catch (ConflictException e) {
+                        conflicts.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+        pool.shutdown();
+
+        int rentals = 0;
+        for (Long vehicleId : vehicleIds) {
+            Vehicle vehicle = vehicleRepository.findById(vehicleId).orElseThrow();
+            List<Rental> history = rentalRepository.findByVehicleId(vehicleId);
+            long active = history.stream().filter(r -> r.getEndDateTime() == null).count();
+            assertTrue(active <= 1, "vehicle " + vehicleId + " has " + active + " active rentals");
+            assertEquals(active == 1, vehicle.isRented(), "rented flag of vehicle " + vehicleId);
+            rentals += history.size();
+        }
+        assertEquals(bookings.get(), rentals, "successful bookings vs stored rentals");
+        assertTrue(doubleReturns.isEmpty(), "rentals returned twice: " + doubleReturns);
+        assertTrue(conflicts.get() < THREADS * OPERATIONS_PER_THREAD / 10, "unresolved conflicts: " + conflicts.get());
+    }
+}
@@ -0,0 +1,44 @@
+package se.gritacademy.fulkoping_rental.service.unique;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * A Bloom filter may only err towards "might contain": saved values must never be reported as new,
+ * or a duplicate would skip the uniqueness check.
+ */
+class BloomFilterTest {
+
+    @Test
+    void neverReportsSavedValuesAsNew() {
+        BloomFilter filter = new BloomFilter(50_000, 0.01);
+        for (int i = 0; i < 50_000; i++) {
+            filter.put("ABC" + i);
+        }
+        for (int i = 0; i < 50_000; i++) {
+            assertTrue(filter.mightContain("ABC" + i), "ABC" + i);
+        }
+    }
+
+    @Test
+    void keepsFalsePositiveRateNearTarget() {
+        BloomFilter filter = new BloomFilter(50_000, 0.01);
+        for (int i = 0; i < 50_000; i++) {
+            filter.put("user" + i + "@example.com");
+        }
+        int falsePositives = 0;
+        for (int i = 50_000; i < 150_000; i++) {
+            if (filter.mightContain("user" + i + "@example.com")) falsePositives++;
+        }
+        double rate = falsePositives / 100_000.0;
+        assertTrue(rate < 0.02, "false positive rate " + rate);
+    }
+
+    @Test
+    void normalizesLikeCaseAndAccentInsensitiveCollation() {
+        assertEquals(UniqueValueFilter.normalize("anna@example.com"), UniqueValueFilter.normalize(" Anna@Example.COM"));
+        assertEquals(UniqueValueFilter.normalize("bjorn@example.com"), UniqueValueFilter.normalize("Björn@example.com"));
+    }
+}
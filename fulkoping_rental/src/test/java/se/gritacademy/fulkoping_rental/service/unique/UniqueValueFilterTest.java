@@ -0,0 +1,67 @@
+package se.gritacademy.fulkoping_rental.service.unique;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import se.gritacademy.fulkoping_rental.exception.DuplicateValueException;
+import se.gritacademy.fulkoping_rental.model.user.Customer;
+import se.gritacademy.fulkoping_rental.service.user.UserService;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Values must be keyed the way MySQL compares them, and updates that keep their unique values must not
+ * hide rows inserted by another instance from the row count check that triggers a rebuild.
+ * The stale ratio is disabled so that only the row count check can rebuild the filter.
+ */
+@SpringBootTest(properties = "app.unique-filter.max-stale-ratio=1.0")
+@ActiveProfiles("test")
+class UniqueValueFilterTest {
+
+    @Autowired
+    private UniqueValueFilter filter;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private HikariDataSource primaryDataSource;
+
+    @Test
+    void normalizeIgnoresCaseTrailingSpacesAndAccents() {
+        assertEquals("anna@example.com", UniqueValueFilter.normalize("Anna@Example.COM  "));
+        assertEquals("asa.oberg@example.se", UniqueValueFilter.normalize("Åsa.Öberg@example.se"));
+        assertEquals(UniqueValueFilter.normalize("ABC123"), UniqueValueFilter.normalize("abc123 "));
+        assertNotEquals(UniqueValueFilter.normalize("abc123"), UniqueValueFilter.normalize("abc124"));
+    }
+
+    @Test
+    void rebuildsForRemoteInsertsAfterUpdatesThatKeepTheEmail() {
+        long run = System.nanoTime() % 100_000;
+        filter.refresh();
+        Long userId = userService.saveUser(
+                new Customer("Unique", "Filter", "unique-" + run + "@example.com", "+46701234567")).getId();
+        for (int i = 0; i < 5; i++) {
+            userService.updateUser(userId, Map.of("firstName", "Name" + (char) ('a' + i)));
+        }
+
+        // Inserted by another instance, so only a rebuild adds it to this filter
+        String remoteEmail = "remote-" + run + "@example.com";
+        new JdbcTemplate(primaryDataSource).update(
+                "insert into user (first_name, last_name, email) values ('Remote', 'Insert', ?)", remoteEmail);
+
+        filter.refresh();
+        assertThrows(DuplicateValueException.class,
+                () -> filter.ensureUnique(UniqueField.EMAIL, remoteEmail, value -> true));
+
+        String changedEmail = "changed-" + run + "@example.com";
+        userService.updateUser(userId, Map.of("email", changedEmail));
+        assertThrows(DuplicateValueException.class,
+                () -> filter.ensureUnique(UniqueField.EMAIL, changedEmail, value -> true));
+    }
+}
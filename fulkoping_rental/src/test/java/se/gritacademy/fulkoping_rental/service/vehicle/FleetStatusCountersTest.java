@@ -0,0 +1,117 @@
+package se.gritacademy.fulkoping_rental.service.vehicle;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import se.gritacademy.fulkoping_rental.dto.rental.CreateRentalDTO;
+import se.gritacademy.fulkoping_rental.exception.DomainException;
+import se.gritacademy.fulkoping_rental.model.rental.Rental;
+import se.gritacademy.fulkoping_rental.model.user.Customer;
+import se.gritacademy.fulkoping_rental.model.vehicle.Car;
+import se.gritacademy.fulkoping_rental.model.vehicle.Truck;
+import se.gritacademy.fulkoping_rental.model.vehicle.Vehicle;
+import se.gritacademy.fulkoping_rental.repository.user.UserRepository;
+import se.gritacademy.fulkoping_rental.repository.vehicle.VehicleRepository;
+import se.gritacademy.fulkoping_rental.service.rental.RentalService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+/**
+ * Checks that the fleet status counters follow bookings, returns, status PATCHes, creates and deletes
+ * from concurrent threads without a reconcile, and that a reconcile picks up a change made
+ * around the services. Scheduled reconciles are pushed out so they cannot hide a miscount.
+ */
+@SpringBootTest(properties = {
+        "app.fleet-status.reconcile-interval-ms=3600000",
+        "app.fleet-status.min-reconcile-interval-ms=3600000"
+})
+@ActiveProfiles("test")
+class FleetStatusCountersTest {
+
+    private static final int THREADS = 4;
+    private static final int OPERATIONS_PER_THREAD = 50;
+
+    @Autowired
+    private FleetStatusCounters counters;
+    @Autowired
+    private VehicleService vehicleService;
+    @Autowired
+    private RentalService rentalService;
+    @Autowired
+    private VehicleRepository vehicleRepository;
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void countersMatchTheDatabaseWithoutReconciling() throws Exception {
+        long run = System.nanoTime() % 100_000;
+        counters.reconcile();
+        Long customerId = userRepository.save(
+                new Customer("Fleet", "Test", "fleet-" + run + "@example.com", "+46701234567")).getId();
+        List<Long> vehicleIds = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            vehicleIds.add(vehicleService.saveVehicle(new Car("FL" + run + i, "Volvo", "V70", false, 5)).getId());
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            SplittableRandom random = new SplittableRandom(t);
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                    Long vehicleId = vehicleIds.get(random.nextInt(vehicleIds.size()));
+                    try {
+                        switch (random.nextInt(3)) {
+                            case 0 -> rentalService.createRental(booking(customerId, vehicleId));
+                            case 1 -> rentalService.getHistoryForVehicle(vehicleId).stream()
+                                    .filter(r -> r.getEndDateTime() == null)
+                                    .map(Rental::getId)
+                                    .findFirst()
+                                    .ifPresent(rentalService::returnRental);
+                            default -> vehicleService.updateRentStatus(vehicleId, random.nextBoolean());
+                        }
+                    } catch (DomainException expected) {
+                        // Already rented / returned or retries exhausted; nothing was committed
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) future.get();
+        executor.shutdown();
+        vehicleService.updateRentStatus(vehicleIds.get(0), false);
+        vehicleService.deleteVehicle(vehicleIds.get(0));
+
+        assertCountsMatchDatabase();
+
+        vehicleRepository.save(new Truck("FT" + run, "Scania", "R500", true, "C"));
+        counters.reconcile();
+        assertCountsMatchDatabase();
+    }
+
+    private static CreateRentalDTO booking(Long userId, Long vehicleId) {
+        CreateRentalDTO dto = new CreateRentalDTO();
+        dto.setUserId(userId);
+        dto.setVehicleId(vehicleId);
+        return dto;
+    }
+
+    private void assertCountsMatchDatabase() {
+        Map<String, long[]> counts = counters.getCounts();
+        for (String type : FleetStatusCounters.TYPES) {
+            long[] expected = new long[2];
+            for (Vehicle vehicle : vehicleRepository.findAll()) {
+                if (vehicle.getClass().getSimpleName().equals(type)) expected[vehicle.isRented() ? 1 : 0]++;
+            }
+            assertArrayEquals(expected, counts.get(type), type + " {available, rented}");
+        }
+    }
+}